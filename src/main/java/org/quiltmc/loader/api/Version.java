@@ -24,8 +24,8 @@ import java.util.stream.Collectors;
 
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Nullable;
-import org.quiltmc.loader.impl.metadata.qmj.GenericVersionImpl;
 import org.quiltmc.loader.impl.metadata.qmj.SemanticVersionImpl;
+import org.quiltmc.loader.impl.metadata.qmj.VersionInterner;
 
 /** Representation of a version. <br>
  * All implementations either implement {@link Raw} or {@link Semantic}. <br>
@@ -38,11 +38,7 @@ public interface Version {
 	static Comparator<Version> COMPARATOR = Version::compareTo;
 
 	static Version of(String raw) {
-		try {
-			return Semantic.of(raw);
-		} catch (VersionFormatException ex) {
-			return new GenericVersionImpl(raw);
-		}
+		return VersionInterner.of(raw);
 	}
 
 	/** @return The raw string that this version was constructed from.*/
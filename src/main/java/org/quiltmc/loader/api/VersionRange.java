@@ -73,6 +73,12 @@ public interface VersionRange extends SortedSet<VersionInterval> {
 	/** @return A {@link VersionRange} that only matches versions which match both this range and the given range. */
 	VersionRange combineMatchingBoth(VersionRange other);
 
+	/** @return A {@link VersionRange} that matches versions which match either this range or the given range. */
+	VersionRange combineMatchingEither(VersionRange other);
+
+	/** @return A {@link VersionRange} that matches every version which this range doesn't. */
+	VersionRange invert();
+
 
 	// SortedSet overrides
 
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.api.entrypoint;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.quiltmc.loader.api.ModContainer;
+
+/**
+ * The time spent loading, constructing, and invoking every entrypoint that a single mod provides for a single
+ * entrypoint key.
+ * <p>
+ * Invocation is only measured when entrypoints are invoked through {@link EntrypointUtil}.
+ *
+ * @see EntrypointUtil#getTimings()
+ */
+@ApiStatus.NonExtendable
+public interface EntrypointTiming {
+
+	/** @return The entrypoint key, for example "init" or "pre_launch". */
+	String key();
+
+	/** @return The mod that provided the entrypoints. */
+	ModContainer provider();
+
+	/** @return The time spent loading entrypoint classes, excluding their static initialisers. This is 0 for
+	 *         entrypoints created by language adapters other than the default one. */
+	long classLoadNanos();
+
+	/** @return The time spent in {@link org.quiltmc.loader.api.LanguageAdapter#create}, including static
+	 *         initialisers. */
+	long constructNanos();
+
+	/** @return The time spent invoking the entrypoints. */
+	long invokeNanos();
+
+	/** @return The number of bytes allocated on the invoking thread while invoking the entrypoints, or -1 if the JVM
+	 *         doesn't support measuring this. */
+	long invokeAllocatedBytes();
+
+	/** @return The sum of {@link #classLoadNanos()}, {@link #constructNanos()}, and {@link #invokeNanos()}. */
+	default long totalNanos() {
+		return classLoadNanos() + constructNanos() + invokeNanos();
+	}
+}
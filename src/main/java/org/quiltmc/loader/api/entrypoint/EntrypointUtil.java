@@ -16,10 +16,12 @@
 
 package org.quiltmc.loader.api.entrypoint;
 
+import java.util.List;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 import org.quiltmc.loader.api.ModContainer;
+import org.quiltmc.loader.impl.entrypoint.EntrypointProfiler;
 import org.quiltmc.loader.impl.entrypoint.EntrypointUtils;
 
 /** Various methods for invoking entrypoints. This is intended for use whenever you want to invoke a method on each
@@ -53,4 +55,32 @@ public class EntrypointUtil {
 	public static <T> void invokeContainer(String name, Class<T> type, Consumer<EntrypointContainer<T>> invoker) {
 		EntrypointUtils.invokeContainer(name, type, invoker);
 	}
+
+	/** Passes every entrypoint value with the given name to the consumer, using several threads at once. This is
+	 * intended for entrypoints that do slow work which doesn't need to happen on the calling thread, like I/O.
+	 * <p>
+	 * The entrypoints of each mod are invoked in order, after the entrypoints of every mod that it depends on have
+	 * finished. Entrypoints of unrelated mods may run at the same time, so the consumer must be thread safe. This
+	 * returns once every entrypoint has been invoked.
+	 * 
+	 * @throws EntrypointException if anything goes wrong while gathering entrypoints (for example if an entrypoint
+	 *             cannot be cast to the given class). */
+	public static <T> void invokeParallel(String name, Class<T> type, Consumer<? super T> invoker) {
+		invokeContainerParallel(name, type, container -> invoker.accept(container.getEntrypoint()));
+	}
+
+	/** Passes every {@link EntrypointContainer} with the given name to the consumer, using several threads at once,
+	 * in the same way as {@link #invokeParallel(String, Class, Consumer)}.
+	 * 
+	 * @throws EntrypointException if anything goes wrong while gathering entrypoints (for example if an entrypoint
+	 *             cannot be cast to the given class). */
+	public static <T> void invokeContainerParallel(String name, Class<T> type, Consumer<EntrypointContainer<T>> invoker) {
+		EntrypointUtils.invokeContainerParallel(name, type, invoker);
+	}
+
+	/** @return The time spent on the entrypoints of every mod for every entrypoint key so far, slowest first. Entrypoint
+	 *         invocation is only included when invoked through this class. */
+	public static List<EntrypointTiming> getTimings() {
+		return EntrypointProfiler.getTimings();
+	}
 }
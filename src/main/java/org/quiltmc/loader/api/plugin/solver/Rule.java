@@ -47,6 +47,18 @@ public abstract class Rule {
 		return false;
 	}
 
+	/** Used to avoid calling {@link #onLoadOptionAdded(LoadOption)} and {@link #onLoadOptionRemoved(LoadOption)} for
+	 * options that this rule can't be affected by, since packs with lots of mods have lots of both.
+	 * <p>
+	 * Each key is either a mod id (as a {@link String}), in which case every {@link ModLoadOption} with that
+	 * {@link ModLoadOption#id()} is passed to this rule, or a {@link LoadOption}, in which case only that option is
+	 * passed to this rule. The keys must not change while this rule is added.
+	 * 
+	 * @return The keys that this rule is interested in, or null if this rule needs to be told about every option. */
+	public Collection<?> getInterestKeys() {
+		return null;
+	}
+
 	public abstract void define(RuleDefiner definer);
 
 	/** @return A description of the link. */
@@ -44,6 +44,30 @@ public final class QuiltLoaderConfig {
 	 * version, and only loaded if they match the game version. */
 	public final boolean restrictGameVersions;
 
+	// #######
+	// Caching
+	// #######
+
+	/** If true then parsed quilt.mod.json files are stored in the cache folder, and reused on the next launch if the
+	 * file that contains them hasn't changed. */
+	public final boolean cacheModMetadata;
+
+	/** If true then jars nested inside other jars are extracted to the cache folder, and opened from there on the next
+	 * launch if the outer jar hasn't changed. */
+	public final boolean cacheNestedJars;
+
+	// ######
+	// Solver
+	// ######
+
+	/** The longest time, in milliseconds, that the solver will spend looking for better solutions each time it finds
+	 * a valid set of mods. It normally stops well before this, once it stops finding better solutions quickly. */
+	public final int solverOptimiseTimeout;
+
+	/** If true then several differently configured solvers are raced against each other on separate threads when
+	 * optimising, and the best solution found by any of them is used. */
+	public final boolean solverPortfolio;
+
 	// #####
 	// Debug
 	// #####
@@ -80,6 +104,10 @@ public final class QuiltLoaderConfig {
 
 		loadSubFolders = getBool(props, "load_sub_folders", true);
 		restrictGameVersions = getBool(props, "restrict_game_versions", true);
+		cacheModMetadata = getBool(props, "cache_mod_metadata", true);
+		cacheNestedJars = getBool(props, "cache_nested_jars", true);
+		solverOptimiseTimeout = getInt(props, "solver_optimise_timeout_ms", 5000, 1);
+		solverPortfolio = getBool(props, "solver_portfolio", false);
 		alwaysShowModStateWindow = getBool(props, "always_show_mod_state_window", false);
 
 		if (!original.equals(props)) {
@@ -97,6 +125,10 @@ public final class QuiltLoaderConfig {
 		this.alwaysShowModStateWindow = false;
 		this.loadSubFolders = true;
 		this.restrictGameVersions = true;
+		this.cacheModMetadata = false;
+		this.cacheNestedJars = false;
+		this.solverOptimiseTimeout = 5000;
+		this.solverPortfolio = false;
 	}
 
 	private static boolean getBool(Properties props, String key, boolean _default) {
@@ -117,4 +149,25 @@ public final class QuiltLoaderConfig {
 
 		return _default;
 	}
+
+	private static int getInt(Properties props, String key, int _default, int min) {
+		String value = props.getProperty(key);
+		if (value == null) {
+			props.setProperty(key, Integer.toString(_default));
+			return _default;
+		}
+
+		try {
+			int i = Integer.parseInt(value.trim());
+			if (i >= min) {
+				return i;
+			}
+		} catch (NumberFormatException e) {
+			// Warned below
+		}
+
+		Log.warn(LogCategory.CONFIG, "Unknown / invalid config value for '" + key + "': " + value);
+
+		return _default;
+	}
 }
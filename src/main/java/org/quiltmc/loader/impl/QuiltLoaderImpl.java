@@ -25,6 +25,7 @@ import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
@@ -40,6 +41,7 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -49,9 +51,6 @@ import java.util.Set;
 import java.util.function.Consumer;
 import java.util.jar.Attributes;
 import java.util.jar.Manifest;
-import java.util.stream.Collectors;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 import org.objectweb.asm.Opcodes;
 import org.quiltmc.loader.api.FasterFiles;
@@ -76,6 +75,7 @@ import org.quiltmc.loader.impl.discovery.ModResolutionException;
 import org.quiltmc.loader.impl.discovery.ModSolvingError;
 import org.quiltmc.loader.impl.entrypoint.EntrypointStorage;
 import org.quiltmc.loader.impl.entrypoint.EntrypointUtils;
+import org.quiltmc.loader.impl.filesystem.ParallelZipWriter;
 import org.quiltmc.loader.impl.filesystem.QuiltJoinedFileSystem;
 import org.quiltmc.loader.impl.filesystem.QuiltJoinedPath;
 import org.quiltmc.loader.impl.filesystem.QuiltZipFileSystem;
@@ -114,6 +114,7 @@ import org.quiltmc.loader.impl.util.QuiltLoaderInternalType;
 import org.quiltmc.loader.impl.util.SystemProperties;
 import org.quiltmc.loader.impl.util.log.Log;
 import org.quiltmc.loader.impl.util.log.LogCategory;
+import org.quiltmc.loader.impl.util.log.LogLevel;
 
 import net.fabricmc.accesswidener.AccessWidener;
 import net.fabricmc.accesswidener.AccessWidenerReader;
@@ -422,10 +423,16 @@ public final class QuiltLoaderImpl {
 
 		long modAddEnd = System.nanoTime();
 
-		System.out.println("transform-cache took " + (zipEnd - zipStart) / 1000_000 + "ms");
-		System.out.println("zip sub copy took " + zipSubCopyTotal / 1000_000 + "ms");
-		System.out.println("tmp jar copy took " + jarCopyTotal / 1000_000 + "ms");
-		System.out.println("mod adding took " + (modAddEnd - zipEnd - zipSubCopyTotal - jarCopyTotal) / 1000_000 + "ms");
+		Map<String, Long> timings = new LinkedHashMap<>();
+		timings.put("transform_cache_ms", (zipEnd - zipStart) / 1000_000);
+		timings.put("zip_sub_copy_ms", zipSubCopyTotal / 1000_000);
+		timings.put("jar_copy_ms", jarCopyTotal / 1000_000);
+		timings.put("mod_add_ms", (modAddEnd - zipEnd - zipSubCopyTotal - jarCopyTotal) / 1000_000);
+		Log.logFields(
+			LogLevel.INFO, LogCategory.GENERAL, timings,
+			"transform-cache took %dms, zip sub copy took %dms, tmp jar copy took %dms, mod adding took %dms",
+			timings.values().toArray()
+		);
 
 		int count = mods.size();
 		Log.info(LogCategory.GENERAL, "Loading %d mod%s:%n%s", count, count != 1 ? "s" : "", createModTable());
@@ -476,11 +483,22 @@ public final class QuiltLoaderImpl {
 			}
 		}
 
+		ParallelZipWriter writer;
+		String fingerprint;
+		try {
+			writer = new ParallelZipWriter(resourceRoot);
+			// The resource root might have changed (for example when loading from a development folder)
+			// without the version changing, so the finished marker holds a fingerprint of the files it was copied from
+			fingerprint = HashUtil.hashToString(writer.computeFingerprint());
+		} catch (IOException e) {
+			throw new Error("// TODO: Failed to read the mod " + modOption.id() + " to copy it to a jar!", e);
+		}
+
 		String fileName = "transformed-mod-" + modOption.id() + "-v" + version + ".jar";
 		Path modJarFile = transformCacheFolder.resolve(fileName);
 		Path andFinished = transformCacheFolder.resolve(fileName + ".finished");
 
-		if (!Files.exists(modJarFile) || !Files.exists(andFinished)) {
+		if (!Files.exists(modJarFile) || !fingerprint.equals(readFinishedFingerprint(andFinished))) {
 			try {
 				Files.deleteIfExists(modJarFile);
 				Files.deleteIfExists(andFinished);
@@ -490,42 +508,9 @@ public final class QuiltLoaderImpl {
 
 			Log.info(LogCategory.GENERAL, "Copying " + modOption.id() + " to a temporary jar file " + modJarFile);
 			try {
-				try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(modJarFile))) {
-					List<Path> list = Files.walk(resourceRoot).collect(Collectors.toList());
-					for (Path path : list) {
-						String pathStr = path.toString();
-						if (pathStr.startsWith("/")) {
-							pathStr = pathStr.substring(1);
-						}
-						if (FasterFiles.isDirectory(path)) {
-							zip.putNextEntry(new ZipEntry(pathStr + "/"));
-						} else {
-							if (pathStr.startsWith("META-INF/") && pathStr.lastIndexOf('/') == 8 && pathStr.endsWith(".SF")) {
-								continue;
-							}
-							byte[] bytes = Files.readAllBytes(path);
-							if ("META-INF/MANIFEST.MF".equals(pathStr)) {
-								boolean changed = false;
-								Manifest manifest = new Manifest(new ByteArrayInputStream(bytes));
-								for (Attributes attributes : manifest.getEntries().values()) {
-									if (attributes.remove(new Attributes.Name("SHA-256-Digest")) != null) {
-										changed = true;
-									}
-								}
-								if (changed) {
-									ByteArrayOutputStream baos = new ByteArrayOutputStream();
-									manifest.write(baos);
-									bytes = baos.toByteArray();
-								}
-							}
-							zip.putNextEntry(new ZipEntry(pathStr));
-							zip.write(bytes);
-						}
-						zip.closeEntry();
-					}
-				}
-
-				Files.createFile(andFinished);
+				boolean compress = !Boolean.getBoolean(SystemProperties.JAR_COPY_STORE_UNCOMPRESSED);
+				writer.write(modJarFile, compress, QuiltLoaderImpl::processJarCopyEntry);
+				Files.write(andFinished, fingerprint.getBytes(StandardCharsets.UTF_8));
 			} catch (IOException e) {
 				throw new Error("// TODO: Failed to copy the jar " + modJarFile, e);
 			}
@@ -541,6 +526,37 @@ public final class QuiltLoaderImpl {
 		}
 	}
 
+	/** @return The fingerprint written to the given ".finished" marker, or null if it's missing. */
+	private static String readFinishedFingerprint(Path andFinished) {
+		try {
+			return new String(Files.readAllBytes(andFinished), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/** Strips jar signatures from a mod that's being copied to a jar, since the copied jar won't match them. */
+	private static byte[] processJarCopyEntry(String name, byte[] bytes) throws IOException {
+		if (name.startsWith("META-INF/") && name.lastIndexOf('/') == 8 && name.endsWith(".SF")) {
+			return null;
+		}
+		if ("META-INF/MANIFEST.MF".equals(name)) {
+			boolean changed = false;
+			Manifest manifest = new Manifest(new ByteArrayInputStream(bytes));
+			for (Attributes attributes : manifest.getEntries().values()) {
+				if (attributes.remove(new Attributes.Name("SHA-256-Digest")) != null) {
+					changed = true;
+				}
+			}
+			if (changed) {
+				ByteArrayOutputStream baos = new ByteArrayOutputStream();
+				manifest.write(baos);
+				bytes = baos.toByteArray();
+			}
+		}
+		return bytes;
+	}
+
 	private ModSolveResult runPlugins() {
 		QuiltLoaderConfig config = new QuiltLoaderConfig(getConfigDir().resolve("quilt-loader.txt"));
 		QuiltPluginManagerImpl plugins = new QuiltPluginManagerImpl(getGameDir(), getConfigDir(), getModsDir(), getCacheDir(), provider, config);
@@ -1064,6 +1080,8 @@ public final class QuiltLoaderImpl {
 				throw new RuntimeException(String.format("Failed to setup mod %s (%s)", mod.metadata().name(), mod.rootPath()), e);
 			}
 		}
+
+		entrypointStorage.freeze();
 	}
 
 	public void loadAccessWideners() {
@@ -28,7 +28,7 @@ import org.quiltmc.loader.impl.util.QuiltLoaderInternalType;
 public class EntrypointContainerImpl<T> implements EntrypointContainer<T> {
 	private final ModContainer container;
 	private final Supplier<T> entrypointSupplier;
-	private T instance;
+	private volatile T instance;
 
 	/**
 	 * Create EntrypointContainer with lazy init.
@@ -49,12 +49,19 @@ public class EntrypointContainerImpl<T> implements EntrypointContainer<T> {
 
 	@SuppressWarnings("deprecation")
 	@Override
-	public synchronized T getEntrypoint() {
-		if (instance == null) {
-			this.instance = entrypointSupplier.get();
+	public T getEntrypoint() {
+		T value = instance;
+		if (value != null) {
+			return value;
 		}
 
-		return instance;
+		synchronized (this) {
+			if (instance == null) {
+				this.instance = entrypointSupplier.get();
+			}
+
+			return instance;
+		}
 	}
 
 	@Override
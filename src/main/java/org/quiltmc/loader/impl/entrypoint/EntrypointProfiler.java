@@ -0,0 +1,203 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.entrypoint;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.quiltmc.loader.api.ModContainer;
+import org.quiltmc.loader.api.entrypoint.EntrypointContainer;
+import org.quiltmc.loader.api.entrypoint.EntrypointTiming;
+import org.quiltmc.loader.impl.util.AsciiTableGenerator;
+import org.quiltmc.loader.impl.util.AsciiTableGenerator.AsciiTableColumn;
+import org.quiltmc.loader.impl.util.AsciiTableGenerator.AsciiTableRow;
+import org.quiltmc.loader.impl.util.QuiltLoaderInternal;
+import org.quiltmc.loader.impl.util.QuiltLoaderInternalType;
+import org.quiltmc.loader.impl.util.SystemProperties;
+import org.quiltmc.loader.impl.util.log.Log;
+import org.quiltmc.loader.impl.util.log.LogCategory;
+import org.quiltmc.loader.impl.util.log.LogLevel;
+
+/** Records how long each mod's entrypoints take to load, construct, and invoke, for every entrypoint key. */
+@QuiltLoaderInternal(QuiltLoaderInternalType.NEW_INTERNAL)
+public final class EntrypointProfiler {
+
+	private static final boolean REPORT = Boolean.getBoolean(SystemProperties.DEBUG_ENTRYPOINT_TIMINGS);
+
+	/** Null if the JVM can't measure per-thread allocations. */
+	private static final com.sun.management.ThreadMXBean ALLOCATIONS = findAllocationBean();
+
+	/** Indexed by key, then by mod. */
+	private static final Map<String, Map<ModContainer, Timing>> TIMINGS = new ConcurrentHashMap<>();
+
+	private EntrypointProfiler() {}
+
+	private static com.sun.management.ThreadMXBean findAllocationBean() {
+		try {
+			ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			if (bean instanceof com.sun.management.ThreadMXBean) {
+				com.sun.management.ThreadMXBean sun = (com.sun.management.ThreadMXBean) bean;
+				if (sun.isThreadAllocatedMemorySupported() && sun.isThreadAllocatedMemoryEnabled()) {
+					return sun;
+				}
+			}
+		} catch (LinkageError | SecurityException e) {
+			// The jdk.management module isn't present
+		}
+		return null;
+	}
+
+	static Timing get(String key, ModContainer mod) {
+		return TIMINGS.computeIfAbsent(key, k -> new ConcurrentHashMap<>()).computeIfAbsent(mod, m -> new Timing(key, m));
+	}
+
+	/** Invokes the given container, recording the time and allocations taken. The entrypoint is still only created
+	 * when the invoker first asks for it, and the class loading and construction time recorded for it while invoking
+	 * isn't counted as invocation. */
+	static <T> void invoke(String key, EntrypointContainer<T> container, Consumer<EntrypointContainer<T>> invoker) {
+		Timing timing = get(key, container.getProvider());
+		long threadId = Thread.currentThread().getId();
+		long allocatedBefore = ALLOCATIONS != null ? ALLOCATIONS.getThreadAllocatedBytes(threadId) : 0;
+		long createdBefore = timing.classLoadNanos.get() + timing.constructNanos.get();
+		long start = System.nanoTime();
+
+		try {
+			invoker.accept(container);
+		} finally {
+			long elapsed = System.nanoTime() - start;
+			long created = timing.classLoadNanos.get() + timing.constructNanos.get() - createdBefore;
+			timing.invokeNanos.addAndGet(Math.max(0, elapsed - created));
+			if (ALLOCATIONS != null) {
+				timing.allocatedBytes.addAndGet(ALLOCATIONS.getThreadAllocatedBytes(threadId) - allocatedBefore);
+			}
+		}
+	}
+
+	/** @return Every recorded timing, slowest first. */
+	public static List<EntrypointTiming> getTimings() {
+		List<EntrypointTiming> list = new ArrayList<>();
+		for (Map<ModContainer, Timing> byMod : TIMINGS.values()) {
+			list.addAll(byMod.values());
+		}
+		list.sort(Comparator.comparingLong(EntrypointTiming::totalNanos).reversed());
+		return list;
+	}
+
+	/** Logs {@link #appendReport(String, Consumer)} for the given key, at info level if
+	 * {@link SystemProperties#DEBUG_ENTRYPOINT_TIMINGS} is set, or debug level otherwise. */
+	static void logReport(String key) {
+		LogLevel level = REPORT ? LogLevel.INFO : LogLevel.DEBUG;
+		if (Log.shouldLog(level, LogCategory.ENTRYPOINT)) {
+			Log.log(level, LogCategory.ENTRYPOINT, "Entrypoint timings for '" + key + "':");
+			appendReport(key, line -> Log.log(level, LogCategory.ENTRYPOINT, line));
+		}
+	}
+
+	/** Appends a table of the timings for the given key (or every key if null), slowest first. */
+	public static void appendReport(String key, Consumer<String> to) {
+		AsciiTableGenerator table = new AsciiTableGenerator();
+
+		AsciiTableColumn keyColumn = key == null ? table.addColumn("Key", false) : null;
+		AsciiTableColumn mod = table.addColumn("Mod", false);
+		AsciiTableColumn total = table.addColumn("Total (ms)", true);
+		AsciiTableColumn classLoad = table.addColumn("Class Load (ms)", true);
+		AsciiTableColumn construct = table.addColumn("Construct (ms)", true);
+		AsciiTableColumn invoke = table.addColumn("Invoke (ms)", true);
+		AsciiTableColumn allocated = table.addColumn("Allocated (KiB)", true);
+
+		for (EntrypointTiming timing : getTimings()) {
+			if (key != null && !key.equals(timing.key())) {
+				continue;
+			}
+
+			AsciiTableRow row = table.addRow();
+			if (keyColumn != null) {
+				row.put(keyColumn, timing.key());
+			}
+			row.put(mod, timing.provider().metadata().id());
+			row.put(total, millis(timing.totalNanos()));
+			row.put(classLoad, millis(timing.classLoadNanos()));
+			row.put(construct, millis(timing.constructNanos()));
+			row.put(invoke, millis(timing.invokeNanos()));
+			long bytes = timing.invokeAllocatedBytes();
+			row.put(allocated, bytes < 0 ? "?" : Long.toString(bytes / 1024));
+		}
+
+		table.appendTable(to);
+	}
+
+	private static String millis(long nanos) {
+		return String.format("%.2f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+	}
+
+	static final class Timing implements EntrypointTiming {
+		final String key;
+		final ModContainer mod;
+		final AtomicLong classLoadNanos = new AtomicLong();
+		final AtomicLong constructNanos = new AtomicLong();
+		final AtomicLong invokeNanos = new AtomicLong();
+		final AtomicLong allocatedBytes = new AtomicLong();
+
+		Timing(String key, ModContainer mod) {
+			this.key = key;
+			this.mod = mod;
+		}
+
+		@Override
+		public String key() {
+			return key;
+		}
+
+		@Override
+		public ModContainer provider() {
+			return mod;
+		}
+
+		@Override
+		public long classLoadNanos() {
+			return classLoadNanos.get();
+		}
+
+		@Override
+		public long constructNanos() {
+			return constructNanos.get();
+		}
+
+		@Override
+		public long invokeNanos() {
+			return invokeNanos.get();
+		}
+
+		@Override
+		public long invokeAllocatedBytes() {
+			return ALLOCATIONS != null ? allocatedBytes.get() : -1;
+		}
+
+		@Override
+		public String toString() {
+			return key + " " + mod.metadata().id() + " = " + TimeUnit.NANOSECONDS.toMillis(totalNanos()) + "ms";
+		}
+	}
+}
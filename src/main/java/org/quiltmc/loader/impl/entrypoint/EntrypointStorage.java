@@ -24,6 +24,7 @@ import org.quiltmc.loader.api.entrypoint.EntrypointException;
 import org.quiltmc.loader.api.plugin.ModContainerExt;
 import org.quiltmc.loader.impl.launch.common.QuiltLauncherBase;
 import org.quiltmc.loader.impl.metadata.qmj.AdapterLoadableClassEntry;
+import org.quiltmc.loader.impl.util.DefaultLanguageAdapter;
 import org.quiltmc.loader.impl.util.QuiltLoaderInternal;
 import org.quiltmc.loader.impl.util.QuiltLoaderInternalType;
 import org.quiltmc.loader.impl.util.log.Log;
@@ -40,18 +41,44 @@ public final class EntrypointStorage {
 		ModContainerExt getModContainer();
 	}
 
+	/** An immutable linked list node, since most entries are only ever created as a single type. */
+	private static final class Instance {
+		final Class<?> type;
+		final Object value;
+		final Instance next;
+
+		Instance(Class<?> type, Object value, Instance next) {
+			this.type = type;
+			this.value = value;
+			this.next = next;
+		}
+	}
+
 	private static final class NewEntry implements Entry {
 		private final ModContainerExt mod;
 		private final LanguageAdapter adapter;
+		private final String key;
 		private final String value;
-		private final Map<Class<?>, Object> instanceMap = new HashMap<>(1);
+		/** Only created once this entry is first used, since most keys are never invoked. Guarded by this. */
+		private EntrypointProfiler.Timing timing;
+		/** Created instances, by requested type. Since the list is immutable this can be read without locking. */
+		private volatile Instance instances;
+		private boolean classLoaded;
 
-		NewEntry(ModContainerExt mod, LanguageAdapter adapter, String value) {
+		NewEntry(ModContainerExt mod, LanguageAdapter adapter, String key, String value) {
 			this.mod = mod;
 			this.adapter = adapter;
+			this.key = key;
 			this.value = value;
 		}
 
+		private EntrypointProfiler.Timing timing() {
+			if (timing == null) {
+				timing = EntrypointProfiler.get(key, mod);
+			}
+			return timing;
+		}
+
 		@Override
 		public String toString() {
 			return mod.metadata().id() + "->(0.3.x)" + value;
@@ -59,18 +86,67 @@ public final class EntrypointStorage {
 
 		@SuppressWarnings("unchecked")
 		@Override
-		public synchronized <T> T getOrCreate(Class<T> type) throws Exception {
-			// this impl allows reentrancy (unlike computeIfAbsent)
-			T ret = (T) instanceMap.get(type);
-
-			if (ret == null) {
-				ret = adapter.create(mod, value, type);
-				assert ret != null;
-				T prev = (T) instanceMap.putIfAbsent(type, ret);
-				if (prev != null) ret = prev;
+		public <T> T getOrCreate(Class<T> type) throws Exception {
+			Object ret = find(type);
+			if (ret != null) {
+				return (T) ret;
 			}
 
-			return ret;
+			synchronized (this) {
+				// this impl allows reentrancy (unlike computeIfAbsent)
+				ret = find(type);
+
+				if (ret == null) {
+					if (!classLoaded) {
+						classLoaded = true;
+						loadClass();
+					}
+
+					long start = System.nanoTime();
+					try {
+						ret = adapter.create(mod, value, type);
+					} finally {
+						timing().constructNanos.addAndGet(System.nanoTime() - start);
+					}
+					assert ret != null;
+					Object prev = find(type);
+					if (prev != null) {
+						ret = prev;
+					} else {
+						instances = new Instance(type, ret, instances);
+					}
+				}
+			}
+
+			return (T) ret;
+		}
+
+		private Object find(Class<?> type) {
+			for (Instance instance = instances; instance != null; instance = instance.next) {
+				if (instance.type == type) {
+					return instance.value;
+				}
+			}
+			return null;
+		}
+
+		/** Loads the class of a default adapter entrypoint without initialising it, so that the time spent loading
+		 * (and transforming) it can be told apart from construction. */
+		private void loadClass() {
+			if (adapter != DefaultLanguageAdapter.INSTANCE) {
+				return;
+			}
+
+			int methodIndex = value.indexOf("::");
+			String className = methodIndex < 0 ? value : value.substring(0, methodIndex);
+			long start = System.nanoTime();
+			try {
+				Class.forName(className, false, QuiltLauncherBase.getLauncher().getTargetClassLoader());
+			} catch (ClassNotFoundException | LinkageError e) {
+				// The adapter reports this properly
+			} finally {
+				timing().classLoadNanos.addAndGet(System.nanoTime() - start);
+			}
 		}
 
 		@Override
@@ -84,35 +160,101 @@ public final class EntrypointStorage {
 		}
 	}
 
-	private final Map<String, List<Entry>> entryMap = new HashMap<>();
+	/** Every entry of a single key, along with the lists previously returned for it. */
+	private static final class KeyEntries {
+		final Entry[] entries;
+
+		/** Copy-on-write maps from the requested type to an unmodifiable list, which are only filled in once every
+		 * entry was created (or wrapped) successfully. Callers are given copies of these lists. */
+		volatile Map<Class<?>, List<?>> instances = Collections.emptyMap();
+		volatile Map<Class<?>, List<?>> containers = Collections.emptyMap();
+
+		KeyEntries(List<Entry> entries) {
+			this.entries = entries.toArray(new Entry[0]);
+		}
+
+		synchronized void putInstances(Class<?> type, List<?> list) {
+			Map<Class<?>, List<?>> map = new HashMap<>(instances);
+			map.putIfAbsent(type, list);
+			instances = map;
+		}
+
+		synchronized void putContainers(Class<?> type, List<?> list) {
+			Map<Class<?>, List<?>> map = new HashMap<>(containers);
+			map.putIfAbsent(type, list);
+			containers = map;
+		}
+	}
+
+	/** Only used before {@link #freeze()}. */
+	private Map<String, List<Entry>> entryMap = new HashMap<>();
+
+	/** Null until {@link #freeze()}, and never modified after that. */
+	private volatile Map<String, KeyEntries> frozen;
 
 	private List<Entry> getOrCreateEntries(String key) {
 		return entryMap.computeIfAbsent(key, (z) -> new ArrayList<>());
 	}
 
 	public void add(ModContainerExt modContainer, String key, AdapterLoadableClassEntry metadata, Map<String, LanguageAdapter> adapterMap) throws Exception {
+		if (frozen != null) {
+			throw new IllegalStateException("Cannot add entrypoints after the storage has been frozen!");
+		}
+
 		if (!adapterMap.containsKey(metadata.getAdapter())) {
 			throw new Exception("Could not find adapter '" + metadata.getAdapter() + "' (mod " + modContainer.metadata().id() + "!)");
 		}
 
 		Log.debug(LogCategory.ENTRYPOINT, "Registering new-style initializer %s for mod %s (key %s)", metadata.getValue(), modContainer.metadata().id(), key);
 		getOrCreateEntries(key).add(new NewEntry(
-				modContainer, adapterMap.get(metadata.getAdapter()), metadata.getValue()
+				modContainer, adapterMap.get(metadata.getAdapter()), key, metadata.getValue()
 				));
 	}
 
+	/** Prevents any more entrypoints from being added, so that they can be read from any thread without locking. */
+	public void freeze() {
+		if (frozen != null) {
+			return;
+		}
+
+		Map<String, KeyEntries> map = new HashMap<>();
+		for (Map.Entry<String, List<Entry>> entry : entryMap.entrySet()) {
+			map.put(entry.getKey(), new KeyEntries(entry.getValue()));
+		}
+		entryMap = null;
+		frozen = map;
+	}
+
+	private KeyEntries getEntries(String key) {
+		Map<String, KeyEntries> map = frozen;
+		if (map != null) {
+			return map.get(key);
+		}
+
+		List<Entry> entries = entryMap.get(key);
+		return entries == null ? null : new KeyEntries(entries);
+	}
+
 	public boolean hasEntrypoints(String key) {
-		return entryMap.containsKey(key);
+		Map<String, KeyEntries> map = frozen;
+		return map != null ? map.containsKey(key) : entryMap.containsKey(key);
 	}
 
+	/** @return A new list of every entrypoint with the given key. */
+	@SuppressWarnings("unchecked")
 	public <T> List<T> getEntrypoints(String key, Class<T> type) {
-		List<Entry> entries = entryMap.get(key);
-		if (entries == null) return Collections.emptyList();
+		KeyEntries keyEntries = getEntries(key);
+		if (keyEntries == null) return Collections.emptyList();
+
+		List<?> cached = keyEntries.instances.get(type);
+		if (cached != null) {
+			return new ArrayList<>((List<T>) cached);
+		}
 
 		QuiltEntrypointException exception = null;
-		List<T> results = new ArrayList<>(entries.size());
+		List<T> results = new ArrayList<>(keyEntries.entries.length);
 
-		for (Entry entry : entries) {
+		for (Entry entry : keyEntries.entries) {
 			try {
 				T result = entry.getOrCreate(type);
 
@@ -133,18 +275,27 @@ public final class EntrypointStorage {
 			throw exception;
 		}
 
+		if (frozen != null) {
+			keyEntries.putInstances(type, Collections.unmodifiableList(new ArrayList<>(results)));
+		}
 		return results;
 	}
 
-	@SuppressWarnings("deprecation")
+	/** @return A new list of containers for every entrypoint with the given key. */
+	@SuppressWarnings({ "deprecation", "unchecked" })
 	public <T> List<EntrypointContainer<T>> getEntrypointContainers(String key, Class<T> type) {
-		List<Entry> entries = entryMap.get(key);
-		if (entries == null) return Collections.emptyList();
+		KeyEntries keyEntries = getEntries(key);
+		if (keyEntries == null) return Collections.emptyList();
 
-		List<EntrypointContainer<T>> results = new ArrayList<>(entries.size());
+		List<?> cached = keyEntries.containers.get(type);
+		if (cached != null) {
+			return new ArrayList<>((List<EntrypointContainer<T>>) cached);
+		}
+
+		List<EntrypointContainer<T>> results = new ArrayList<>(keyEntries.entries.length);
 		EntrypointException exc = null;
 
-		for (Entry entry : entries) {
+		for (Entry entry : keyEntries.entries) {
 			EntrypointContainerImpl<T> container;
 
 			if (entry.isOptional()) {
@@ -178,6 +329,11 @@ public final class EntrypointStorage {
 
 		if (exc != null) throw exc;
 
+		// The containers create their entrypoint lazily, so they can be shared. Callers may modify the list they get,
+		// so they only ever see a copy
+		if (frozen != null) {
+			keyEntries.putContainers(type, Collections.unmodifiableList(new ArrayList<>(results)));
+		}
 		return results;
 	}
 }
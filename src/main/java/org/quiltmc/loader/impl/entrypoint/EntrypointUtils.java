@@ -27,6 +27,7 @@ import org.quiltmc.loader.impl.util.log.Log;
 import org.quiltmc.loader.impl.util.log.LogCategory;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
@@ -50,6 +51,42 @@ public final class EntrypointUtils {
 		}
 	}
 
+	/** Same as {@link #invokeContainer(String, Class, Consumer)}, but uses {@link ParallelEntrypointInvoker}. */
+	public static <T> void invokeContainerParallel(String name, Class<T> type, Consumer<EntrypointContainer<T>> invoker) {
+		QuiltLoaderImpl loader = QuiltLoaderImpl.INSTANCE;
+
+		if (!loader.hasEntrypoints(name)) {
+			Log.debug(LogCategory.ENTRYPOINT, "No subscribers for entrypoint '" + name + "'");
+			return;
+		}
+
+		List<EntrypointContainer<T>> entrypoints = loader.getEntrypointContainers(name, type);
+
+		Log.debug(LogCategory.ENTRYPOINT, "Invoking entrypoint '%s' in parallel", name);
+
+		Throwable[] errors = ParallelEntrypointInvoker.invoke(entrypoints, container -> EntrypointProfiler.invoke(name, container, invoker));
+		RuntimeException exception = null;
+
+		for (int i = 0; i < errors.length; i++) {
+			if (errors[i] == null) {
+				continue;
+			}
+
+			EntrypointContainer<T> container = entrypoints.get(i);
+			exception = ExceptionUtil.gatherExceptions(errors[i],
+					exception,
+					exc -> new RuntimeException(String.format("Could not execute entrypoint stage '%s' due to errors, provided by '%s'!",
+							name, container.getProvider().metadata().id()),
+							exc));
+		}
+
+		EntrypointProfiler.logReport(name);
+
+		if (exception != null) {
+			throw exception;
+		}
+	}
+
 	private static <T> void invoke0(String name, Class<T> type, Consumer<EntrypointContainer<T>> invoker) {
 		QuiltLoaderImpl loader = QuiltLoaderImpl.INSTANCE;
 		RuntimeException exception = null;
@@ -59,7 +96,7 @@ public final class EntrypointUtils {
 
 		for (EntrypointContainer<T> container : entrypoints) {
 			try {
-				invoker.accept(container);
+				EntrypointProfiler.invoke(name, container, invoker);
 			} catch (Throwable t) {
 				exception = ExceptionUtil.gatherExceptions(t,
 						exception,
@@ -69,6 +106,8 @@ public final class EntrypointUtils {
 			}
 		}
 
+		EntrypointProfiler.logReport(name);
+
 		if (exception != null) {
 			throw exception;
 		}
@@ -17,7 +17,9 @@
 
 package org.quiltmc.loader.impl.entrypoint;
 
+import org.quiltmc.loader.impl.QuiltLoaderImpl;
 import org.quiltmc.loader.impl.util.ExceptionUtil;
+import org.quiltmc.loader.impl.util.FileFingerprint;
 import org.quiltmc.loader.impl.util.LoaderUtil;
 import org.quiltmc.loader.impl.util.QuiltLoaderInternal;
 import org.quiltmc.loader.impl.util.QuiltLoaderInternalType;
@@ -29,11 +31,18 @@ import org.quiltmc.loader.impl.util.SimpleClassPath;
 import org.quiltmc.loader.impl.util.log.Log;
 import org.quiltmc.loader.impl.util.log.LogCategory;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -46,6 +55,8 @@ import java.util.zip.ZipFile;
 @QuiltLoaderInternal(QuiltLoaderInternalType.LEGACY_EXPOSED)
 
 public class GameTransformer {
+	private static final byte[] CACHE_HEADER = "quiltgamepatchv1".getBytes(StandardCharsets.UTF_8);
+
 	private final List<GamePatch> patches;
 	private Map<String, byte[]> patchedClasses;
 	private boolean entrypointsLocated = false;
@@ -106,6 +117,112 @@ public class GameTransformer {
 		entrypointsLocated = true;
 	}
 
+	/** Same as {@link #locateEntrypoints(QuiltLauncher, List)}, but reuses the patched classes stored in the given
+	 * cache file if none of the game jars have changed since they were stored.
+	 *
+	 * @param cacheKey Anything else that the patches depend on, which can change without the game jars changing
+	 *            (like the game version, which can be overridden). */
+	public void locateEntrypoints(QuiltLauncher launcher, List<Path> gameJars, Path cacheFile, String cacheKey) {
+		if (entrypointsLocated) {
+			return;
+		}
+
+		List<FileFingerprint> fingerprints = new ArrayList<>(gameJars.size());
+
+		try {
+			for (Path jar : gameJars) {
+				if (!Files.isRegularFile(jar)) {
+					// The modification time of a folder doesn't change when the files inside it do
+					locateEntrypoints(launcher, gameJars);
+					return;
+				}
+				fingerprints.add(FileFingerprint.of(jar));
+			}
+		} catch (IOException e) {
+			locateEntrypoints(launcher, gameJars);
+			return;
+		}
+
+		StringBuilder key = new StringBuilder(QuiltLoaderImpl.VERSION);
+		key.append('\n').append(launcher.getEnvironmentType()).append('\n').append(launcher.getEntrypoint());
+		key.append('\n').append(cacheKey);
+		for (GamePatch patch : patches) {
+			key.append('\n').append(patch.getClass().getName());
+		}
+
+		Map<String, byte[]> cached = readCache(cacheFile, key.toString(), fingerprints);
+
+		if (cached != null) {
+			patchedClasses = cached;
+			Log.debug(LogCategory.GAME_PATCH, "Loaded %d patched class%s from the cache", cached.size(), cached.size() != 1 ? "es" : "");
+			entrypointsLocated = true;
+			return;
+		}
+
+		locateEntrypoints(launcher, gameJars);
+		writeCache(cacheFile, key.toString(), fingerprints);
+	}
+
+	private static Map<String, byte[]> readCache(Path cacheFile, String key, List<FileFingerprint> fingerprints) {
+		if (!Files.isRegularFile(cacheFile)) {
+			return null;
+		}
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+			byte[] header = new byte[CACHE_HEADER.length];
+			in.readFully(header);
+			if (!Arrays.equals(header, CACHE_HEADER) || !key.equals(in.readUTF())) {
+				return null;
+			}
+
+			if (in.readInt() != fingerprints.size()) {
+				return null;
+			}
+			for (FileFingerprint fingerprint : fingerprints) {
+				if (!fingerprint.equals(FileFingerprint.read(in))) {
+					return null;
+				}
+			}
+
+			int count = in.readInt();
+			Map<String, byte[]> classes = new HashMap<>();
+			for (int i = 0; i < count; i++) {
+				String name = in.readUTF();
+				byte[] data = new byte[in.readInt()];
+				in.readFully(data);
+				classes.put(name, data);
+			}
+			return classes;
+		} catch (IOException e) {
+			Log.warn(LogCategory.CACHE, "Failed to read the game patch cache " + cacheFile + ", ignoring it", e);
+			return null;
+		}
+	}
+
+	private void writeCache(Path cacheFile, String key, List<FileFingerprint> fingerprints) {
+		Path tmp = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+		try {
+			Files.createDirectories(cacheFile.getParent());
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+				out.write(CACHE_HEADER);
+				out.writeUTF(key);
+				out.writeInt(fingerprints.size());
+				for (FileFingerprint fingerprint : fingerprints) {
+					fingerprint.write(out);
+				}
+				out.writeInt(patchedClasses.size());
+				for (Map.Entry<String, byte[]> entry : patchedClasses.entrySet()) {
+					out.writeUTF(entry.getKey());
+					out.writeInt(entry.getValue().length);
+					out.write(entry.getValue());
+				}
+			}
+			Files.move(tmp, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			Log.warn(LogCategory.CACHE, "Failed to write the game patch cache to " + cacheFile, e);
+		}
+	}
+
 	/**
 	 * This must run first, contractually!
 	 * @param className The class name,
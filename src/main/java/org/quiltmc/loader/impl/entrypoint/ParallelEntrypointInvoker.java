@@ -0,0 +1,212 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.entrypoint;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.quiltmc.loader.api.ModContainer;
+import org.quiltmc.loader.api.ModDependency;
+import org.quiltmc.loader.api.ModMetadata;
+import org.quiltmc.loader.api.QuiltLoader;
+import org.quiltmc.loader.api.entrypoint.EntrypointContainer;
+import org.quiltmc.loader.impl.util.QuiltLoaderInternal;
+import org.quiltmc.loader.impl.util.QuiltLoaderInternalType;
+
+/** Invokes entrypoints on several threads. The entrypoints of a single mod are invoked in order on one thread, and
+ * only once every mod it depends on (directly, or through mods without this entrypoint) has finished. */
+@QuiltLoaderInternal(QuiltLoaderInternalType.NEW_INTERNAL)
+final class ParallelEntrypointInvoker<T> {
+
+	private static final AtomicInteger THREAD_INDEX = new AtomicInteger();
+
+	private final List<EntrypointContainer<T>> containers;
+	private final Consumer<EntrypointContainer<T>> invoker;
+	private final Throwable[] errors;
+
+	/** Every mod with at least one entrypoint, in the order they are first returned. */
+	private final Map<ModContainer, Group> groups = new LinkedHashMap<>();
+
+	private ParallelEntrypointInvoker(List<EntrypointContainer<T>> containers, Consumer<EntrypointContainer<T>> invoker) {
+		this.containers = containers;
+		this.invoker = invoker;
+		this.errors = new Throwable[containers.size()];
+	}
+
+	/** @return The exception thrown by each container, in the same order as the given list, or null for containers
+	 *         that were invoked successfully. */
+	static <T> Throwable[] invoke(List<EntrypointContainer<T>> containers, Consumer<EntrypointContainer<T>> invoker) {
+		ParallelEntrypointInvoker<T> parallel = new ParallelEntrypointInvoker<>(containers, invoker);
+		parallel.run();
+		return parallel.errors;
+	}
+
+	private void run() {
+		for (int i = 0; i < containers.size(); i++) {
+			groups.computeIfAbsent(containers.get(i).getProvider(), Group::new).indices.add(i);
+		}
+
+		List<Group> order = sortByDependencies();
+		int threads = Math.min(Runtime.getRuntime().availableProcessors(), groups.size());
+
+		if (threads <= 1) {
+			for (Group group : order) {
+				group.run();
+			}
+			return;
+		}
+
+		ClassLoader contextLoader = Thread.currentThread().getContextClassLoader();
+		ExecutorService executor = Executors.newFixedThreadPool(threads, task -> {
+			Thread thread = new Thread(task, "Quilt Entrypoint " + THREAD_INDEX.incrementAndGet());
+			thread.setDaemon(true);
+			thread.setContextClassLoader(contextLoader);
+			return thread;
+		});
+
+		try {
+			Map<Group, CompletableFuture<Void>> futures = new HashMap<>();
+
+			for (Group group : order) {
+				CompletableFuture<?>[] before = new CompletableFuture<?>[group.dependencies.size()];
+				int index = 0;
+				for (Group dep : group.dependencies) {
+					before[index++] = futures.get(dep);
+				}
+				futures.put(group, CompletableFuture.allOf(before).thenRunAsync(group::run, executor));
+			}
+
+			CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).join();
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/** Finds the dependencies of every group, and sorts them so that every group comes after its dependencies.
+	 * Dependency cycles are broken by ignoring whichever dependency would close the cycle, when visiting groups in
+	 * their original order and dependencies in their declared order. */
+	private List<Group> sortByDependencies() {
+		Map<String, Group> byId = new HashMap<>();
+		for (Group group : groups.values()) {
+			ModMetadata metadata = group.mod.metadata();
+			byId.put(metadata.id(), group);
+			metadata.provides().forEach(provided -> byId.putIfAbsent(provided.id(), group));
+		}
+
+		for (Group group : groups.values()) {
+			findDependencies(group, group.mod.metadata(), byId, new HashSet<>());
+			group.dependencies.remove(group);
+		}
+
+		List<Group> sorted = new ArrayList<>(groups.size());
+		Set<Group> visiting = new HashSet<>();
+		Set<Group> visited = new HashSet<>();
+
+		for (Group group : groups.values()) {
+			visit(group, visiting, visited, sorted);
+		}
+
+		return sorted;
+	}
+
+	private void findDependencies(Group group, ModMetadata metadata, Map<String, Group> byId, Set<String> searched) {
+		for (ModDependency dep : metadata.depends()) {
+			Collection<? extends ModDependency.Only> options;
+			if (dep instanceof ModDependency.Only) {
+				options = Collections.singleton((ModDependency.Only) dep);
+			} else if (dep instanceof ModDependency.Any) {
+				options = (ModDependency.Any) dep;
+			} else if (dep instanceof ModDependency.All) {
+				options = (ModDependency.All) dep;
+			} else {
+				continue;
+			}
+
+			for (ModDependency.Only only : options) {
+				String id = only.id().id();
+				if (!searched.add(id)) {
+					continue;
+				}
+
+				Group target = byId.get(id);
+				if (target != null) {
+					group.dependencies.add(target);
+				} else {
+					// Mods without this entrypoint may still depend on mods with it
+					Optional<ModContainer> mod = QuiltLoader.getModContainer(id);
+					if (mod.isPresent()) {
+						findDependencies(group, mod.get().metadata(), byId, searched);
+					}
+				}
+			}
+		}
+	}
+
+	private void visit(Group group, Set<Group> visiting, Set<Group> visited, List<Group> sorted) {
+		if (visited.contains(group)) {
+			return;
+		}
+
+		visiting.add(group);
+		for (Group dep : new ArrayList<>(group.dependencies)) {
+			if (visiting.contains(dep)) {
+				// Cycle
+				group.dependencies.remove(dep);
+			} else {
+				visit(dep, visiting, visited, sorted);
+			}
+		}
+		visiting.remove(group);
+		visited.add(group);
+		sorted.add(group);
+	}
+
+	final class Group {
+		final ModContainer mod;
+		final List<Integer> indices = new ArrayList<>();
+		/** In the order they are declared, so the same dependency is always the one ignored to break a cycle. */
+		final Set<Group> dependencies = new LinkedHashSet<>();
+
+		Group(ModContainer mod) {
+			this.mod = mod;
+		}
+
+		void run() {
+			for (int index : indices) {
+				try {
+					invoker.accept(containers.get(index));
+				} catch (Throwable t) {
+					errors[index] = t;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,413 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.filesystem;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.quiltmc.loader.api.FasterFiles;
+import org.quiltmc.loader.impl.util.ExposedByteArrayOutputStream;
+import org.quiltmc.loader.impl.util.QuiltLoaderInternal;
+import org.quiltmc.loader.impl.util.QuiltLoaderInternalType;
+
+/** Writes a normal zip file from a folder, compressing every file on a separate thread and then assembling the central
+ * directory once all files have been written.
+ * <p>
+ * Unlike {@link java.util.zip.ZipOutputStream} this never holds more than one file per thread in memory, and doesn't
+ * serialise compression. The output is a plain (non-zip64) zip file, so it can be opened by any zip reader, including
+ * the jdk's zip filesystem and {@link java.net.URLClassLoader}. */
+@QuiltLoaderInternal(QuiltLoaderInternalType.NEW_INTERNAL)
+public final class ParallelZipWriter {
+
+	private static final AtomicInteger WRITER_THREAD_INDEX = new AtomicInteger();
+
+	private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+	private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+	private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+
+	private static final int LOCAL_HEADER_SIZE = 30;
+	private static final int CENTRAL_HEADER_SIZE = 46;
+	private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+
+	private static final short VERSION_NEEDED = 20;
+	/** General purpose flag 11: file names are encoded in UTF-8. */
+	private static final short FLAG_UTF8 = 0x0800;
+	private static final short METHOD_STORED = 0;
+	private static final short METHOD_DEFLATED = 8;
+	/** 1980-01-01 00:00:00, the earliest DOS date. All entries use this so the output only depends on the input. */
+	private static final short DOS_DATE = (1 << 5) | 1;
+	private static final short DOS_TIME = 0;
+
+	/** Called (possibly off-thread) for every file before it is written. */
+	@FunctionalInterface
+	public interface EntryProcessor {
+		/** @param name The full name of the entry, without a leading slash.
+		 * @param bytes The original contents of the file.
+		 * @return The bytes to write, or null if the entry should be omitted from the output. */
+		byte[] process(String name, byte[] bytes) throws IOException;
+	}
+
+	private final Path root;
+	private final List<Path> sources;
+	private final String[] names;
+
+	/** Lists every file and folder in the given root. This doesn't read any files. */
+	public ParallelZipWriter(Path root) throws IOException {
+		this.root = root;
+		this.sources = new ArrayList<>();
+		try (Stream<Path> stream = Files.walk(root)) {
+			stream.forEach(sources::add);
+		}
+
+		names = new String[sources.size()];
+		for (int i = 0; i < names.length; i++) {
+			Path path = sources.get(i);
+			String name = root.relativize(path).toString().replace(root.getFileSystem().getSeparator(), "/");
+			if (name.startsWith("/")) {
+				name = name.substring(1);
+			}
+			if (FasterFiles.isDirectory(path) && !name.isEmpty()) {
+				name += "/";
+			}
+			names[i] = name;
+		}
+	}
+
+	/** Computes a SHA-1 hash of every file, to decide if a previously written zip can be reused.
+	 * <p>
+	 * Files on the default filesystem are hashed by name, size, and last modified time, which only reads attributes and
+	 * so is cheap enough to check on every launch. Other filesystems (in-memory, joined, or nested zips) may report
+	 * synthetic or fixed modification times, so an edit that keeps the size the same wouldn't be noticed. For those the
+	 * contents of every file are hashed instead. */
+	public byte[] computeFingerprint() throws IOException {
+		MessageDigest digest = newDigest();
+		boolean hashContents = root.getFileSystem() != FileSystems.getDefault();
+		ByteBuffer buffer = ByteBuffer.allocate(16);
+		byte[] chunk = hashContents ? new byte[0x4000] : null;
+		for (int i = 0; i < names.length; i++) {
+			String name = names[i];
+			if (name.isEmpty()) {
+				continue;
+			}
+			digest.update(name.getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+			if (name.endsWith("/")) {
+				continue;
+			}
+			if (hashContents) {
+				long size = 0;
+				try (InputStream stream = Files.newInputStream(sources.get(i))) {
+					int count;
+					while ((count = stream.read(chunk)) > 0) {
+						digest.update(chunk, 0, count);
+						size += count;
+					}
+				}
+				// Separates the contents of one file from the name of the next
+				buffer.clear();
+				buffer.putLong(size);
+				digest.update(buffer.array(), 0, 8);
+			} else {
+				BasicFileAttributes attrs = Files.readAttributes(sources.get(i), BasicFileAttributes.class);
+				buffer.clear();
+				buffer.putLong(attrs.size());
+				buffer.putLong(attrs.lastModifiedTime().toMillis());
+				digest.update(buffer.array());
+			}
+		}
+		return digest.digest();
+	}
+
+	/** Writes every file and folder into a new zip file at the given path.
+	 *
+	 * @param compress If false then every entry is stored rather than deflated, which is much faster to write (and
+	 *            read) at the cost of disk space. */
+	public void write(Path dst, boolean compress, EntryProcessor processor) throws IOException {
+		try (FileChannel channel = FileChannel.open(dst, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+			write0(channel, compress, processor);
+		}
+	}
+
+	private void write0(FileChannel channel, boolean compress, EntryProcessor processor) throws IOException {
+		// Steps:
+		// 1: On threads read, process, and compress every file into a single buffer (local header + data)
+		// 2: Reserve a region of the output file for that buffer and write it directly
+		// 3: Once every thread has finished, write the central directory in the original walk order
+
+		final EntryInfo[] entries = new EntryInfo[sources.size()];
+		final AtomicLong currentOffset = new AtomicLong();
+		runInParallel("QuiltZipWriter", (worker, index) -> {
+			String name = names[index];
+			if (name.isEmpty()) {
+				return;
+			}
+
+			byte[] bytes;
+			if (name.endsWith("/")) {
+				bytes = new byte[0];
+			} else {
+				bytes = processor.process(name, Files.readAllBytes(sources.get(index)));
+				if (bytes == null) {
+					return;
+				}
+			}
+
+			CRC32 crc = new CRC32();
+			crc.update(bytes);
+
+			byte[] data = bytes;
+			int dataLength = bytes.length;
+			short method = METHOD_STORED;
+
+			if (compress && bytes.length > 0) {
+				Deflater deflater = worker.deflater();
+				deflater.setInput(bytes);
+				deflater.finish();
+				ExposedByteArrayOutputStream baos = new ExposedByteArrayOutputStream();
+				byte[] chunk = new byte[Math.min(0x10000, bytes.length + 64)];
+				while (!deflater.finished()) {
+					int count = deflater.deflate(chunk);
+					baos.write(chunk, 0, count);
+				}
+				// Don't bother storing entries that didn't get any smaller
+				if (baos.size() < bytes.length) {
+					data = baos.getArray();
+					dataLength = baos.size();
+					method = METHOD_DEFLATED;
+				}
+			}
+
+			EntryInfo entry = new EntryInfo(
+				name.getBytes(StandardCharsets.UTF_8), method, (int) crc.getValue(), dataLength, bytes.length
+			);
+
+			ByteBuffer buffer = ByteBuffer.allocate(LOCAL_HEADER_SIZE + entry.name.length + dataLength);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(LOCAL_HEADER_SIGNATURE);
+			buffer.putShort(VERSION_NEEDED);
+			buffer.putShort(FLAG_UTF8);
+			buffer.putShort(method);
+			buffer.putShort(DOS_TIME);
+			buffer.putShort(DOS_DATE);
+			buffer.putInt(entry.crc);
+			buffer.putInt(entry.compressedSize);
+			buffer.putInt(entry.uncompressedSize);
+			buffer.putShort((short) entry.name.length);
+			buffer.putShort((short) 0);
+			buffer.put(entry.name);
+			buffer.put(data, 0, dataLength);
+			buffer.flip();
+
+			entry.offset = currentOffset.getAndAdd(buffer.remaining());
+			if (entry.offset + buffer.remaining() > 0xFFFF_FFFFL) {
+				throw new IOException("Zip file is too large to write without zip64! (" + name + ")");
+			}
+			writeFully(channel, buffer, entry.offset);
+			entries[index] = entry;
+		});
+
+		// Central directory
+		long directoryOffset = currentOffset.get();
+		int entryCount = 0;
+		ExposedByteArrayOutputStream directory = new ExposedByteArrayOutputStream();
+		for (EntryInfo entry : entries) {
+			if (entry == null) {
+				continue;
+			}
+			entryCount++;
+			ByteBuffer buffer = ByteBuffer.allocate(CENTRAL_HEADER_SIZE + entry.name.length);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(CENTRAL_HEADER_SIGNATURE);
+			buffer.putShort(VERSION_NEEDED); // made by
+			buffer.putShort(VERSION_NEEDED);
+			buffer.putShort(FLAG_UTF8);
+			buffer.putShort(entry.method);
+			buffer.putShort(DOS_TIME);
+			buffer.putShort(DOS_DATE);
+			buffer.putInt(entry.crc);
+			buffer.putInt(entry.compressedSize);
+			buffer.putInt(entry.uncompressedSize);
+			buffer.putShort((short) entry.name.length);
+			buffer.putShort((short) 0); // extra length
+			buffer.putShort((short) 0); // comment length
+			buffer.putShort((short) 0); // disk number
+			buffer.putShort((short) 0); // internal attributes
+			buffer.putInt(0); // external attributes
+			buffer.putInt((int) entry.offset);
+			buffer.put(entry.name);
+			directory.write(buffer.array(), 0, buffer.position());
+		}
+
+		if (entryCount > 0xFFFF) {
+			throw new IOException("Too many entries (" + entryCount + ") to write a zip file without zip64!");
+		}
+
+		ByteBuffer end = ByteBuffer.allocate(END_OF_CENTRAL_DIRECTORY_SIZE);
+		end.order(ByteOrder.LITTLE_ENDIAN);
+		end.putInt(END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+		end.putShort((short) 0); // this disk
+		end.putShort((short) 0); // directory disk
+		end.putShort((short) entryCount);
+		end.putShort((short) entryCount);
+		end.putInt(directory.size());
+		end.putInt((int) directoryOffset);
+		end.putShort((short) 0); // comment length
+		directory.write(end.array(), 0, end.position());
+
+		writeFully(channel, directory.wrapIntoBuffer(), directoryOffset);
+		channel.force(false);
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+	}
+
+	private static MessageDigest newDigest() throws IOException {
+		try {
+			return MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+	}
+
+	@FunctionalInterface
+	private interface IndexTask {
+		void run(Worker worker, int index) throws IOException;
+	}
+
+	private static final class Worker extends Thread {
+		private final Consumer<Worker> loop;
+		private Deflater deflater;
+
+		Worker(String name, Consumer<Worker> loop) {
+			super(name);
+			this.loop = loop;
+			setDaemon(true);
+		}
+
+		/** @return A reset {@link Deflater}, owned by this thread. */
+		Deflater deflater() {
+			if (deflater == null) {
+				deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+			} else {
+				deflater.reset();
+			}
+			return deflater;
+		}
+
+		@Override
+		public void run() {
+			try {
+				loop.accept(this);
+			} finally {
+				if (deflater != null) {
+					deflater.end();
+				}
+			}
+		}
+	}
+
+	/** Runs the given task once for every source path, spread over every available processor. The first exception is
+	 * rethrown on the calling thread (with any others suppressed). */
+	private void runInParallel(String threadName, IndexTask task) throws IOException {
+		final int count = sources.size();
+		final AtomicInteger nextIndex = new AtomicInteger();
+		final IOException[] exception = new IOException[1];
+
+		int threadCount = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), count / 16));
+		int mainIndex = WRITER_THREAD_INDEX.incrementAndGet();
+		Worker[] threads = new Worker[threadCount];
+
+		for (int i = 0; i < threadCount; i++) {
+			threads[i] = new Worker(threadName + "-" + mainIndex + "." + i, worker -> {
+				int index;
+				while ((index = nextIndex.getAndIncrement()) < count) {
+					try {
+						task.run(worker, index);
+					} catch (IOException | RuntimeException e) {
+						IOException io = new IOException("Failed to copy " + sources.get(index), e);
+						synchronized (exception) {
+							if (exception[0] == null) {
+								exception[0] = io;
+							} else {
+								exception[0].addSuppressed(io);
+							}
+						}
+						// Stop every other thread early
+						nextIndex.set(count);
+						return;
+					}
+				}
+			});
+			threads[i].start();
+		}
+
+		for (int i = 0; i < threadCount; i++) {
+			try {
+				threads[i].join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				nextIndex.set(count);
+				throw new InterruptedIOException("Interrupted while writing " + root);
+			}
+		}
+
+		synchronized (exception) {
+			if (exception[0] != null) {
+				throw exception[0];
+			}
+		}
+	}
+
+	static final class EntryInfo {
+		final byte[] name;
+		final short method;
+		final int crc;
+		final int compressedSize, uncompressedSize;
+		long offset;
+
+		EntryInfo(byte[] name, short method, int crc, int compressedSize, int uncompressedSize) {
+			this.name = name;
+			this.method = method;
+			this.crc = crc;
+			this.compressedSize = compressedSize;
+			this.uncompressedSize = uncompressedSize;
+		}
+	}
+}
@@ -45,6 +45,7 @@ import org.quiltmc.loader.impl.util.QuiltLoaderInternal;
 import org.quiltmc.loader.impl.util.QuiltLoaderInternalType;
 import org.quiltmc.loader.impl.util.log.Log;
 import org.quiltmc.loader.impl.util.log.LogCategory;
+import org.quiltmc.loader.impl.util.log.LogLevel;
 
 /** Essentially a {@link QuiltJoinedFileSystem} but which caches all paths in advance. Not exposed as a filesystem since
  * this is a bit more dynamic than that. */
@@ -206,7 +207,9 @@ public class QuiltClassPath {
 			});
 			roots.remove(zipRoot);
 			long end = System.nanoTime();
-			Log.info(LogCategory.GENERAL, "Took " + (end - start) / 1000 + "us to scan " + zipRoot);
+			long micros = (end - start) / 1000;
+			Log.logFields(LogLevel.INFO, LogCategory.GENERAL, Collections.singletonMap("scan_us", micros),
+				"Took %dus to scan %s", micros, zipRoot);
 		} catch (IOException e) {
 			Log.warn(LogCategory.GENERAL, "Failed to scan " + zipRoot + "!", e);
 		}
@@ -63,6 +63,14 @@ public final class GameProviderHelper {
 	}
 
 
+	/** @return A file in the loader cache directory of the given game directory. This can be used before
+	 *         {@link QuiltLoaderImpl} knows the game directory. */
+	public static Path getCacheFile(Path gameDir, String name) {
+		return gameDir.resolve(System.getProperty(SystemProperties.CACHE_DIRECTORY, QuiltLoaderImpl.DEFAULT_CACHE_DIR))
+			.resolve(QuiltLoaderImpl.CACHE_DIR_NAME)
+			.resolve(name);
+	}
+
 	public static Optional<Path> getSource(ClassLoader loader, String filename) {
 		URL url;
 
@@ -17,22 +17,34 @@
 
 package org.quiltmc.loader.impl.game;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumMap;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 import java.util.zip.ZipEntry;
@@ -41,6 +53,8 @@ import java.util.zip.ZipFile;
 
 
 import org.quiltmc.loader.api.minecraft.Environment;
+import org.quiltmc.loader.impl.QuiltLoaderImpl;
+import org.quiltmc.loader.impl.util.FileFingerprint;
 import org.quiltmc.loader.impl.util.LoaderUtil;
 import org.quiltmc.loader.impl.util.ManifestUtil;
 import org.quiltmc.loader.impl.util.SystemProperties;
@@ -49,15 +63,34 @@ import org.quiltmc.loader.impl.util.log.Log;
 import org.quiltmc.loader.impl.util.log.LogCategory;
 
 
-public final class LibClassifier<L extends Enum<L> & LibClassifier.LibraryType> {
+/** Classifies jars and folders by which known libraries they contain.
+ * <p>
+ * Which of the library paths each jar contains is cached between launches, keyed by the jar's
+ * {@link FileFingerprint}. Jars that contain at least one library are kept open until {@link #close()}, since the jdk
+ * shares the central directory of a jar between every open {@link ZipFile} of it, so later reads of the game jars
+ * (for example by {@link org.quiltmc.loader.impl.util.SimpleClassPath}) don't need to read it again. */
+public final class LibClassifier<L extends Enum<L> & LibClassifier.LibraryType> implements Closeable {
 	private static final boolean DEBUG = System.getProperty(SystemProperties.DEBUG_LOG_LIB_CLASSIFICATION) != null;
 
+	private static final byte[] CACHE_HEADER = "quiltlibcachev1".getBytes(StandardCharsets.UTF_8);
+
 	private final List<L> libs;
 	private final Map<L, Path> origins;
 	private final Map<L, String> localPaths;
 	private final Set<Path> systemLibraries = new HashSet<>();
 	private final List<Path> unmatchedOrigins = new ArrayList<>();
 
+	/** Every path of every applicable library, sorted so that the cache can store indices into it. */
+	private final String[] probePaths;
+	private final Path cacheFile;
+	private final Map<String, CacheEntry> previousCache;
+	private final Map<String, CacheEntry> currentCache = new ConcurrentHashMap<>();
+	private volatile boolean cacheChanged;
+
+	/** The library paths contained in each jar that has been probed. */
+	private final Map<Path, Set<String>> probed = new ConcurrentHashMap<>();
+	private final Map<Path, ZipFile> openJars = new ConcurrentHashMap<>();
+
 	public LibClassifier(Class<L> cls, Environment env, GameProvider gameProvider) throws IOException {
 		L[] libs = cls.getEnumConstants();
 
@@ -67,12 +100,19 @@ public final class LibClassifier<L extends Enum<L> & LibClassifier.LibraryType>
 
 		// game provider libs
 
+		Set<String> allPaths = new TreeSet<>();
+
 		for (L lib : libs) {
 			if (lib.isApplicable(env)) {
 				this.libs.add(lib);
+				allPaths.addAll(Arrays.asList(lib.getPaths()));
 			}
 		}
 
+		this.probePaths = allPaths.toArray(new String[0]);
+		this.cacheFile = GameProviderHelper.getCacheFile(gameProvider.getLaunchDirectory(), "lib-classifier-cache.bin");
+		this.previousCache = loadCache();
+
 		// system libs configured through system property
 
 		StringBuilder sb = DEBUG ? new StringBuilder() : null;
@@ -159,6 +199,9 @@ public final class LibClassifier<L extends Enum<L> & LibClassifier.LibraryType>
 	@SafeVarargs
 	public final void process(Iterable<Path> paths, L... excludedLibs) throws IOException {
 		Set<L> excluded = makeSet(excludedLibs);
+		List<Path> list = new ArrayList<>();
+		paths.forEach(list::add);
+		prefetch(list);
 
 		for (Path path : paths) {
 			process(path, excluded);
@@ -201,20 +244,18 @@ public final class LibClassifier<L extends Enum<L> & LibClassifier.LibraryType>
 				}
 			}
 		} else {
-			try (ZipFile zf = new ZipFile(path.toFile())) {
-				for (L lib : libs) {
-					if (excludedLibs.contains(lib) || origins.containsKey(lib)) continue;
-
-					for (String p : lib.getPaths()) {
-						if (zf.getEntry(p) != null) {
-							matched = true;
-							addLibrary(lib, path, p);
-							break;
-						}
+			Set<String> contained = probe(path);
+
+			for (L lib : libs) {
+				if (excludedLibs.contains(lib) || origins.containsKey(lib)) continue;
+
+				for (String p : lib.getPaths()) {
+					if (contained.contains(p)) {
+						matched = true;
+						addLibrary(lib, path, p);
+						break;
 					}
 				}
-			} catch (ZipError | IOException e) {
-				throw new IOException("error reading "+path, e);
 			}
 		}
 
@@ -225,6 +266,182 @@ public final class LibClassifier<L extends Enum<L> & LibClassifier.LibraryType>
 		}
 	}
 
+	/** Finds which library paths each of the given jars contain, on several threads at once. Only jars that aren't
+	 * already cached are opened. Nothing is classified until each path is {@link #process(Path, Enum...) processed},
+	 * so this doesn't affect the result. */
+	public void prefetch(Collection<Path> paths) {
+		List<Path> jars = new ArrayList<>();
+
+		for (Path path : paths) {
+			try {
+				path = LoaderUtil.normalizeExistingPath(path);
+			} catch (RuntimeException e) {
+				continue;
+			}
+
+			if (!systemLibraries.contains(path) && !probed.containsKey(path) && Files.isRegularFile(path)) {
+				jars.add(path);
+			}
+		}
+
+		if (jars.size() < 2) {
+			return;
+		}
+
+		jars.parallelStream().forEach(jar -> {
+			try {
+				probe(jar);
+			} catch (IOException e) {
+				// Reported by process instead
+			}
+		});
+	}
+
+	/** @return The library paths contained in the given jar. */
+	private Set<String> probe(Path jar) throws IOException {
+		Set<String> contained = probed.get(jar);
+		if (contained != null) {
+			return contained;
+		}
+
+		FileFingerprint fingerprint = FileFingerprint.of(jar);
+		CacheEntry entry = previousCache.get(fingerprint.path);
+
+		if (entry == null || !entry.fingerprint.equals(fingerprint)) {
+			BitSet found = new BitSet(probePaths.length);
+			ZipFile zf = null;
+
+			try {
+				zf = new ZipFile(jar.toFile());
+
+				for (int i = 0; i < probePaths.length; i++) {
+					if (zf.getEntry(probePaths[i]) != null) {
+						found.set(i);
+					}
+				}
+			} catch (ZipError | IOException e) {
+				IOException exc = new IOException("error reading "+jar, e);
+
+				if (zf != null) {
+					try {
+						zf.close();
+					} catch (IOException e2) {
+						exc.addSuppressed(e2);
+					}
+				}
+
+				throw exc;
+			}
+
+			if (found.isEmpty() || openJars.putIfAbsent(jar, zf) != null) {
+				zf.close();
+			}
+
+			entry = new CacheEntry(fingerprint, found);
+			cacheChanged = true;
+		}
+
+		currentCache.put(fingerprint.path, entry);
+		contained = new HashSet<>();
+
+		for (int i = entry.found.nextSetBit(0); i >= 0; i = entry.found.nextSetBit(i + 1)) {
+			contained.add(probePaths[i]);
+		}
+
+		Set<String> prev = probed.putIfAbsent(jar, contained);
+		return prev != null ? prev : contained;
+	}
+
+	private Map<String, CacheEntry> loadCache() {
+		if (!Files.isRegularFile(cacheFile)) {
+			return Collections.emptyMap();
+		}
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+			byte[] header = new byte[CACHE_HEADER.length];
+			in.readFully(header);
+			if (!Arrays.equals(header, CACHE_HEADER) || !QuiltLoaderImpl.VERSION.equals(in.readUTF())) {
+				return Collections.emptyMap();
+			}
+
+			// The indices are only valid for exactly the same set of paths
+			String[] paths = new String[in.readInt()];
+			for (int i = 0; i < paths.length; i++) {
+				paths[i] = in.readUTF();
+			}
+			if (!Arrays.equals(paths, probePaths)) {
+				return Collections.emptyMap();
+			}
+
+			int count = in.readInt();
+			Map<String, CacheEntry> entries = new HashMap<>();
+			for (int i = 0; i < count; i++) {
+				FileFingerprint fingerprint = FileFingerprint.read(in);
+				byte[] found = new byte[in.readUnsignedShort()];
+				in.readFully(found);
+				entries.put(fingerprint.path, new CacheEntry(fingerprint, BitSet.valueOf(found)));
+			}
+			return entries;
+		} catch (IOException e) {
+			Log.warn(LogCategory.CACHE, "Failed to read the library classification cache " + cacheFile + ", ignoring it", e);
+			return Collections.emptyMap();
+		}
+	}
+
+	private void saveCache() {
+		if (!cacheChanged && currentCache.size() == previousCache.size()) {
+			return;
+		}
+
+		Path tmp = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+		try {
+			Files.createDirectories(cacheFile.getParent());
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+				out.write(CACHE_HEADER);
+				out.writeUTF(QuiltLoaderImpl.VERSION);
+				out.writeInt(probePaths.length);
+				for (String path : probePaths) {
+					out.writeUTF(path);
+				}
+				List<CacheEntry> entries = new ArrayList<>(currentCache.values());
+				out.writeInt(entries.size());
+				for (CacheEntry entry : entries) {
+					entry.fingerprint.write(out);
+					byte[] found = entry.found.toByteArray();
+					out.writeShort(found.length);
+					out.write(found);
+				}
+			}
+			Files.move(tmp, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			Log.warn(LogCategory.CACHE, "Failed to write the library classification cache to " + cacheFile, e);
+		}
+	}
+
+	/** Saves the cache, and closes every jar that was kept open. */
+	@Override
+	public void close() throws IOException {
+		saveCache();
+
+		IOException exc = null;
+
+		for (ZipFile zf : openJars.values()) {
+			try {
+				zf.close();
+			} catch (IOException e) {
+				if (exc == null) {
+					exc = e;
+				} else {
+					exc.addSuppressed(e);
+				}
+			}
+		}
+
+		openJars.clear();
+
+		if (exc != null) throw exc;
+	}
+
 	private void addLibrary(L lib, Path originPath, String localPath) {
 		Path prev = origins.put(lib, originPath);
 		if (prev != null) throw new IllegalStateException("lib "+lib+" was already added");
@@ -291,6 +508,17 @@ public final class LibClassifier<L extends Enum<L> & LibClassifier.LibraryType>
 		return ret;
 	}
 
+	private static final class CacheEntry {
+		final FileFingerprint fingerprint;
+		/** Indexed by {@link LibClassifier#probePaths}. */
+		final BitSet found;
+
+		CacheEntry(FileFingerprint fingerprint, BitSet found) {
+			this.fingerprint = fingerprint;
+			this.found = found;
+		}
+	}
+
 	public interface LibraryType {
 		boolean isApplicable(Environment env);
 		String[] getPaths();
@@ -15,25 +15,64 @@
  */
 package org.quiltmc.loader.impl.game.minecraft;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Method;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
+import org.quiltmc.loader.impl.QuiltLoaderImpl;
 import org.quiltmc.loader.impl.game.LibClassifier;
+import org.quiltmc.loader.impl.util.FileFingerprint;
 import org.quiltmc.loader.impl.util.LoaderUtil;
+import org.quiltmc.loader.impl.util.UrlUtil;
+import org.quiltmc.loader.impl.util.log.Log;
+import org.quiltmc.loader.impl.util.log.LogCategory;
 
 
 final class BundlerProcessor {
 	private static final String MAIN_CLASS_PROPERTY = "bundlerMainClass";
+	private static final byte[] CACHE_HEADER = "quiltbundlercpv1".getBytes(StandardCharsets.UTF_8);
 
-	static void process(LibClassifier<McLibrary> classifier) throws IOException {
+	/** @param cacheFile Stores the class path extracted by the bundler, so that it only needs to be run again if the
+	 *            bundler jar or any of the files it extracted have changed. */
+	static void process(LibClassifier<McLibrary> classifier, Path cacheFile) throws IOException {
 		Path bundlerOrigin = classifier.getOrigin(McLibrary.MC_BUNDLER);
+		FileFingerprint bundlerFingerprint = FileFingerprint.of(bundlerOrigin);
+		URL[] urls = readCache(cacheFile, bundlerFingerprint);
 
+		if (urls == null) {
+			urls = runBundler(classifier, bundlerOrigin);
+			if (urls == null) return;
+			writeCache(cacheFile, bundlerFingerprint, urls);
+		}
+
+		// analyze urls to determine game/realms/log4j/misc libs and the entrypoint
+
+		classifier.remove(bundlerOrigin);
+
+		List<Path> paths = new ArrayList<>(urls.length);
+		for (URL url : urls) {
+			paths.add(UrlUtil.asPath(url));
+		}
+
+		classifier.process(paths);
+	}
+
+	/** @return The class path that the bundler would launch the server with, or null if there's no bundler. */
+	private static URL[] runBundler(LibClassifier<McLibrary> classifier, Path bundlerOrigin) {
 		// determine urls by running the bundler and extracting them from the context class loader
 
 		String prevProperty = null;
@@ -97,7 +136,7 @@ final class BundlerProcessor {
 			method.invoke(null, (Object) new String[0]);
 			urls = BundlerClassPathCapture.FUTURE.get(10, TimeUnit.SECONDS);
 		} catch (ClassNotFoundException e) { // no bundler on the class path
-			return;
+			return null;
 		} catch (Throwable t) {
 			throw new RuntimeException("Error invoking MC server bundler: "+t, t);
 		} finally {
@@ -112,12 +151,71 @@ final class BundlerProcessor {
 			}
 		}
 
-		// analyze urls to determine game/realms/log4j/misc libs and the entrypoint
+		return urls;
+	}
 
-		classifier.remove(bundlerOrigin);
+	private static URL[] readCache(Path cacheFile, FileFingerprint bundlerFingerprint) {
+		if (!Files.isRegularFile(cacheFile)) {
+			return null;
+		}
 
-		for (URL url : urls) {
-			classifier.process(url);
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+			byte[] header = new byte[CACHE_HEADER.length];
+			in.readFully(header);
+			if (!Arrays.equals(header, CACHE_HEADER) || !QuiltLoaderImpl.VERSION.equals(in.readUTF())) {
+				return null;
+			}
+
+			if (!bundlerFingerprint.equals(FileFingerprint.read(in))) {
+				return null;
+			}
+
+			URL[] urls = new URL[in.readInt()];
+			for (int i = 0; i < urls.length; i++) {
+				urls[i] = new URL(in.readUTF());
+				FileFingerprint fingerprint = FileFingerprint.read(in);
+				Path path = UrlUtil.asPath(urls[i]);
+
+				// The bundler re-extracts any file that's missing or changed
+				if (!Files.isRegularFile(path) || !fingerprint.equals(FileFingerprint.of(path))) {
+					return null;
+				}
+			}
+
+			return urls;
+		} catch (IOException | RuntimeException e) {
+			Log.warn(LogCategory.CACHE, "Failed to read the server bundler cache " + cacheFile + ", ignoring it", e);
+			return null;
+		}
+	}
+
+	private static void writeCache(Path cacheFile, FileFingerprint bundlerFingerprint, URL[] urls) {
+		Path tmp = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+		try {
+			List<FileFingerprint> fingerprints = new ArrayList<>(urls.length);
+			for (URL url : urls) {
+				Path path = UrlUtil.asPath(url);
+				if (!Files.isRegularFile(path)) {
+					// Folders can change without their modification time changing
+					return;
+				}
+				fingerprints.add(FileFingerprint.of(path));
+			}
+
+			Files.createDirectories(cacheFile.getParent());
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+				out.write(CACHE_HEADER);
+				out.writeUTF(QuiltLoaderImpl.VERSION);
+				bundlerFingerprint.write(out);
+				out.writeInt(urls.length);
+				for (int i = 0; i < urls.length; i++) {
+					out.writeUTF(urls[i].toString());
+					fingerprints.get(i).write(out);
+				}
+			}
+			Files.move(tmp, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException | RuntimeException e) {
+			Log.warn(LogCategory.CACHE, "Failed to write the server bundler cache to " + cacheFile, e);
 		}
 	}
 }
@@ -65,6 +65,15 @@ public final class McVersion {
 		this.classVersion = classVersion;
 	}
 
+	/** Used to restore a version that was previously built and normalised. */
+	McVersion(String id, String name, String raw, OptionalInt classVersion, String normalized) {
+		this.id = id;
+		this.name = name;
+		this.raw = raw;
+		this.normalized = normalized;
+		this.classVersion = classVersion;
+	}
+
 	public String getId() {
 		return id;
 	}
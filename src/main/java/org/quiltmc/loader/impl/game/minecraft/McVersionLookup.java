@@ -17,14 +17,25 @@
 
 package org.quiltmc.loader.impl.game.minecraft;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
 import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+import java.util.OptionalInt;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -40,8 +51,11 @@ import org.quiltmc.json5.JsonToken;
 import org.quiltmc.loader.api.Version;
 import org.quiltmc.loader.impl.QuiltLoaderImpl;
 import org.quiltmc.loader.impl.util.ExceptionUtil;
+import org.quiltmc.loader.impl.util.FileFingerprint;
 import org.quiltmc.loader.impl.util.LoaderUtil;
 import org.quiltmc.loader.impl.util.SimpleClassPath;
+import org.quiltmc.loader.impl.util.log.Log;
+import org.quiltmc.loader.impl.util.log.LogCategory;
 
 public final class McVersionLookup {
 	private static final Pattern VERSION_PATTERN = Pattern.compile(
@@ -65,6 +79,108 @@ public final class McVersionLookup {
 	private static final Pattern ALPHA_PATTERN = Pattern.compile("(?:a|Alpha v?)[01]\\.(\\d+(\\.\\d+)?[a-z]?(_\\d+)?[a-z]?)");
 	private static final Pattern INDEV_PATTERN = Pattern.compile("(?:inf-|Inf?dev )(?:0\\.31 )?(\\d+(-\\d+)?)");
 	private static final String STRING_DESC = "Ljava/lang/String;";
+	private static final byte[] CACHE_HEADER = "quiltmcversionv1".getBytes(StandardCharsets.UTF_8);
+
+	/** Same as {@link #getVersion(List, String, String)}, but reuses the version stored in the given cache file if it
+	 * was looked up with the same arguments, and none of the game jars have changed since. */
+	public static McVersion getVersion(List<Path> gameJars, String entrypointClass, String versionName, Path cacheFile) {
+		List<FileFingerprint> fingerprints = new ArrayList<>(gameJars.size());
+
+		try {
+			for (Path jar : gameJars) {
+				if (!Files.isRegularFile(jar)) {
+					// The modification time of a folder doesn't change when the files inside it do
+					return getVersion(gameJars, entrypointClass, versionName);
+				}
+				fingerprints.add(FileFingerprint.of(jar));
+			}
+		} catch (IOException e) {
+			return getVersion(gameJars, entrypointClass, versionName);
+		}
+
+		McVersion cached = readCache(cacheFile, fingerprints, entrypointClass, versionName);
+		if (cached != null) {
+			return cached;
+		}
+
+		McVersion version = getVersion(gameJars, entrypointClass, versionName);
+		writeCache(cacheFile, fingerprints, entrypointClass, versionName, version);
+		return version;
+	}
+
+	private static McVersion readCache(Path cacheFile, List<FileFingerprint> fingerprints, String entrypointClass, String versionName) {
+		if (!Files.isRegularFile(cacheFile)) {
+			return null;
+		}
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+			byte[] header = new byte[CACHE_HEADER.length];
+			in.readFully(header);
+			if (!Arrays.equals(header, CACHE_HEADER) || !QuiltLoaderImpl.VERSION.equals(in.readUTF())) {
+				return null;
+			}
+
+			if (!Objects.equals(entrypointClass, readNullable(in)) || !Objects.equals(versionName, readNullable(in))) {
+				return null;
+			}
+
+			int count = in.readInt();
+			if (count != fingerprints.size()) {
+				return null;
+			}
+			for (FileFingerprint fingerprint : fingerprints) {
+				if (!fingerprint.equals(FileFingerprint.read(in))) {
+					return null;
+				}
+			}
+
+			String id = readNullable(in);
+			String name = readNullable(in);
+			String raw = readNullable(in);
+			String normalized = readNullable(in);
+			int classVersion = in.readInt();
+			return new McVersion(id, name, raw, classVersion < 0 ? OptionalInt.empty() : OptionalInt.of(classVersion), normalized);
+		} catch (IOException e) {
+			Log.warn(LogCategory.CACHE, "Failed to read the game version cache " + cacheFile + ", ignoring it", e);
+			return null;
+		}
+	}
+
+	private static void writeCache(Path cacheFile, List<FileFingerprint> fingerprints, String entrypointClass, String versionName, McVersion version) {
+		Path tmp = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+		try {
+			Files.createDirectories(cacheFile.getParent());
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+				out.write(CACHE_HEADER);
+				out.writeUTF(QuiltLoaderImpl.VERSION);
+				writeNullable(out, entrypointClass);
+				writeNullable(out, versionName);
+				out.writeInt(fingerprints.size());
+				for (FileFingerprint fingerprint : fingerprints) {
+					fingerprint.write(out);
+				}
+				writeNullable(out, version.getId());
+				writeNullable(out, version.getName());
+				writeNullable(out, version.getRaw());
+				writeNullable(out, version.getNormalized());
+				out.writeInt(version.getClassVersion().orElse(-1));
+			}
+			Files.move(tmp, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			Log.warn(LogCategory.CACHE, "Failed to write the game version cache to " + cacheFile, e);
+		}
+	}
+
+	private static String readNullable(DataInput in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	private static void writeNullable(DataOutput out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
 
 	public static McVersion getVersion(List<Path> gameJars, String entrypointClass, String versionName) {
 		McVersion.Builder builder = new McVersion.Builder();
@@ -186,13 +186,17 @@ public class MinecraftGameProvider implements GameProvider {
 		this.arguments = new Arguments();
 		arguments.parse(args);
 
-		try {
-			LibClassifier<McLibrary> classifier = new LibClassifier<>(McLibrary.class, envType, this);
+		try (LibClassifier<McLibrary> classifier = new LibClassifier<>(McLibrary.class, envType, this)) {
 			McLibrary envGameLib = envType == Environment.CLIENT ? McLibrary.MC_CLIENT : McLibrary.MC_SERVER;
 			Path commonGameJar = GameProviderHelper.getCommonGameJar();
 			Path envGameJar = GameProviderHelper.getEnvGameJar(envType);
 			boolean commonGameJarDeclared = commonGameJar != null;
 
+			List<Path> probed = new ArrayList<>(launcher.getClassPath());
+			if (commonGameJar != null) probed.add(commonGameJar);
+			if (envGameJar != null) probed.add(envGameJar);
+			classifier.prefetch(probed);
+
 			if (commonGameJarDeclared) {
 				if (envGameJar != null) {
 					classifier.process(envGameJar, McLibrary.MC_COMMON);
@@ -212,7 +216,7 @@ public class MinecraftGameProvider implements GameProvider {
 			}
 
 			if (classifier.has(McLibrary.MC_BUNDLER)) {
-				BundlerProcessor.process(classifier);
+				BundlerProcessor.process(classifier, GameProviderHelper.getCacheFile(getLaunchDirectory(), "bundler-classpath-cache.bin"));
 			}
 
 			envGameJar = classifier.getOrigin(envGameLib);
@@ -272,14 +276,16 @@ public class MinecraftGameProvider implements GameProvider {
 					miscGameLibraries.add(path);
 				}
 			}
+
+			// Looked up before the classifier is closed, so the game jars don't need to be read again
+			String version = arguments.remove(Arguments.GAME_VERSION);
+			if (version == null) version = System.getProperty(SystemProperties.GAME_VERSION);
+			Path versionCache = GameProviderHelper.getCacheFile(getLaunchDirectory(), "mc-version-cache.bin");
+			versionData = McVersionLookup.getVersion(gameJars, entrypoint, version, versionCache);
 		} catch (IOException e) {
 			throw ExceptionUtil.wrap(e);
 		}
 
-		String version = arguments.remove(Arguments.GAME_VERSION);
-		if (version == null) version = System.getProperty(SystemProperties.GAME_VERSION);
-		versionData = McVersionLookup.getVersion(gameJars, entrypoint, version);
-
 		processArgumentMap(arguments, envType);
 
 		return true;
@@ -373,7 +379,8 @@ public class MinecraftGameProvider implements GameProvider {
 
 		setupLogHandler(launcher, true);
 
-		transformer.locateEntrypoints(launcher, gameJars);
+		Path patchCache = GameProviderHelper.getCacheFile(getLaunchDirectory(), "game-patch-cache.bin");
+		transformer.locateEntrypoints(launcher, gameJars, patchCache, getNormalizedGameVersion());
 	}
 
 	private void setupLogHandler(QuiltLauncher launcher, boolean useTargetCl) {
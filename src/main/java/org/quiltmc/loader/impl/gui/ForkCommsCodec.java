@@ -0,0 +1,268 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.loader.impl.gui;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.quiltmc.loader.api.LoaderValue;
+import org.quiltmc.loader.api.LoaderValue.LArray;
+import org.quiltmc.loader.api.LoaderValue.LObject;
+import org.quiltmc.loader.api.plugin.LoaderValueFactory;
+import org.quiltmc.loader.impl.util.QuiltLoaderInternal;
+import org.quiltmc.loader.impl.util.QuiltLoaderInternalType;
+
+/** The binary form of {@link LoaderValue}s used by {@link QuiltForkComms#PROTOCOL_BINARY}.
+ * <p>
+ * Each side keeps a dictionary of the short strings it has sent so far, so every string after the first is sent as an
+ * index instead. Since every gui node repeats the same keys, sync types, and class names, most of a node ends up as a
+ * few bytes per field. Integers are sent as variable length numbers. */
+@QuiltLoaderInternal(QuiltLoaderInternalType.NEW_INTERNAL)
+final class ForkCommsCodec {
+
+	private static final int TAG_NULL = 0;
+	private static final int TAG_FALSE = 1;
+	private static final int TAG_TRUE = 2;
+	private static final int TAG_INTEGER = 3;
+	private static final int TAG_DOUBLE = 4;
+	private static final int TAG_DECIMAL = 5;
+	/** A string which isn't added to the dictionary. */
+	private static final int TAG_STRING = 6;
+	/** A string which is added to the end of the dictionary. */
+	private static final int TAG_STRING_NEW = 7;
+	/** The index of a string already in the dictionary. */
+	private static final int TAG_STRING_REF = 8;
+	private static final int TAG_ARRAY = 9;
+	private static final int TAG_OBJECT = 10;
+
+	private static final int MAX_DICTIONARY_SIZE = 1 << 16;
+	/** Longer strings (like icons) are unlikely to be repeated. */
+	private static final int MAX_DICTIONARY_STRING_LENGTH = 256;
+
+	private ForkCommsCodec() {}
+
+	/** Writes values for a single connection. */
+	@QuiltLoaderInternal(QuiltLoaderInternalType.NEW_INTERNAL)
+	static final class Writer {
+		private final Map<String, Integer> dictionary = new HashMap<>();
+
+		void write(DataOutput out, LoaderValue value) throws IOException {
+			switch (value.type()) {
+				case NULL: {
+					out.writeByte(TAG_NULL);
+					break;
+				}
+				case BOOLEAN: {
+					out.writeByte(value.asBoolean() ? TAG_TRUE : TAG_FALSE);
+					break;
+				}
+				case NUMBER: {
+					writeNumber(out, value.asNumber());
+					break;
+				}
+				case STRING: {
+					writeString(out, value.asString());
+					break;
+				}
+				case ARRAY: {
+					LArray array = value.asArray();
+					out.writeByte(TAG_ARRAY);
+					writeVarInt(out, array.size());
+					for (LoaderValue element : array) {
+						write(out, element);
+					}
+					break;
+				}
+				case OBJECT: {
+					LObject obj = value.asObject();
+					out.writeByte(TAG_OBJECT);
+					writeVarInt(out, obj.size());
+					for (Map.Entry<String, LoaderValue> entry : obj.entrySet()) {
+						writeString(out, entry.getKey());
+						write(out, entry.getValue());
+					}
+					break;
+				}
+				default: {
+					throw new IOException("Unknown value type " + value.type());
+				}
+			}
+		}
+
+		private static void writeNumber(DataOutput out, Number number) throws IOException {
+			if (number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte) {
+				out.writeByte(TAG_INTEGER);
+				long l = number.longValue();
+				writeVarLong(out, (l << 1) ^ (l >> 63));
+			} else if (number instanceof Double || number instanceof Float) {
+				out.writeByte(TAG_DOUBLE);
+				out.writeDouble(number.doubleValue());
+			} else {
+				out.writeByte(TAG_DECIMAL);
+				writeUtf8(out, number.toString());
+			}
+		}
+
+		private void writeString(DataOutput out, String str) throws IOException {
+			Integer index = dictionary.get(str);
+			if (index != null) {
+				out.writeByte(TAG_STRING_REF);
+				writeVarInt(out, index);
+			} else if (str.length() <= MAX_DICTIONARY_STRING_LENGTH && dictionary.size() < MAX_DICTIONARY_SIZE) {
+				dictionary.put(str, dictionary.size());
+				out.writeByte(TAG_STRING_NEW);
+				writeUtf8(out, str);
+			} else {
+				out.writeByte(TAG_STRING);
+				writeUtf8(out, str);
+			}
+		}
+	}
+
+	/** Reads values written by a single {@link Writer}. */
+	@QuiltLoaderInternal(QuiltLoaderInternalType.NEW_INTERNAL)
+	static final class Reader {
+		private final List<String> dictionary = new ArrayList<>();
+
+		LoaderValue read(DataInput in) throws IOException {
+			LoaderValueFactory lvf = LoaderValueFactory.getFactory();
+			int tag = in.readUnsignedByte();
+			switch (tag) {
+				case TAG_NULL:
+					return lvf.nul();
+				case TAG_FALSE:
+					return lvf.bool(false);
+				case TAG_TRUE:
+					return lvf.bool(true);
+				case TAG_INTEGER: {
+					long zigzag = readVarLong(in);
+					long l = (zigzag >>> 1) ^ -(zigzag & 1);
+					return lvf.number(l == (int) l ? (Number) (int) l : (Number) l);
+				}
+				case TAG_DOUBLE:
+					return lvf.number(in.readDouble());
+				case TAG_DECIMAL: {
+					String text = readUtf8(in);
+					try {
+						return lvf.number(new BigDecimal(text));
+					} catch (NumberFormatException e) {
+						throw new IOException("Bad number '" + text + "'", e);
+					}
+				}
+				case TAG_STRING:
+				case TAG_STRING_NEW:
+				case TAG_STRING_REF:
+					return lvf.string(readString(in, tag));
+				case TAG_ARRAY: {
+					LoaderValue[] values = new LoaderValue[readVarInt(in)];
+					for (int i = 0; i < values.length; i++) {
+						values[i] = read(in);
+					}
+					return lvf.array(values);
+				}
+				case TAG_OBJECT: {
+					int size = readVarInt(in);
+					Map<String, LoaderValue> map = new LinkedHashMap<>();
+					for (int i = 0; i < size; i++) {
+						String key = readString(in, in.readUnsignedByte());
+						map.put(key, read(in));
+					}
+					return lvf.object(map);
+				}
+				default:
+					throw new IOException("Unknown value tag " + tag);
+			}
+		}
+
+		private String readString(DataInput in, int tag) throws IOException {
+			switch (tag) {
+				case TAG_STRING:
+					return readUtf8(in);
+				case TAG_STRING_NEW: {
+					String str = readUtf8(in);
+					dictionary.add(str);
+					return str;
+				}
+				case TAG_STRING_REF: {
+					int index = readVarInt(in);
+					if (index >= dictionary.size()) {
+						throw new IOException("Unknown string index " + index + " (only " + dictionary.size() + " known)");
+					}
+					return dictionary.get(index);
+				}
+				default:
+					throw new IOException("Expected a string, but got tag " + tag);
+			}
+		}
+	}
+
+	private static void writeUtf8(DataOutput out, String str) throws IOException {
+		byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+		writeVarInt(out, bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readUtf8(DataInput in) throws IOException {
+		byte[] bytes = new byte[readVarInt(in)];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	static void writeVarInt(DataOutput out, int value) throws IOException {
+		if (value < 0) {
+			throw new IOException("Negative length " + value);
+		}
+		writeVarLong(out, value);
+	}
+
+	static int readVarInt(DataInput in) throws IOException {
+		long value = readVarLong(in);
+		if (value < 0 || value > Integer.MAX_VALUE) {
+			throw new IOException("Bad length " + value);
+		}
+		return (int) value;
+	}
+
+	private static void writeVarLong(DataOutput out, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.writeByte((int) (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+
+	private static long readVarLong(DataInput in) throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Variable length number is too long");
+	}
+}
@@ -16,15 +16,18 @@
 
 package org.quiltmc.loader.impl.gui;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.ProcessBuilder.Redirect;
 import java.net.InetAddress;
+import java.net.ServerSocket;
 import java.net.Socket;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -47,12 +50,25 @@ import org.quiltmc.loader.api.plugin.LoaderValueFactory;
 import org.quiltmc.loader.impl.util.LimitedInputStream;
 import org.quiltmc.loader.impl.util.QuiltLoaderInternal;
 import org.quiltmc.loader.impl.util.QuiltLoaderInternalType;
+import org.quiltmc.loader.impl.util.SystemProperties;
 
 @QuiltLoaderInternal(QuiltLoaderInternalType.NEW_INTERNAL)
 public class QuiltForkComms {
 
 	private static final String SYS_PROP = "quiltmc.loader.fork.comms_port";
 
+	/** Sent by both sides when connecting, followed by the highest protocol version they support. */
+	private static final int PROTOCOL_MAGIC = 0x51464B43;
+
+	/** Each frame is a single json message. */
+	static final int PROTOCOL_JSON = 1;
+
+	/** Each frame is a batch of messages, written by {@link ForkCommsCodec}. */
+	static final int PROTOCOL_BINARY = 2;
+
+	/** The most messages sent in a single {@link #PROTOCOL_BINARY} frame. */
+	private static final int MAX_BATCH_SIZE = 512;
+
 	private static ForkSide side;
 	private static final AtomicReference<QuiltForkComms> currentComms = new AtomicReference<>();
 
@@ -82,15 +98,7 @@ public class QuiltForkComms {
 		QuiltForkComms ipc = new QuiltForkComms(handler);
 
 		if (overridePort == null) {
-			File portFile = new File(medium.toString() + ".port");
-			File readyFile = new File(medium.toString() + ".ready");
 			File classpath = new File(medium.toString() + ".cp");
-			if (portFile.exists()) {
-				portFile.delete();
-			}
-			if (readyFile.exists()) {
-				readyFile.delete();
-			}
 			if (classpath.exists()) {
 				classpath.delete();
 			}
@@ -112,16 +120,24 @@ public class QuiltForkComms {
 			commands.add("@" + classpath.toString());
 			commands.add(QuiltForkServerMain.class.getName());
 
-			commands.add("--file");
-			commands.add(medium.getAbsolutePath());
+			// The server connects back to us, so we don't need to wait for it to tell us which port it's using
+			ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+			commands.add("--port");
+			commands.add(Integer.toString(server.getLocalPort()));
 
 			ProcessBuilder pb = new ProcessBuilder(commands);
 			pb.redirectError(Redirect.INHERIT);
 			pb.redirectOutput(Redirect.INHERIT);
 
-			Process process = pb.start();
+			Process process;
+			try {
+				process = pb.start();
+			} catch (IOException e) {
+				server.close();
+				throw e;
+			}
 
-			ConnectingSender connecting = ipc.new ConnectingSender(portFile, readyFile, process);
+			ConnectingSender connecting = ipc.new ConnectingSender(server, process);
 			ipc.sender = connecting;
 			connecting.start();
 		} else {
@@ -131,28 +147,6 @@ public class QuiltForkComms {
 		return ipc;
 	}
 
-	private static int readPort(File portFile) throws IOException {
-		try (FileInputStream fis = new FileInputStream(portFile)) {
-			byte[] bytes = new byte[4];
-			int index = 0;
-			while (true) {
-				int read = fis.read(bytes, index, bytes.length - index);
-				if (read < 0) {
-					throw new IOException("Didn't find the port in " + portFile);
-				}
-				index += read;
-				if (index >= 4) {
-					break;
-				}
-			}
-
-			return (bytes[0] & 0xFF) << 24//
-				| (bytes[1] & 0xFF) << 16//
-				| (bytes[2] & 0xFF) << 8//
-				| (bytes[3] & 0xFF) << 0;
-		}
-	}
-
 	private final Consumer<LoaderValue> msgHandler;
 
 	/** Set to null if we fail to connect. */
@@ -169,7 +163,7 @@ public class QuiltForkComms {
 		currentComms.set(this);
 	}
 
-	QuiltForkComms(Socket socket, Consumer<LoaderValue> msgHandler) {
+	QuiltForkComms(Socket socket, Consumer<LoaderValue> msgHandler) throws IOException {
 		setSide(ForkSide.SERVER);
 		this.msgHandler = msgHandler;
 		writerQueue = new LinkedBlockingQueue<>();
@@ -219,39 +213,42 @@ public class QuiltForkComms {
 
 	private final class ConnectingSender extends Sender {
 
-		final File portFile;
-		final File readyFile;
+		final ServerSocket server;
 		final Process waitingProcess;
 		final Thread waitingThread;
 
-		ConnectingSender(File portFile, File readyFile, Process waitingProcess) {
-			this.portFile = portFile;
-			this.readyFile = readyFile;
+		ConnectingSender(ServerSocket server, Process waitingProcess) {
+			this.server = server;
 			this.waitingProcess = waitingProcess;
 			this.waitingThread = new Thread(this::runWait, "Quilt IPC Launcher");
 			waitingThread.setDaemon(true);
 		}
 
 		private void start() {
+			// Stop waiting for a connection if the server crashes before connecting
+			waitingProcess.onExit().thenRun(this::closeServer);
 			waitingThread.start();
 		}
 
+		private void closeServer() {
+			try {
+				server.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+
 		private void runWait() {
-			while (waitingProcess.isAlive()) {
-				if (readyFile.isFile()) {
-					try {
-						QuiltForkComms.this.sender = new ReadySender(readPort(portFile));
-						return;
-					} catch (IOException e) {
-						e.printStackTrace();
-					}
-					break;
-				}
-				try {
-					Thread.sleep(10);
-				} catch (InterruptedException ignored) {
-					// No reason not to sleep since we're a daemon thread
+			try {
+				Socket socket = server.accept();
+				QuiltForkComms.this.sender = new ReadySender(socket);
+				return;
+			} catch (IOException e) {
+				if (waitingProcess.isAlive()) {
+					e.printStackTrace();
 				}
+			} finally {
+				closeServer();
 			}
 			// Crashed
 			QuiltForkComms.this.sender = QuiltForkComms.this.new FailedSender();
@@ -268,6 +265,7 @@ public class QuiltForkComms {
 	private final class ReadySender extends Sender {
 
 		private final Socket socket;
+		private final int protocol;
 		private final Thread writer, reader;
 		private final Executor handler;
 
@@ -275,8 +273,16 @@ public class QuiltForkComms {
 			this(new Socket(InetAddress.getLoopbackAddress(), port));
 		}
 
-		ReadySender(Socket socket) {
+		ReadySender(Socket socket) throws IOException {
 			this.socket = socket;
+			try {
+				socket.setTcpNoDelay(true);
+				protocol = handshake(socket);
+			} catch (IOException e) {
+				socket.close();
+				throw e;
+			}
+
 			handler = Executors.newSingleThreadExecutor(new ThreadFactory() {
 				final AtomicInteger number = new AtomicInteger();
 
@@ -297,6 +303,27 @@ public class QuiltForkComms {
 			reader.start();
 		}
 
+		/** Both sides send the highest version they support, and then use the lowest of the two. */
+		private int handshake(Socket socket) throws IOException {
+			int supported = Boolean.getBoolean(SystemProperties.FORKED_GUI_JSON_PROTOCOL) ? PROTOCOL_JSON : PROTOCOL_BINARY;
+			DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+			out.writeInt(PROTOCOL_MAGIC);
+			out.writeInt(supported);
+			out.flush();
+
+			DataInputStream in = new DataInputStream(socket.getInputStream());
+			int magic = in.readInt();
+			if (magic != PROTOCOL_MAGIC) {
+				throw new IOException("Bad handshake " + Integer.toHexString(magic) + " (on the " + side + ")");
+			}
+			int remote = in.readInt();
+			int chosen = Math.min(supported, remote);
+			if (chosen < PROTOCOL_JSON) {
+				throw new IOException("Unsupported protocol version " + remote + " (on the " + side + ")");
+			}
+			return chosen;
+		}
+
 		private void closeAfterError() {
 			synchronized (QuiltForkComms.this) {
 				try {
@@ -311,16 +338,41 @@ public class QuiltForkComms {
 
 		private void runWriter() {
 			try {
-				DataOutputStream stream = new DataOutputStream(socket.getOutputStream());
+				DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+				ByteArrayOutputStream baos = new ByteArrayOutputStream();
+				ForkCommsCodec.Writer codec = new ForkCommsCodec.Writer();
+				List<LoaderValue> batch = new ArrayList<>();
 				while (true) {
 					try {
 						BlockingQueue<LoaderValue> queue = writerQueue;
-						LoaderValue value = queue == null ? lvf().nul() : queue.take();
-						ByteArrayOutputStream baos = new ByteArrayOutputStream();
-						lvf().write(value, baos);
-						byte[] written = baos.toByteArray();
-						stream.writeInt(written.length);
-						stream.write(written);
+						batch.clear();
+						if (queue == null) {
+							batch.add(lvf().nul());
+						} else {
+							batch.add(queue.take());
+							// Anything else queued since goes in the same write
+							queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+						}
+
+						if (protocol == PROTOCOL_BINARY) {
+							baos.reset();
+							DataOutputStream frame = new DataOutputStream(baos);
+							ForkCommsCodec.writeVarInt(frame, batch.size());
+							for (LoaderValue value : batch) {
+								codec.write(frame, value);
+							}
+							stream.writeInt(baos.size());
+							baos.writeTo(stream);
+						} else {
+							for (LoaderValue value : batch) {
+								baos.reset();
+								lvf().write(value, baos);
+								stream.writeInt(baos.size());
+								baos.writeTo(stream);
+							}
+						}
+						stream.flush();
+
 						if (queue == null) {
 							// Closed
 							return;
@@ -342,14 +394,22 @@ public class QuiltForkComms {
 		private void runReader() {
 			WatchingInputStream watchStream = null;
 			try {
-				watchStream = new WatchingInputStream(socket.getInputStream());
+				watchStream = new WatchingInputStream(new BufferedInputStream(socket.getInputStream()));
 				DataInputStream stream = new DataInputStream(watchStream);
+				ForkCommsCodec.Reader codec = new ForkCommsCodec.Reader();
 				while (true) {
 					int length = stream.readInt();
-					LoaderValue value = lvf().read(new LimitedInputStream(stream, length));
-					handler.execute(() -> readMessage(value));
-					if (value.type() == LType.NULL) {
-						close();
+					if (protocol == PROTOCOL_BINARY) {
+						byte[] bytes = new byte[length];
+						stream.readFully(bytes);
+						DataInputStream frame = new DataInputStream(new ByteArrayInputStream(bytes));
+						int count = ForkCommsCodec.readVarInt(frame);
+						for (int i = 0; i < count; i++) {
+							if (!handleRead(codec.read(frame))) {
+								return;
+							}
+						}
+					} else if (!handleRead(lvf().read(new LimitedInputStream(stream, length)))) {
 						return;
 					}
 				}
@@ -367,6 +427,16 @@ public class QuiltForkComms {
 			}
 		}
 
+		/** @return False if the other side has closed the connection. */
+		private boolean handleRead(LoaderValue value) {
+			handler.execute(() -> readMessage(value));
+			if (value.type() == LType.NULL) {
+				close();
+				return false;
+			}
+			return true;
+		}
+
 		private void readMessage(LoaderValue value) {
 			try {
 				msgHandler.accept(value);
@@ -50,8 +50,8 @@ public class QuiltForkServerMain {
 	private static QuiltForkServerMain currentConnection;
 
 	public static void main(String[] args) {
-		if (args.length < 2 || !"--file".equals(args[0])) {
-			System.err.println("QUILT_IPC_SERVER: missing arguments / first argument wasn't a file!");
+		if (args.length < 2 || !("--file".equals(args[0]) || "--port".equals(args[0]))) {
+			System.err.println("QUILT_IPC_SERVER: missing arguments / first argument wasn't a file or port!");
 			System.exit(1);
 			return;
 		}
@@ -67,6 +67,20 @@ public class QuiltForkServerMain {
 	}
 
 	private static void run(String[] args) throws IOException {
+		if ("--port".equals(args[0])) {
+			// Launched by QuiltForkComms.connect, which is waiting for us to connect
+			int port;
+			try {
+				port = Integer.parseInt(args[1]);
+			} catch (NumberFormatException e) {
+				throw new IOException("Bad port '" + args[1] + "'", e);
+			}
+			QuiltForkServerMain server = new QuiltForkServerMain(new Socket(InetAddress.getLoopbackAddress(), port));
+			server.loopUntilClosed();
+			return;
+		}
+
+		// Launched manually, for a client started with the comms_port system property
 		File portFile = new File(args[1] + ".port");
 		File readyFile = new File(args[1] + ".ready");
 
@@ -109,7 +123,7 @@ public class QuiltForkServerMain {
 
 	final QuiltForkComms comms;
 
-	private QuiltForkServerMain(Socket connection) {
+	private QuiltForkServerMain(Socket connection) throws IOException {
 		currentConnection = this;
 		comms = new QuiltForkComms(connection, this::handleMessage);
 	}
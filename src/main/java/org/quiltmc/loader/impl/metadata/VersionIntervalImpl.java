@@ -195,20 +195,7 @@ public class VersionIntervalImpl implements VersionInterval {
 			return merged != null ? VersionRange.ofInterval(merged) : VersionRange.NONE;
 		}
 
-		// (a0 | a1 | a2) & (b0 | b1 | b2) == a0 & (b0 | b1 | b2) | a1 & (b0 | b1 | b2) | a2 & (b0 | b1 | b2)
-
-		// a0 & (b0 | b1 | b2) == a0 & b0 | a0 & b1 | a0 & b2
-
-		List<VersionInterval> allMerged = new ArrayList<>();
-
-		for (VersionInterval intervalA : a) {
-			for (VersionInterval intervalB : b) {
-				VersionInterval merged = and(intervalA, intervalB);
-				if (merged != null) allMerged.add(merged);
-			}
-		}
-
-		return VersionRange.ofIntervals(allMerged);
+		return VersionRangeImpl.of(a).combineMatchingBoth(b);
 	}
 
 	private static int compareMin(VersionInterval a, VersionInterval b) {
@@ -284,27 +271,6 @@ public class VersionIntervalImpl implements VersionInterval {
 		if (intervals.isEmpty()) return VersionRange.ANY;
 		if (intervals.size() == 1) return not(intervals.iterator().next());
 
-
-		// !(i0 || i1 || i2) is the same as !i0 && !i1 && !i2
-		// In other words, a negation of a set of OR intervals is the same as negating each individual interval and
-		// ANDing them together.
-		VersionRange ret = null;
-
-		for (VersionInterval v : intervals) {
-			// negate the individual interval
-			VersionRange inverted = not(v);
-
-			// If there's no previous interval, just use the inverted one
-			if (ret == null) {
-				ret = inverted;
-			} else {
-				// Use the boolean rule from earlier to build the result
-				ret = and(ret, inverted);
-			}
-
-			if (ret.isEmpty()) break;
-		}
-
-		return ret;
+		return VersionRangeImpl.of(intervals).invert();
 	}
 }
@@ -25,83 +25,157 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Objects;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.NoSuchElementException;
 
+import org.quiltmc.loader.api.QuiltLoader;
 import org.quiltmc.loader.api.Version;
 import org.quiltmc.loader.api.VersionInterval;
 import org.quiltmc.loader.api.VersionRange;
 import org.quiltmc.loader.impl.util.QuiltLoaderInternal;
 import org.quiltmc.loader.impl.util.QuiltLoaderInternalType;
 
+/** A {@link VersionRange} stored as a sorted array of intervals, in which no two intervals overlap or touch. This
+ * normal form lets {@link #isSatisfiedBy(Version)} use a binary search, and set operations use a single pass over
+ * both ranges. */
 @QuiltLoaderInternal(QuiltLoaderInternalType.NEW_INTERNAL)
 public class VersionRangeImpl extends AbstractSet<VersionInterval> implements VersionRange {
 	public static final VersionRangeImpl ANY = new VersionRangeImpl(Collections.singleton(VersionIntervalImpl.ALL));
 	public static final VersionRangeImpl NONE = new VersionRangeImpl(Collections.emptyList());
-	private final SortedSet<VersionInterval> intervals;
+	private final VersionInterval[] intervals;
 
 	public VersionRangeImpl(Collection<VersionInterval> intervals) {
-		VersionInterval[] array = intervals.toArray(new VersionInterval[0]);
-		if (array.length == 0) {
-			// No reason not to share
-			this.intervals = NONE == null ? new TreeSet<>() : NONE.intervals;
-		} else if (array.length == 1) {
-			this.intervals = new TreeSet<>();
-			this.intervals.add(array[0]);
+		this.intervals = normalise(intervals.toArray(new VersionInterval[0]));
+	}
+
+	public VersionRangeImpl(VersionInterval interval) {
+		this(Collections.singleton(interval));
+	}
+
+	/** @param intervals Intervals which are already normalised. */
+	private VersionRangeImpl(VersionInterval[] intervals) {
+		this.intervals = intervals;
+	}
+
+	/** Sorts the given intervals, and merges every pair of them that either overlap, or touch so that there isn't a
+	 * version between them. */
+	private static VersionInterval[] normalise(VersionInterval[] array) {
+		if (array.length < 2) {
+			return array;
+		}
+
+		Arrays.sort(array);
+		int count = 1;
+
+		for (int i = 1; i < array.length; i++) {
+			VersionInterval last = array[count - 1];
+			VersionInterval next = array[i];
+
+			if (isContiguous(last, next)) {
+				array[count - 1] = union(last, next);
+			} else {
+				array[count++] = next;
+			}
+		}
+
+		return count == array.length ? array : Arrays.copyOf(array, count);
+	}
+
+	/** @param first An interval whose minimum isn't greater than the minimum of the second interval.
+	 * @return True if there's no version between the two intervals which is matched by neither of them. */
+	private static boolean isContiguous(VersionInterval first, VersionInterval second) {
+		Version max = first.getMax();
+		Version min = second.getMin();
+		if (max == null || min == null) {
+			return true;
+		}
+		int cmp = min.compareTo(max);
+		return cmp < 0 || cmp == 0 && (first.isMaxInclusive() || second.isMinInclusive());
+	}
+
+	/** @param first An interval whose minimum isn't greater than the minimum of the second interval, and which is
+	 *            {@link #isContiguous(VersionInterval, VersionInterval) contiguous} with it. */
+	private static VersionInterval union(VersionInterval first, VersionInterval second) {
+		Version firstMax = first.getMax();
+		Version secondMax = second.getMax();
+		if (firstMax == null) {
+			return first;
+		}
+
+		final Version max;
+		final boolean maxInclusive;
+
+		if (secondMax == null) {
+			max = null;
+			maxInclusive = false;
 		} else {
-			Arrays.sort(array);
-			this.intervals = new TreeSet<>();
-
-			VersionInterval last = array[0];
-			for (int i = 1; i < array.length; i++) {
-				VersionInterval next = array[i];
-				Version nextMin = next.getMin();
-				Version lastMax = last.getMax();
-				if (lastMax == null) {
-					// Upper is the entire bound, no point merging since it already contains everything
-					break;
-				}
-				if (nextMin == null || nextMin.compareTo(lastMax) < 0) {
-					Version nextMax = next.getMax();
-					if (nextMax == null) {
-						last = VersionInterval.of(last.getMin(), last.isMinInclusive(), null, false);
-						break;
-					}
-					int cmp = nextMax.compareTo(lastMax);
-					final Version max;
-					final boolean maxInclusive;
-					if (cmp == 0) {
-						max = lastMax;
-						maxInclusive = next.isMaxInclusive() || last.isMaxInclusive();
-					} else {
-						max = cmp < 0 ? nextMax : lastMax;
-						maxInclusive = (cmp < 0 ? next : last).isMaxInclusive();
-					}
-					last = VersionInterval.of(last.getMin(), last.isMinInclusive(), max, maxInclusive);
-				} else {
-					// They don't overlap
-					this.intervals.add(last);
-					last = next;
-				}
+			int cmp = secondMax.compareTo(firstMax);
+			if (cmp < 0 || cmp == 0 && (first.isMaxInclusive() || !second.isMaxInclusive())) {
+				return first;
 			}
+			max = secondMax;
+			maxInclusive = second.isMaxInclusive();
+		}
 
-			this.intervals.add(last);
+		if (first.getMin() == null && max == null) {
+			return VersionIntervalImpl.ALL;
 		}
+		return VersionInterval.of(first.getMin(), first.isMinInclusive(), max, maxInclusive);
 	}
 
-	public VersionRangeImpl(VersionInterval interval) {
-		this(Collections.singleton(interval));
+	@Override
+	public boolean isSatisfiedBy(Version version) {
+		if (intervals.length == 0) {
+			return false;
+		}
+
+		if (version.raw().equals("${version}") && QuiltLoader.isDevelopmentEnvironment()) {
+			// Special cased by QMJ
+			return true;
+		}
+
+		// Find the last interval whose minimum allows the version
+		int low = 0;
+		int high = intervals.length - 1;
+		int found = -1;
+
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			Version min = intervals[mid].getMin();
+			int cmp;
+			if (min == null || (cmp = min.compareTo(version)) < 0 || cmp == 0 && intervals[mid].isMinInclusive()) {
+				found = mid;
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+
+		if (found < 0) {
+			return false;
+		}
+
+		VersionInterval interval = intervals[found];
+		Version max = interval.getMax();
+		if (max == null) {
+			return true;
+		}
+		int cmp = max.compareTo(version);
+		return cmp > 0 || cmp == 0 && interval.isMaxInclusive();
 	}
 
 	@Override
 	public Iterator<VersionInterval> iterator() {
-		return intervals.iterator();
+		return Arrays.asList(intervals).iterator();
 	}
 
 	@Override
 	public int size() {
-		return intervals.size();
+		return intervals.length;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return o instanceof VersionInterval && Arrays.binarySearch(intervals, o) >= 0;
 	}
 
 	@Override
@@ -112,7 +186,7 @@ public class VersionRangeImpl extends AbstractSet<VersionInterval> implements Ve
 	@Override
 	public String toString() {
 		if (this.size() == 1) {
-			return this.intervals.first().toString();
+			return this.intervals[0].toString();
 		} else if (this.isEmpty()) {
 			return "{ <empty set> }";
 		} else {
@@ -133,40 +207,137 @@ public class VersionRangeImpl extends AbstractSet<VersionInterval> implements Ve
 
 	@Override
 	public VersionRange combineMatchingBoth(VersionRange other) {
+		VersionInterval[] a = intervals;
+		VersionInterval[] b = of(other).intervals;
 		List<VersionInterval> combined = new ArrayList<>();
-		for (VersionInterval a : this) {
-			for (VersionInterval b : other) {
-				VersionInterval merged = a.and(b);
-				if (merged != null) {
-					combined.add(merged);
-				}
+
+		// Both arrays are sorted and disjoint, so an interval can only overlap with intervals of the other range
+		// until one of them ends.
+		int i = 0, j = 0;
+		while (i < a.length && j < b.length) {
+			VersionInterval merged = a[i].and(b[j]);
+			if (merged != null) {
+				combined.add(merged);
+			}
+
+			if (compareMax(a[i], b[j]) < 0) {
+				i++;
+			} else {
+				j++;
 			}
 		}
+
 		return new VersionRangeImpl(combined);
 	}
 
+	@Override
+	public VersionRange combineMatchingEither(VersionRange other) {
+		if (other.isEmpty()) {
+			return this;
+		} else if (intervals.length == 0) {
+			return other;
+		}
+
+		VersionInterval[] array = Arrays.copyOf(intervals, intervals.length + other.size());
+		int index = intervals.length;
+		for (VersionInterval interval : other) {
+			array[index++] = interval;
+		}
+		return new VersionRangeImpl(normalise(array));
+	}
+
+	@Override
+	public VersionRange invert() {
+		if (intervals.length == 0) {
+			return ANY;
+		}
+
+		List<VersionInterval> gaps = new ArrayList<>(intervals.length + 1);
+		VersionInterval first = intervals[0];
+		if (first.getMin() != null) {
+			gaps.add(VersionInterval.of(null, false, first.getMin(), !first.isMinInclusive()));
+		}
+
+		for (int i = 0; i < intervals.length; i++) {
+			VersionInterval interval = intervals[i];
+			Version max = interval.getMax();
+			if (max == null) {
+				break;
+			}
+
+			if (i + 1 < intervals.length) {
+				VersionInterval next = intervals[i + 1];
+				gaps.add(VersionInterval.of(max, !interval.isMaxInclusive(), next.getMin(), !next.isMinInclusive()));
+			} else {
+				gaps.add(VersionInterval.of(max, !interval.isMaxInclusive(), null, false));
+			}
+		}
+
+		return gaps.isEmpty() ? NONE : new VersionRangeImpl(gaps);
+	}
+
+	/** Compares the maximums of the given intervals, where null is greater than every version. */
+	private static int compareMax(VersionInterval a, VersionInterval b) {
+		Version aMax = a.getMax();
+		Version bMax = b.getMax();
+		if (aMax == null || bMax == null) {
+			return aMax == bMax ? 0 : aMax == null ? 1 : -1;
+		}
+		int cmp = aMax.compareTo(bMax);
+		if (cmp != 0) {
+			return cmp;
+		}
+		return Boolean.compare(a.isMaxInclusive(), b.isMaxInclusive());
+	}
+
+	static VersionRangeImpl of(VersionRange range) {
+		if (range instanceof VersionRangeImpl) {
+			return (VersionRangeImpl) range;
+		}
+		return new VersionRangeImpl(range);
+	}
+
+	/** @return The index of the first interval which is not less than the given interval. */
+	private int lowerBound(VersionInterval element) {
+		int index = Arrays.binarySearch(intervals, element);
+		return index < 0 ? -index - 1 : index;
+	}
+
+	private VersionRangeImpl subRange(int from, int to) {
+		if (from >= to) {
+			return NONE;
+		}
+		return new VersionRangeImpl(Arrays.copyOfRange(intervals, from, to));
+	}
+
 	@Override
 	public VersionRangeImpl subSet(VersionInterval fromElement, VersionInterval toElement) {
-		return new VersionRangeImpl(intervals.subSet(fromElement, toElement));
+		return subRange(lowerBound(fromElement), lowerBound(toElement));
 	}
 
 	@Override
 	public VersionRangeImpl headSet(VersionInterval toElement) {
-		return new VersionRangeImpl(intervals.headSet(toElement));
+		return subRange(0, lowerBound(toElement));
 	}
 
 	@Override
 	public VersionRangeImpl tailSet(VersionInterval fromElement) {
-		return new VersionRangeImpl(intervals.tailSet(fromElement));
+		return subRange(lowerBound(fromElement), intervals.length);
 	}
 
 	@Override
 	public VersionInterval first() {
-		return intervals.first();
+		if (intervals.length == 0) {
+			throw new NoSuchElementException();
+		}
+		return intervals[0];
 	}
 
 	@Override
 	public VersionInterval last() {
-		return intervals.last();
+		if (intervals.length == 0) {
+			throw new NoSuchElementException();
+		}
+		return intervals[intervals.length - 1];
 	}
 }
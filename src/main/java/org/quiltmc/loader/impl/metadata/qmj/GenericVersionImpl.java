@@ -47,7 +47,9 @@ public class GenericVersionImpl implements Version.Raw {
 
 	@Override
 	public boolean equals(Object obj) {
-		if (obj instanceof Version.Raw) {
+		if (obj == this) {
+			return true;
+		} else if (obj instanceof Version.Raw) {
 			return raw.equals(((Version.Raw) obj).raw());
 		} else {
 			return false;
@@ -56,6 +58,9 @@ public class GenericVersionImpl implements Version.Raw {
 
 	@Override
 	public int compareTo(Version other) {
+		if (other == this) {
+			return 0;
+		}
 		return compareRaw(raw(), other.raw());
 	}
 
@@ -38,7 +38,7 @@ interface Icons {
 	 */
 	final class Single implements Icons {
 		@Nullable
-		private final String icon;
+		final String icon;
 
 		Single(@Nullable String icon) {
 			this.icon = icon;
@@ -55,7 +55,7 @@ interface Icons {
 	 * Implementation for a mod which has multiple icons of different sizes.
 	 */
 	final class Multiple implements Icons {
-		private final SortedMap<Integer, String> icons;
+		final SortedMap<Integer, String> icons;
 
 		Multiple(SortedMap<Integer, String> icons) {
 			this.icons = icons;
@@ -17,6 +17,7 @@
 package org.quiltmc.loader.impl.metadata.qmj;
 
 import java.io.IOException;
+import java.io.StringReader;
 import java.util.AbstractList;
 import java.util.AbstractMap;
 import java.util.ArrayList;
@@ -391,6 +392,127 @@ interface JsonLoaderValue extends LoaderValue {
 		}
 	}
 
+	/** An object or array that is kept as the json5 text it was read from, and only parsed when it's first used.
+	 * Used for the parts of a quilt.mod.json that loader itself never reads. */
+	final class LazyImpl implements JsonLoaderValue {
+		private final String location;
+		private final LType type;
+		final String keySource;
+		final String source;
+		final int line, column;
+		private volatile JsonLoaderValue parsed;
+
+		/** @param keySource The key of this value in the root object, exactly as it was written in the original file.
+		 * @param source The text of this value.
+		 * @param line The 1-based line in the original file that this value starts on.
+		 * @param column The 1-based column in the original file that this value starts on. */
+		LazyImpl(String location, LType type, String keySource, String source, int line, int column) {
+			this.location = location;
+			this.type = type;
+			this.keySource = keySource;
+			this.source = source;
+			this.line = line;
+			this.column = column;
+		}
+
+		JsonLoaderValue get() {
+			JsonLoaderValue value = parsed;
+			if (value == null) {
+				parsed = value = parse();
+			}
+			return value;
+		}
+
+		private JsonLoaderValue parse() {
+			// Wrap the value in an object with the same key, and pad it so it starts on the same line and column,
+			// so every nested location is the same as it would have been when reading the whole file.
+			StringBuilder sb = new StringBuilder(source.length() + keySource.length() + line + column + 8);
+			sb.append('{').append(keySource).append(':');
+			int lineStart = 0;
+			for (int i = 1; i < line; i++) {
+				sb.append('\n');
+				lineStart = sb.length();
+			}
+			// If the value starts on the first line then the original file's opening brace, key, and colon came before
+			// it on that line too, so the same key never takes up more columns than the padding needs
+			while (sb.length() - lineStart < column - 1) {
+				sb.append(' ');
+			}
+			sb.append(source).append('}');
+
+			try (JsonReader reader = JsonReader.json(new StringReader(sb.toString()))) {
+				reader.beginObject();
+				reader.nextName();
+				JsonLoaderValue value = read(reader);
+				if (value.type() != type) {
+					throw new IllegalStateException("Expected " + type + " but read " + value.type() + location);
+				}
+				return value;
+			} catch (IOException | ParseException e) {
+				// This was successfully skipped over when reading the whole file
+				throw new IllegalStateException("Failed to re-read " + location, e);
+			}
+		}
+
+		@Override
+		public LType type() {
+			return type;
+		}
+
+		@Override
+		public String location() {
+			return this.location;
+		}
+
+		@Override
+		public void write(JsonWriter writer) throws IOException {
+			get().write(writer);
+		}
+
+		@Override
+		public ObjectImpl asObject() {
+			return get().asObject();
+		}
+
+		@Override
+		public ArrayImpl asArray() {
+			return get().asArray();
+		}
+
+		@Override
+		public String asString() {
+			return get().asString();
+		}
+
+		@Override
+		public Number asNumber() {
+			return get().asNumber();
+		}
+
+		@Override
+		public boolean asBoolean() {
+			return get().asBoolean();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj instanceof LazyImpl) {
+				obj = ((LazyImpl) obj).get();
+			}
+			return get().equals(obj);
+		}
+
+		@Override
+		public int hashCode() {
+			return get().hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return get().toString();
+		}
+	}
+
 	final class NullImpl implements JsonLoaderValue {
 		private final String location;
 
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.metadata.qmj;
+
+import org.quiltmc.loader.impl.util.QuiltLoaderInternal;
+import org.quiltmc.loader.impl.util.QuiltLoaderInternalType;
+
+/** Finds where each value of a root json object starts and ends in the text of a document, without parsing them. The
+ * document must already have been validated by a {@link org.quiltmc.json5.JsonReader}, so this only has to be
+ * correct for valid documents. Comments are skipped, so this works for json5 as well. */
+@QuiltLoaderInternal(QuiltLoaderInternalType.NEW_INTERNAL)
+final class JsonValueScanner {
+
+	private final String text;
+	private int pos;
+
+	private JsonValueScanner(String text) {
+		this.text = text;
+	}
+
+	/** @param count The number of entries the root object is known to have.
+	 * @return The start (inclusive) and end (exclusive) of each key and then each value in the root object, four ints per
+	 *         entry in the order they appear in the text, or null if the text didn't contain exactly that many
+	 *         entries. */
+	static int[] findRootValues(String text, int count) {
+		return new JsonValueScanner(text).findRootValues(count);
+	}
+
+	private int[] findRootValues(int count) {
+		skipIgnored();
+		if (!consume('{')) {
+			return null;
+		}
+
+		int[] ranges = new int[count * 4];
+		int found = 0;
+
+		while (true) {
+			skipIgnored();
+			if (pos >= text.length()) {
+				return null;
+			}
+
+			char c = text.charAt(pos);
+			if (c == '}') {
+				break;
+			} else if (c == ',') {
+				pos++;
+				continue;
+			}
+
+			int keyStart = pos;
+			if (!skipKey()) {
+				return null;
+			}
+			int keyEnd = pos;
+			skipIgnored();
+			if (!consume(':')) {
+				return null;
+			}
+			skipIgnored();
+
+			int start = pos;
+			if (!skipValue() || found == count) {
+				return null;
+			}
+			ranges[found * 4] = keyStart;
+			ranges[found * 4 + 1] = keyEnd;
+			ranges[found * 4 + 2] = start;
+			ranges[found * 4 + 3] = pos;
+			found++;
+		}
+
+		return found == count ? ranges : null;
+	}
+
+	private boolean consume(char c) {
+		if (pos < text.length() && text.charAt(pos) == c) {
+			pos++;
+			return true;
+		}
+		return false;
+	}
+
+	/** Skips whitespace and comments. */
+	private void skipIgnored() {
+		while (pos < text.length()) {
+			char c = text.charAt(pos);
+			if (c == '/' && pos + 1 < text.length()) {
+				char next = text.charAt(pos + 1);
+				if (next == '/') {
+					int end = text.indexOf('\n', pos);
+					pos = end < 0 ? text.length() : end + 1;
+					continue;
+				} else if (next == '*') {
+					int end = text.indexOf("*/", pos + 2);
+					pos = end < 0 ? text.length() : end + 2;
+					continue;
+				}
+				return;
+			} else if (Character.isWhitespace(c) || Character.isSpaceChar(c) || c == '\uFEFF') {
+				pos++;
+			} else {
+				return;
+			}
+		}
+	}
+
+	private boolean skipKey() {
+		char c = text.charAt(pos);
+		if (c == '"' || c == '\'') {
+			return skipString();
+		}
+
+		// Unquoted json5 identifier
+		int start = pos;
+		while (pos < text.length()) {
+			c = text.charAt(pos);
+			if (c == ':' || c == '/' || Character.isWhitespace(c)) {
+				break;
+			}
+			pos++;
+		}
+		return pos > start;
+	}
+
+	private boolean skipString() {
+		char quote = text.charAt(pos++);
+		while (pos < text.length()) {
+			char c = text.charAt(pos++);
+			if (c == '\\') {
+				pos++;
+			} else if (c == quote) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean skipValue() {
+		if (pos >= text.length()) {
+			return false;
+		}
+
+		char c = text.charAt(pos);
+		if (c == '"' || c == '\'') {
+			return skipString();
+		} else if (c != '{' && c != '[') {
+			// Number, boolean, or null
+			int start = pos;
+			while (pos < text.length()) {
+				c = text.charAt(pos);
+				if (c == ',' || c == '}' || c == ']' || c == '/' || Character.isWhitespace(c)) {
+					break;
+				}
+				pos++;
+			}
+			return pos > start;
+		}
+
+		int depth = 0;
+		while (pos < text.length()) {
+			c = text.charAt(pos);
+			if (c == '"' || c == '\'') {
+				if (!skipString()) {
+					return false;
+				}
+				continue;
+			} else if (c == '/') {
+				int before = pos;
+				skipIgnored();
+				if (pos != before) {
+					continue;
+				}
+			} else if (c == '{' || c == '[') {
+				depth++;
+			} else if (c == '}' || c == ']') {
+				if (--depth == 0) {
+					pos++;
+					return true;
+				}
+			}
+			pos++;
+		}
+		return false;
+	}
+}
@@ -0,0 +1,725 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.metadata.qmj;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jetbrains.annotations.Nullable;
+import org.quiltmc.json5.exception.ParseException;
+import org.quiltmc.loader.api.LoaderValue;
+import org.quiltmc.loader.api.ModContributor;
+import org.quiltmc.loader.api.ModDependency;
+import org.quiltmc.loader.api.ModDependencyIdentifier;
+import org.quiltmc.loader.api.ModEnvironment;
+import org.quiltmc.loader.api.ModLicense;
+import org.quiltmc.loader.api.ModMetadata.ProvidedMod;
+import org.quiltmc.loader.api.Version;
+import org.quiltmc.loader.api.VersionInterval;
+import org.quiltmc.loader.api.VersionRange;
+import org.quiltmc.loader.api.plugin.ModMetadataExt.ModLoadType;
+import org.quiltmc.loader.api.plugin.QuiltPluginManager;
+import org.quiltmc.loader.api.plugin.gui.PluginGuiTreeNode;
+import org.quiltmc.loader.impl.QuiltLoaderImpl;
+import org.quiltmc.loader.impl.util.FileFingerprint;
+import org.quiltmc.loader.impl.util.QuiltLoaderInternal;
+import org.quiltmc.loader.impl.util.QuiltLoaderInternalType;
+import org.quiltmc.loader.impl.util.log.Log;
+import org.quiltmc.loader.impl.util.log.LogCategory;
+
+/** Persistent cache of read {@code quilt.mod.json} files, keyed by the {@link FileFingerprint} of the file that
+ * contains them. This stores both the parsed json tree (including the location of every value, for custom values) and
+ * the {@link InternalModMetadata} built from it, so an unchanged mod doesn't need to have its quilt.mod.json read or
+ * interpreted again. Metadata which produced warnings is not stored, and is instead re-read from the cached tree every
+ * launch, so the warnings are reported in exactly the same way as an uncached read.
+ * <p>
+ * Only entries that were used in the current launch are written back, so mods which have been removed (or changed)
+ * drop out of the cache one by one, without invalidating anything else. */
+@QuiltLoaderInternal(QuiltLoaderInternalType.NEW_INTERNAL)
+public final class ModMetadataCache {
+
+	private static final byte[] HEADER = "quiltmetacachev4".getBytes(StandardCharsets.UTF_8);
+
+	private static final byte TAG_NULL = 0;
+	private static final byte TAG_BOOLEAN = 1;
+	private static final byte TAG_NUMBER = 2;
+	private static final byte TAG_STRING = 3;
+	private static final byte TAG_ARRAY = 4;
+	private static final byte TAG_OBJECT = 5;
+	/** A {@link JsonLoaderValue.LazyImpl}, which is stored as its text so it doesn't need to be parsed. */
+	private static final byte TAG_LAZY = 6;
+
+	private static final byte NUMBER_INT = 0;
+	private static final byte NUMBER_LONG = 1;
+	private static final byte NUMBER_DOUBLE = 2;
+	private static final byte NUMBER_FLOAT = 3;
+	private static final byte NUMBER_BIG_INTEGER = 4;
+	private static final byte NUMBER_BIG_DECIMAL = 5;
+
+	private static final byte DEPENDENCY_ONLY = 0;
+	private static final byte DEPENDENCY_ANY = 1;
+	private static final byte DEPENDENCY_ALL = 2;
+
+	private static final byte ICONS_SINGLE = 0;
+	private static final byte ICONS_MULTIPLE = 1;
+
+	private final Path file;
+	private final Map<String, CacheEntry> previous;
+	private final Map<String, CacheEntry> current = new ConcurrentHashMap<>();
+	private volatile boolean changed = false;
+
+	private ModMetadataCache(Path file, Map<String, CacheEntry> previous) {
+		this.file = file;
+		this.previous = previous;
+	}
+
+	/** Reads the cache from the given file. If the file is missing, or can't be read, then an empty cache is returned
+	 * instead. */
+	public static ModMetadataCache load(Path file) {
+		if (!Files.isRegularFile(file)) {
+			return new ModMetadataCache(file, Collections.emptyMap());
+		}
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			byte[] header = new byte[HEADER.length];
+			in.readFully(header);
+			if (!Arrays.equals(header, HEADER) || !QuiltLoaderImpl.VERSION.equals(in.readUTF())) {
+				Log.info(LogCategory.CACHE, "Not reusing the mod metadata cache since it was written by a different loader version");
+				return new ModMetadataCache(file, Collections.emptyMap());
+			}
+
+			int count = in.readInt();
+			Map<String, CacheEntry> entries = new HashMap<>();
+			for (int i = 0; i < count; i++) {
+				String key = in.readUTF();
+				FileFingerprint fingerprint = FileFingerprint.read(in);
+				LoaderValue root = readValue(in);
+				if (!(root instanceof JsonLoaderValue.ObjectImpl)) {
+					throw new IOException("Expected an object at the root of " + key + ", but got " + root);
+				}
+				JsonLoaderValue.ObjectImpl rootObj = (JsonLoaderValue.ObjectImpl) root;
+				V1ModMetadataBuilder metadata = in.readBoolean() ? readMetadata(in, rootObj) : null;
+				entries.put(key, new CacheEntry(fingerprint, rootObj, metadata));
+			}
+			return new ModMetadataCache(file, entries);
+		} catch (IOException e) {
+			Log.warn(LogCategory.CACHE, "Failed to read the mod metadata cache " + file + ", ignoring it", e);
+			return new ModMetadataCache(file, Collections.emptyMap());
+		}
+	}
+
+	/** Reads the given {@code quilt.mod.json}, reusing the previously read metadata if the fingerprint matches.
+	 *
+	 * @param qmj The quilt.mod.json file.
+	 * @param key A string that uniquely identifies the quilt.mod.json, including any outer files it's contained in.
+	 * @param fingerprint The fingerprint of the real file that contains the quilt.mod.json, or null if it can't be
+	 *            cached. */
+	public InternalModMetadata read(Path qmj, String key, FileFingerprint fingerprint, QuiltPluginManager manager,
+		PluginGuiTreeNode warningNode) throws IOException, ParseException {
+
+		if (fingerprint == null) {
+			return ModMetadataReader.read(qmj, manager, warningNode);
+		}
+
+		CacheEntry entry = previous.get(key);
+		JsonLoaderValue.ObjectImpl root;
+		if (entry != null && entry.fingerprint.equals(fingerprint)) {
+			if (entry.metadata != null) {
+				current.put(key, entry);
+				return entry.metadata.build();
+			}
+			root = entry.root;
+		} else {
+			try (InputStream stream = Files.newInputStream(qmj)) {
+				root = ModMetadataReader.readRoot(stream);
+			}
+			changed = true;
+		}
+
+		AtomicBoolean warned = new AtomicBoolean();
+		InternalModMetadata metadata = ModMetadataReader.read(root, qmj, manager, warningNode, warned);
+		V1ModMetadataBuilder cached = null;
+		if (!warned.get() && metadata instanceof V1ModMetadataImpl) {
+			cached = toBuilder((V1ModMetadataImpl) metadata);
+		}
+		current.put(key, new CacheEntry(fingerprint, root, cached));
+		return metadata;
+	}
+
+	/** Writes every entry that was read since this cache was loaded back to the file, if anything has changed. */
+	public void save() {
+		if (!changed && current.size() == previous.size()) {
+			return;
+		}
+
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+		try {
+			Files.createDirectories(file.getParent());
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+				out.write(HEADER);
+				out.writeUTF(QuiltLoaderImpl.VERSION);
+				List<Map.Entry<String, CacheEntry>> entries = new ArrayList<>(current.entrySet());
+				out.writeInt(entries.size());
+				for (Map.Entry<String, CacheEntry> entry : entries) {
+					out.writeUTF(entry.getKey());
+					entry.getValue().fingerprint.write(out);
+					writeValue(out, entry.getValue().root);
+					V1ModMetadataBuilder metadata = entry.getValue().metadata;
+					out.writeBoolean(metadata != null);
+					if (metadata != null) {
+						writeMetadata(out, metadata);
+					}
+				}
+			}
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			Log.warn(LogCategory.CACHE, "Failed to write the mod metadata cache to " + file, e);
+		}
+	}
+
+	/** Copies every field of the given metadata into a builder, which {@link V1ModMetadataBuilder#build()} turns back
+	 * into an equal metadata. */
+	private static V1ModMetadataBuilder toBuilder(V1ModMetadataImpl metadata) {
+		V1ModMetadataBuilder builder = new V1ModMetadataBuilder();
+		builder.setRoot((JsonLoaderValue.ObjectImpl) metadata.values());
+		builder.setId(metadata.id());
+		builder.setGroup(metadata.group());
+		builder.setVersion(metadata.version());
+		builder.setName(metadata.name());
+		builder.setDescription(metadata.description());
+		builder.licenses.addAll(metadata.licenses());
+		builder.contributors.addAll(metadata.contributors());
+		builder.contactInformation.putAll(metadata.contactInfo());
+		builder.depends.addAll(metadata.depends());
+		builder.breaks.addAll(metadata.breaks());
+		builder.setIntermediateMappings(metadata.intermediateMappings());
+		builder.setIcons(metadata.icons());
+		builder.setLoadType(metadata.loadType());
+		builder.provides.addAll(metadata.provides());
+		for (Map.Entry<String, Collection<AdapterLoadableClassEntry>> entry : metadata.getEntrypoints().entrySet()) {
+			builder.entrypoints.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+		}
+		builder.jars.addAll(metadata.jars());
+		builder.languageAdapters.putAll(metadata.languageAdapters());
+		builder.repositories.addAll(metadata.repositories());
+		builder.mixins.addAll(metadata.mixins(null));
+		builder.accessWideners.addAll(metadata.accessWideners());
+		builder.setEnv(metadata.environment());
+		return builder;
+	}
+
+	private static void writeMetadata(DataOutput to, V1ModMetadataBuilder metadata) throws IOException {
+		writeString(to, metadata.id);
+		writeString(to, metadata.group);
+		writeVersion(to, metadata.version);
+		writeNullableString(to, metadata.name);
+		writeNullableString(to, metadata.description);
+
+		to.writeInt(metadata.licenses.size());
+		for (ModLicense license : metadata.licenses) {
+			writeString(to, license.name());
+			writeString(to, license.id());
+			writeString(to, license.url());
+			writeNullableString(to, license.description());
+		}
+
+		to.writeInt(metadata.contributors.size());
+		for (ModContributor contributor : metadata.contributors) {
+			writeString(to, contributor.name());
+			writeStrings(to, contributor.roles());
+		}
+
+		writeStringMap(to, metadata.contactInformation);
+		writeDependencies(to, metadata.depends);
+		writeDependencies(to, metadata.breaks);
+		writeNullableString(to, metadata.intermediateMappings);
+
+		if (metadata.icons instanceof Icons.Multiple) {
+			to.writeByte(ICONS_MULTIPLE);
+			Map<Integer, String> icons = ((Icons.Multiple) metadata.icons).icons;
+			to.writeInt(icons.size());
+			for (Map.Entry<Integer, String> entry : icons.entrySet()) {
+				to.writeInt(entry.getKey());
+				writeString(to, entry.getValue());
+			}
+		} else {
+			to.writeByte(ICONS_SINGLE);
+			writeNullableString(to, metadata.icons == null ? null : ((Icons.Single) metadata.icons).icon);
+		}
+
+		to.writeUTF(metadata.loadType.name());
+
+		to.writeInt(metadata.provides.size());
+		for (ProvidedMod provided : metadata.provides) {
+			writeString(to, provided.group());
+			writeString(to, provided.id());
+			writeVersion(to, provided.version());
+		}
+
+		to.writeInt(metadata.entrypoints.size());
+		for (Map.Entry<String, List<AdapterLoadableClassEntry>> entry : metadata.entrypoints.entrySet()) {
+			writeString(to, entry.getKey());
+			to.writeInt(entry.getValue().size());
+			for (AdapterLoadableClassEntry entrypoint : entry.getValue()) {
+				writeString(to, entrypoint.getAdapter());
+				writeString(to, entrypoint.getValue());
+			}
+		}
+
+		writeStrings(to, metadata.jars);
+		writeStringMap(to, metadata.languageAdapters);
+		writeStrings(to, metadata.repositories);
+		writeStrings(to, metadata.mixins);
+		writeStrings(to, metadata.accessWideners);
+		to.writeUTF(metadata.env.name());
+	}
+
+	private static V1ModMetadataBuilder readMetadata(DataInput from, JsonLoaderValue.ObjectImpl root) throws IOException {
+		V1ModMetadataBuilder metadata = new V1ModMetadataBuilder();
+		metadata.setRoot(root);
+		metadata.setId(readString(from));
+		metadata.setGroup(readString(from));
+		metadata.setVersion(readVersion(from));
+		metadata.setName(readNullableString(from));
+		metadata.setDescription(readNullableString(from));
+
+		int licenses = from.readInt();
+		for (int i = 0; i < licenses; i++) {
+			metadata.licenses.add(new ModLicenseImpl(readString(from), readString(from), readString(from), readNullableString(from)));
+		}
+
+		int contributors = from.readInt();
+		for (int i = 0; i < contributors; i++) {
+			String name = readString(from);
+			metadata.contributors.add(new ModContributorImpl(name, readStrings(from, new ArrayList<>())));
+		}
+
+		readStringMap(from, metadata.contactInformation);
+		readDependencies(from, metadata.depends);
+		readDependencies(from, metadata.breaks);
+		metadata.setIntermediateMappings(readNullableString(from));
+
+		byte iconsType = from.readByte();
+		switch (iconsType) {
+			case ICONS_SINGLE:
+				metadata.setIcons(new Icons.Single(readNullableString(from)));
+				break;
+			case ICONS_MULTIPLE: {
+				int count = from.readInt();
+				SortedMap<Integer, String> icons = new TreeMap<>();
+				for (int i = 0; i < count; i++) {
+					int size = from.readInt();
+					icons.put(size, readString(from));
+				}
+				metadata.setIcons(new Icons.Multiple(icons));
+				break;
+			}
+			default:
+				throw new IOException("Unknown icons type " + iconsType);
+		}
+
+		metadata.setLoadType(readEnum(from, ModLoadType.class));
+
+		int provides = from.readInt();
+		for (int i = 0; i < provides; i++) {
+			metadata.provides.add(new ProvidedModImpl(readString(from), readString(from), readVersion(from)));
+		}
+
+		int entrypointKeys = from.readInt();
+		for (int i = 0; i < entrypointKeys; i++) {
+			String key = readString(from);
+			int count = from.readInt();
+			List<AdapterLoadableClassEntry> entrypoints = new ArrayList<>(count);
+			for (int j = 0; j < count; j++) {
+				entrypoints.add(new AdapterLoadableClassEntry(readString(from), readString(from)));
+			}
+			metadata.entrypoints.put(key, entrypoints);
+		}
+
+		readStrings(from, metadata.jars);
+		readStringMap(from, metadata.languageAdapters);
+		readStrings(from, metadata.repositories);
+		readStrings(from, metadata.mixins);
+		readStrings(from, metadata.accessWideners);
+		metadata.setEnv(readEnum(from, ModEnvironment.class));
+		return metadata;
+	}
+
+	private static void writeDependencies(DataOutput to, Collection<ModDependency> dependencies) throws IOException {
+		to.writeInt(dependencies.size());
+		for (ModDependency dependency : dependencies) {
+			writeDependency(to, dependency);
+		}
+	}
+
+	private static void readDependencies(DataInput from, List<ModDependency> dependencies) throws IOException {
+		int count = from.readInt();
+		for (int i = 0; i < count; i++) {
+			dependencies.add(readDependency(from));
+		}
+	}
+
+	private static void writeDependency(DataOutput to, ModDependency dependency) throws IOException {
+		if (dependency instanceof ModDependency.Only) {
+			ModDependency.Only only = (ModDependency.Only) dependency;
+			to.writeByte(DEPENDENCY_ONLY);
+			writeString(to, only.toString());
+			writeString(to, only.id().mavenGroup());
+			writeString(to, only.id().id());
+			writeVersionRange(to, only.versionRange());
+			writeString(to, only.reason());
+			to.writeBoolean(only.optional());
+			ModDependency unless = only.unless();
+			to.writeBoolean(unless != null);
+			if (unless != null) {
+				writeDependency(to, unless);
+			}
+		} else if (dependency instanceof ModDependencyImpl.CollectionImpl) {
+			ModDependencyImpl.CollectionImpl collection = (ModDependencyImpl.CollectionImpl) dependency;
+			to.writeByte(dependency instanceof ModDependency.Any ? DEPENDENCY_ANY : DEPENDENCY_ALL);
+			writeString(to, collection.toString());
+			to.writeInt(collection.size());
+			for (ModDependency.Only only : collection) {
+				writeDependency(to, only);
+			}
+		} else {
+			throw new IOException("Unknown dependency type " + dependency.getClass());
+		}
+	}
+
+	private static ModDependency readDependency(DataInput from) throws IOException {
+		byte type = from.readByte();
+		String location = readString(from);
+		switch (type) {
+			case DEPENDENCY_ONLY: {
+				ModDependencyIdentifier id = new ModDependencyIdentifierImpl(readString(from), readString(from));
+				VersionRange range = readVersionRange(from);
+				String reason = readString(from);
+				boolean optional = from.readBoolean();
+				ModDependency unless = from.readBoolean() ? readDependency(from) : null;
+				return new ModDependencyImpl.OnlyImpl(location, id, range, reason, optional, unless);
+			}
+			case DEPENDENCY_ANY:
+			case DEPENDENCY_ALL: {
+				int count = from.readInt();
+				List<ModDependency> conditions = new ArrayList<>(count);
+				for (int i = 0; i < count; i++) {
+					conditions.add(readDependency(from));
+				}
+				if (type == DEPENDENCY_ANY) {
+					return new ModDependencyImpl.AnyImpl(location, conditions);
+				} else {
+					return new ModDependencyImpl.AllImpl(location, conditions);
+				}
+			}
+			default:
+				throw new IOException("Unknown dependency type " + type);
+		}
+	}
+
+	private static void writeVersionRange(DataOutput to, VersionRange range) throws IOException {
+		to.writeInt(range.size());
+		for (VersionInterval interval : range) {
+			writeNullableVersion(to, interval.getMin());
+			to.writeBoolean(interval.isMinInclusive());
+			writeNullableVersion(to, interval.getMax());
+			to.writeBoolean(interval.isMaxInclusive());
+		}
+	}
+
+	private static VersionRange readVersionRange(DataInput from) throws IOException {
+		int count = from.readInt();
+		List<VersionInterval> intervals = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			Version min = readNullableVersion(from);
+			boolean minInclusive = from.readBoolean();
+			Version max = readNullableVersion(from);
+			boolean maxInclusive = from.readBoolean();
+			intervals.add(VersionInterval.of(min, minInclusive, max, maxInclusive));
+		}
+		return VersionRange.ofIntervals(intervals);
+	}
+
+	private static void writeVersion(DataOutput to, Version version) throws IOException {
+		writeString(to, version.raw());
+	}
+
+	private static Version readVersion(DataInput from) throws IOException {
+		return Version.of(readString(from));
+	}
+
+	private static void writeNullableVersion(DataOutput to, @Nullable Version version) throws IOException {
+		to.writeBoolean(version != null);
+		if (version != null) {
+			writeVersion(to, version);
+		}
+	}
+
+	private static @Nullable Version readNullableVersion(DataInput from) throws IOException {
+		return from.readBoolean() ? readVersion(from) : null;
+	}
+
+	private static <E extends Enum<E>> E readEnum(DataInput from, Class<E> type) throws IOException {
+		String name = from.readUTF();
+		try {
+			return Enum.valueOf(type, name);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Unknown " + type.getSimpleName() + " " + name, e);
+		}
+	}
+
+	private static void writeStrings(DataOutput to, Collection<String> strings) throws IOException {
+		to.writeInt(strings.size());
+		for (String str : strings) {
+			writeString(to, str);
+		}
+	}
+
+	private static List<String> readStrings(DataInput from, List<String> to) throws IOException {
+		int count = from.readInt();
+		for (int i = 0; i < count; i++) {
+			to.add(readString(from));
+		}
+		return to;
+	}
+
+	private static void writeStringMap(DataOutput to, Map<String, String> map) throws IOException {
+		to.writeInt(map.size());
+		for (Map.Entry<String, String> entry : map.entrySet()) {
+			writeString(to, entry.getKey());
+			writeString(to, entry.getValue());
+		}
+	}
+
+	private static void readStringMap(DataInput from, Map<String, String> to) throws IOException {
+		int count = from.readInt();
+		for (int i = 0; i < count; i++) {
+			String key = readString(from);
+			to.put(key, readString(from));
+		}
+	}
+
+	private static void writeValue(DataOutput to, LoaderValue value) throws IOException {
+		if (value instanceof JsonLoaderValue.LazyImpl) {
+			JsonLoaderValue.LazyImpl lazy = (JsonLoaderValue.LazyImpl) value;
+			to.writeByte(TAG_LAZY);
+			writeString(to, lazy.location());
+			to.writeUTF(lazy.type().name());
+			writeString(to, lazy.keySource);
+			writeString(to, lazy.source);
+			to.writeInt(lazy.line);
+			to.writeInt(lazy.column);
+			return;
+		}
+
+		switch (value.type()) {
+			case NULL: {
+				to.writeByte(TAG_NULL);
+				writeString(to, value.location());
+				break;
+			}
+			case BOOLEAN: {
+				to.writeByte(TAG_BOOLEAN);
+				writeString(to, value.location());
+				to.writeBoolean(value.asBoolean());
+				break;
+			}
+			case NUMBER: {
+				to.writeByte(TAG_NUMBER);
+				writeString(to, value.location());
+				writeNumber(to, value.asNumber());
+				break;
+			}
+			case STRING: {
+				to.writeByte(TAG_STRING);
+				writeString(to, value.location());
+				writeString(to, value.asString());
+				break;
+			}
+			case ARRAY: {
+				to.writeByte(TAG_ARRAY);
+				writeString(to, value.location());
+				LoaderValue.LArray array = value.asArray();
+				to.writeInt(array.size());
+				for (LoaderValue element : array) {
+					writeValue(to, element);
+				}
+				break;
+			}
+			case OBJECT: {
+				to.writeByte(TAG_OBJECT);
+				writeString(to, value.location());
+				LoaderValue.LObject object = value.asObject();
+				to.writeInt(object.size());
+				for (Map.Entry<String, LoaderValue> entry : object.entrySet()) {
+					writeString(to, entry.getKey());
+					writeValue(to, entry.getValue());
+				}
+				break;
+			}
+			default:
+				throw new IllegalStateException("Unknown LoaderValue type " + value.type());
+		}
+	}
+
+	private static JsonLoaderValue readValue(DataInput from) throws IOException {
+		byte tag = from.readByte();
+		String location = readString(from);
+		switch (tag) {
+			case TAG_NULL:
+				return new JsonLoaderValue.NullImpl(location);
+			case TAG_BOOLEAN:
+				return new JsonLoaderValue.BooleanImpl(location, from.readBoolean());
+			case TAG_NUMBER:
+				return new JsonLoaderValue.NumberImpl(location, readNumber(from));
+			case TAG_STRING:
+				return new JsonLoaderValue.StringImpl(location, readString(from));
+			case TAG_ARRAY: {
+				int size = from.readInt();
+				List<LoaderValue> elements = new ArrayList<>(size);
+				for (int i = 0; i < size; i++) {
+					elements.add(readValue(from));
+				}
+				return new JsonLoaderValue.ArrayImpl(location, elements);
+			}
+			case TAG_OBJECT: {
+				int size = from.readInt();
+				Map<String, LoaderValue> elements = new LinkedHashMap<>();
+				for (int i = 0; i < size; i++) {
+					String key = readString(from);
+					elements.put(key, readValue(from));
+				}
+				return new JsonLoaderValue.ObjectImpl(location, elements);
+			}
+			case TAG_LAZY: {
+				LoaderValue.LType type = readEnum(from, LoaderValue.LType.class);
+				String keySource = readString(from);
+				String source = readString(from);
+				int line = from.readInt();
+				int column = from.readInt();
+				return new JsonLoaderValue.LazyImpl(location, type, keySource, source, line, column);
+			}
+			default:
+				throw new IOException("Unknown value tag " + tag);
+		}
+	}
+
+	private static void writeNumber(DataOutput to, Number number) throws IOException {
+		if (number instanceof Integer || number instanceof Short || number instanceof Byte) {
+			to.writeByte(NUMBER_INT);
+			to.writeInt(number.intValue());
+		} else if (number instanceof Long) {
+			to.writeByte(NUMBER_LONG);
+			to.writeLong(number.longValue());
+		} else if (number instanceof Double) {
+			to.writeByte(NUMBER_DOUBLE);
+			to.writeDouble(number.doubleValue());
+		} else if (number instanceof Float) {
+			to.writeByte(NUMBER_FLOAT);
+			to.writeFloat(number.floatValue());
+		} else if (number instanceof BigInteger) {
+			to.writeByte(NUMBER_BIG_INTEGER);
+			writeString(to, number.toString());
+		} else {
+			// Includes any lazily parsed numbers
+			to.writeByte(NUMBER_BIG_DECIMAL);
+			writeString(to, number.toString());
+		}
+	}
+
+	private static Number readNumber(DataInput from) throws IOException {
+		byte type = from.readByte();
+		switch (type) {
+			case NUMBER_INT:
+				return from.readInt();
+			case NUMBER_LONG:
+				return from.readLong();
+			case NUMBER_DOUBLE:
+				return from.readDouble();
+			case NUMBER_FLOAT:
+				return from.readFloat();
+			case NUMBER_BIG_INTEGER:
+				return new BigInteger(readString(from));
+			case NUMBER_BIG_DECIMAL:
+				return new BigDecimal(readString(from));
+			default:
+				throw new IOException("Unknown number type " + type);
+		}
+	}
+
+	/** Like {@link DataOutput#writeUTF(String)}, but without the 64k limit (descriptions can be very long). */
+	private static void writeString(DataOutput to, String str) throws IOException {
+		byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+		to.writeInt(bytes.length);
+		to.write(bytes);
+	}
+
+	private static String readString(DataInput from) throws IOException {
+		byte[] bytes = new byte[from.readInt()];
+		from.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeNullableString(DataOutput to, @Nullable String str) throws IOException {
+		to.writeBoolean(str != null);
+		if (str != null) {
+			writeString(to, str);
+		}
+	}
+
+	private static @Nullable String readNullableString(DataInput from) throws IOException {
+		return from.readBoolean() ? readString(from) : null;
+	}
+
+	static final class CacheEntry {
+		final FileFingerprint fingerprint;
+		final JsonLoaderValue.ObjectImpl root;
+		/** Null if reading the metadata produced warnings, or failed. */
+		final @Nullable V1ModMetadataBuilder metadata;
+
+		CacheEntry(FileFingerprint fingerprint, JsonLoaderValue.ObjectImpl root, @Nullable V1ModMetadataBuilder metadata) {
+			this.fingerprint = fingerprint;
+			this.root = root;
+			this.metadata = metadata;
+		}
+	}
+}
@@ -19,13 +19,24 @@ package org.quiltmc.loader.impl.metadata.qmj;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.jetbrains.annotations.Nullable;
 import org.quiltmc.json5.JsonReader;
 import org.quiltmc.json5.JsonToken;
+import org.quiltmc.json5.exception.MalformedSyntaxException;
 import org.quiltmc.json5.exception.ParseException;
 import org.quiltmc.loader.api.LoaderValue;
 import org.quiltmc.loader.api.plugin.QuiltPluginManager;
@@ -45,6 +56,12 @@ public final class ModMetadataReader {
 	 */
 	private static final String SCHEMA_VERSION = "schema_version";
 
+	/** The keys in the root object that are read by {@link V1ModMetadataReader}, and so are always parsed straight
+	 * away. */
+	private static final Set<String> INTERPRETED_KEYS = new HashSet<>(Arrays.asList(
+		SCHEMA_VERSION, "quilt_loader", "mixin", "minecraft", "access_widener"
+	));
+
 	public static InternalModMetadata read(Path json) throws IOException, ParseException {
 		return read(json, null, null);
 	}
@@ -67,18 +84,56 @@ public final class ModMetadataReader {
 	 * @throws IOException if there are any issues reading the json file
 	 * @throws ParseException if the json file has errors in the quilt.mod.json specification
 	 */
-	@SuppressWarnings("SwitchStatementWithTooFewBranches") // Switch statement intentionally used for future expandability
 	public static InternalModMetadata read(InputStream json, Path path, QuiltPluginManager manager, PluginGuiTreeNode warningNode) throws IOException, ParseException {
-		JsonLoaderValue value;
+		return read(readRoot(json), path, manager, warningNode);
+	}
+
+	/** Parses the json in the given stream, without interpreting it as a {@code quilt.mod.json}. Only the values
+	 * that loader reads are fully parsed: every other object or array in the root is kept as a {@link
+	 * JsonLoaderValue.LazyImpl}, since discovery reads thousands of these files, and most never have their custom
+	 * values looked at.
+	 *
+	 * @return The root object
+	 * @throws ParseException if the json is malformed, or the root is not an object */
+	static JsonLoaderValue.ObjectImpl readRoot(InputStream json) throws IOException, ParseException {
+		String text = readText(json);
+		String rootLocation;
+		List<String> keys = new ArrayList<>();
+		List<String> locations = new ArrayList<>();
+		List<LoaderValue.LType> types = new ArrayList<>();
+		List<JsonLoaderValue> values = new ArrayList<>();
 
-		try (JsonReader reader = JsonReader.json(new InputStreamReader(json, StandardCharsets.UTF_8))) {
+		try (JsonReader reader = JsonReader.json(new StringReader(text))) {
 			// Root must be an object
 			if (reader.peek() != JsonToken.BEGIN_OBJECT) {
 				throw new ParseException(reader, "A quilt.mod.json must have an object at the root");
 			}
 
-			// Read the entire file
-			value = JsonLoaderValue.read(reader);
+			rootLocation = reader.locationString();
+			reader.beginObject();
+
+			while (reader.hasNext()) {
+				if (reader.peek() != JsonToken.NAME) {
+					throw new MalformedSyntaxException(reader, "Entry in object had an entry with no key");
+				}
+
+				String key = reader.nextName();
+				JsonToken token = reader.peek();
+				keys.add(key);
+
+				if (!INTERPRETED_KEYS.contains(key) && (token == JsonToken.BEGIN_OBJECT || token == JsonToken.BEGIN_ARRAY)) {
+					locations.add(reader.locationString());
+					types.add(token == JsonToken.BEGIN_OBJECT ? LoaderValue.LType.OBJECT : LoaderValue.LType.ARRAY);
+					values.add(null);
+					reader.skipValue();
+				} else {
+					locations.add(null);
+					types.add(null);
+					values.add(JsonLoaderValue.read(reader));
+				}
+			}
+
+			reader.endObject();
 
 			// Make sure we don't have anything else lurking at the bottom of the document
 			if (reader.peek() != JsonToken.END_DOCUMENT) {
@@ -86,8 +141,68 @@ public final class ModMetadataReader {
 			}
 		}
 
-		// We have asserted above we have an object
-		JsonLoaderValue.ObjectImpl root = value.asObject();
+		int[] ranges = values.contains(null) ? JsonValueScanner.findRootValues(text, keys.size()) : null;
+		int line = 1;
+		int lineStart = 0;
+		int scanned = 0;
+		Map<String, LoaderValue> elements = new LinkedHashMap<>();
+
+		for (int i = 0; i < keys.size(); i++) {
+			JsonLoaderValue value = values.get(i);
+
+			if (value == null) {
+				if (ranges == null) {
+					// Shouldn't happen for anything the reader accepted, but reading the whole file is always correct
+					return readFullRoot(text);
+				}
+
+				int start = ranges[i * 4 + 2];
+				for (; scanned < start; scanned++) {
+					if (text.charAt(scanned) == '\n') {
+						line++;
+						lineStart = scanned + 1;
+					}
+				}
+
+				String keySource = text.substring(ranges[i * 4], ranges[i * 4 + 1]);
+				String source = text.substring(start, ranges[i * 4 + 3]);
+				value = new JsonLoaderValue.LazyImpl(
+					locations.get(i), types.get(i), keySource, source, line, start - lineStart + 1
+				);
+			}
+
+			elements.put(keys.get(i), value);
+		}
+
+		return new JsonLoaderValue.ObjectImpl(rootLocation, elements);
+	}
+
+	private static JsonLoaderValue.ObjectImpl readFullRoot(String text) throws IOException, ParseException {
+		try (JsonReader reader = JsonReader.json(new StringReader(text))) {
+			return JsonLoaderValue.read(reader).asObject();
+		}
+	}
+
+	private static String readText(InputStream json) throws IOException {
+		try (Reader reader = new InputStreamReader(json, StandardCharsets.UTF_8)) {
+			StringBuilder sb = new StringBuilder();
+			char[] buffer = new char[4096];
+			int read;
+			while ((read = reader.read(buffer)) > 0) {
+				sb.append(buffer, 0, read);
+			}
+			return sb.toString();
+		}
+	}
+
+	/** Reads a {@code quilt.mod.json} from an already-parsed root object. */
+	static InternalModMetadata read(JsonLoaderValue.ObjectImpl root, Path path, QuiltPluginManager manager, PluginGuiTreeNode warningNode) throws ParseException {
+		return read(root, path, manager, warningNode, null);
+	}
+
+	/** @param warned Set to true if any warnings were logged or added to the gui while reading. */
+	@SuppressWarnings("SwitchStatementWithTooFewBranches") // Switch statement intentionally used for future expandability
+	static InternalModMetadata read(JsonLoaderValue.ObjectImpl root, Path path, QuiltPluginManager manager, PluginGuiTreeNode warningNode, @Nullable AtomicBoolean warned) throws ParseException {
 		@Nullable JsonLoaderValue schemaVersion = root.get(SCHEMA_VERSION);
 
 		if (schemaVersion == null) {
@@ -102,7 +217,7 @@ public final class ModMetadataReader {
 
 		switch (version) {
 		case 1:
-			return V1ModMetadataReader.read(root, path, manager, warningNode);
+			return V1ModMetadataReader.read(root, path, manager, warningNode, warned);
 		default:
 			if (version < 0) {
 				throw parseException(schemaVersion, "schema_version must not be negative");
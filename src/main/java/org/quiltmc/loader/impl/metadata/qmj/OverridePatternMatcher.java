@@ -0,0 +1,123 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.metadata.qmj;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.quiltmc.loader.impl.metadata.qmj.QuiltOverrides.ModOverrides;
+import org.quiltmc.loader.impl.util.QuiltLoaderInternal;
+import org.quiltmc.loader.impl.util.QuiltLoaderInternalType;
+
+/** Finds every {@link QuiltOverrides#patternOverrides pattern override} that matches a mod id. Literal ids are
+ * looked up in a map, and every regex is joined into a single alternation, so ids which don't match any pattern
+ * (which is almost all of them) only need to be matched once. Matches are always returned in the order the overrides
+ * were declared in. */
+@QuiltLoaderInternal(QuiltLoaderInternalType.NEW_INTERNAL)
+final class OverridePatternMatcher {
+
+	/** Backreferences are numbered across the whole pattern, so they'd refer to the wrong group once combined. */
+	private static final Pattern BACKREFERENCE = Pattern.compile("\\\\([0-9]|k<)");
+
+	/** Every override, in declaration order. */
+	private final List<ModOverrides> values = new ArrayList<>();
+
+	/** Indices into {@link #values}, in ascending order. */
+	private final Map<String, List<Integer>> literals = new HashMap<>();
+	private final List<Pattern> patterns = new ArrayList<>();
+	private final List<Integer> patternIndices = new ArrayList<>();
+
+	/** Matches if any of {@link #patterns} match, or null if they couldn't be combined. */
+	private final Pattern combined;
+
+	OverridePatternMatcher(Map<Pattern, ModOverrides> overrides) {
+		StringBuilder sb = new StringBuilder();
+		boolean canCombine = true;
+
+		for (Map.Entry<Pattern, ModOverrides> entry : overrides.entrySet()) {
+			Pattern pattern = entry.getKey();
+			int index = values.size();
+			values.add(entry.getValue());
+
+			if (pattern.flags() == Pattern.LITERAL) {
+				literals.computeIfAbsent(pattern.pattern(), k -> new ArrayList<>()).add(index);
+				continue;
+			}
+
+			patterns.add(pattern);
+			patternIndices.add(index);
+
+			if (pattern.flags() != 0 || BACKREFERENCE.matcher(pattern.pattern()).find()) {
+				canCombine = false;
+			} else {
+				if (sb.length() > 0) {
+					sb.append('|');
+				}
+				sb.append("(?:").append(pattern.pattern()).append(')');
+			}
+		}
+
+		Pattern joined = null;
+		if (canCombine && patterns.size() > 1) {
+			try {
+				joined = Pattern.compile(sb.toString());
+			} catch (PatternSyntaxException e) {
+				// Some pattern relies on its surroundings, so just check each one
+			}
+		}
+		this.combined = joined;
+	}
+
+	/** @return Every override whose id or pattern matches the given mod id, in the order they were declared. */
+	List<ModOverrides> match(String modId) {
+		List<Integer> literal = literals.get(modId);
+		if (literal == null) {
+			literal = Collections.emptyList();
+		}
+
+		List<ModOverrides> result = new ArrayList<>();
+
+		if (patterns.isEmpty() || combined != null && !combined.matcher(modId).matches()) {
+			for (int index : literal) {
+				result.add(values.get(index));
+			}
+			return result;
+		}
+
+		// Both lists of indices are ascending, so merge them to keep the declaration order
+		int next = 0;
+		for (int i = 0; i < patterns.size(); i++) {
+			if (!patterns.get(i).matcher(modId).matches()) {
+				continue;
+			}
+			int index = patternIndices.get(i);
+			while (next < literal.size() && literal.get(next) < index) {
+				result.add(values.get(literal.get(next++)));
+			}
+			result.add(values.get(index));
+		}
+		while (next < literal.size()) {
+			result.add(values.get(literal.get(next++)));
+		}
+		return result;
+	}
+}
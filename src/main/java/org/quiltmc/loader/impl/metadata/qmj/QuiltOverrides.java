@@ -20,7 +20,9 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
@@ -40,7 +42,9 @@ import org.quiltmc.loader.impl.util.QuiltLoaderInternalType;
 public class QuiltOverrides {
 
 	public final Map<String, ModOverrides> pathOverrides = new HashMap<>();
-	public final Map<Pattern, ModOverrides> patternOverrides = new HashMap<>();
+	public final Map<Pattern, ModOverrides> patternOverrides = new LinkedHashMap<>();
+
+	private OverridePatternMatcher patternMatcher;
 
 	/** Loads overrides from the given json file. */
 	public QuiltOverrides(Path file) throws IOException, ParseException {
@@ -75,6 +79,19 @@ public class QuiltOverrides {
 		}
 	}
 
+	/** @return Every override in {@link #patternOverrides} that matches the given mod id. */
+	public List<ModOverrides> getPatternOverrides(String modId) {
+		if (patternOverrides.isEmpty()) {
+			return Collections.emptyList();
+		}
+		OverridePatternMatcher matcher = patternMatcher;
+		if (matcher == null) {
+			// Overrides are only added while reading the file
+			patternMatcher = matcher = new OverridePatternMatcher(patternOverrides);
+		}
+		return matcher.match(modId);
+	}
+
 	private static final int TYPE_PATH = 1 << 0;
 	private static final int TYPE_ID = 1 << 1;
 	private static final int TYPE_PATTERN = 1 << 2;
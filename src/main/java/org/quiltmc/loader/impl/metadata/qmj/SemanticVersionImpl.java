@@ -17,7 +17,9 @@
 
 package org.quiltmc.loader.impl.metadata.qmj;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 import java.util.StringTokenizer;
 import java.util.regex.Pattern;
@@ -34,10 +36,28 @@ public class SemanticVersionImpl implements Version.Semantic {
 	private final String preRelease;
 	private final String buildMeta;
 
+	/** {@link #preRelease} split on '.', so comparisons don't need to split it again. */
+	private final String[] preReleaseParts;
+
+	/** Which {@link #preReleaseParts} are unsigned integers. */
+	private final boolean[] preReleaseNumeric;
+
+	private final int hash;
+
 	private static final Pattern UNSIGNED_INTEGER = Pattern.compile("0|[1-9][0-9]*");
 	private static final Pattern DOT_SEPARATED_ID = Pattern.compile("|[-0-9A-Za-z]+(\\.[-0-9A-Za-z]+)*");
 
+	/** @return The interned version for the given string. */
 	public static SemanticVersionImpl of(String raw) throws VersionFormatException {
+		SemanticVersionImpl interned = VersionInterner.get(SemanticVersionImpl.class, raw);
+		if (interned != null) {
+			return interned;
+		}
+		return VersionInterner.intern(parse(raw));
+	}
+
+	/** Parses a new version, without interning it. */
+	static SemanticVersionImpl parse(String raw) throws VersionFormatException {
 		return ofInternal(raw, false);
 	}
 
@@ -142,6 +162,28 @@ public class SemanticVersionImpl implements Version.Semantic {
 		this.components = Objects.requireNonNull(components, "components");
 		this.preRelease = Objects.requireNonNull(preRelease, "preRelease");
 		this.buildMeta = Objects.requireNonNull(buildMeta, "buildMeta");
+
+		// Same as splitting with a StringTokenizer, which ignores empty parts
+		List<String> parts = new ArrayList<>();
+		int start = 0;
+		while (start <= preRelease.length()) {
+			int end = preRelease.indexOf('.', start);
+			if (end < 0) {
+				end = preRelease.length();
+			}
+			if (end > start) {
+				parts.add(preRelease.substring(start, end));
+			}
+			start = end + 1;
+		}
+
+		this.preReleaseParts = parts.toArray(new String[0]);
+		this.preReleaseNumeric = new boolean[preReleaseParts.length];
+		for (int i = 0; i < preReleaseParts.length; i++) {
+			preReleaseNumeric[i] = UNSIGNED_INTEGER.matcher(preReleaseParts[i]).matches();
+		}
+
+		this.hash = Arrays.deepHashCode(new Object[] { raw, components, preRelease, buildMeta });
 	}
 
 	@Override
@@ -176,6 +218,12 @@ public class SemanticVersionImpl implements Version.Semantic {
 	}
 
 	private int compareSemantic(Version.Semantic o) {
+		if (o == this) {
+			return 0;
+		} else if (o instanceof SemanticVersionImpl) {
+			return compareTokenised((SemanticVersionImpl) o);
+		}
+
 		for (int i = 0; i < Math.max(this.versionComponentCount(), o.versionComponentCount()); i++) {
 			int first = versionComponent(i);
 			int second = o.versionComponent(i);
@@ -227,6 +275,48 @@ public class SemanticVersionImpl implements Version.Semantic {
 
 	}
 
+	/** Same as {@link #compareSemantic(Semantic)}, but uses the pre-tokenised state of both versions rather than
+	 * splitting the pre-release strings again. */
+	private int compareTokenised(SemanticVersionImpl o) {
+		int[] a = components;
+		int[] b = o.components;
+		for (int i = 0; i < Math.max(a.length, b.length); i++) {
+			int compare = Integer.compare(i < a.length ? a[i] : 0, i < b.length ? b[i] : 0);
+			if (compare != 0) return compare;
+		}
+
+		boolean present = isPreReleasePresent();
+		boolean otherPresent = o.isPreReleasePresent();
+
+		if (!present || !otherPresent) {
+			return present == otherPresent ? 0 : present ? -1 : 1;
+		}
+
+		String[] partsA = preReleaseParts;
+		String[] partsB = o.preReleaseParts;
+		for (int i = 0; i < partsA.length; i++) {
+			if (i >= partsB.length) {
+				return 1;
+			}
+
+			if (preReleaseNumeric[i]) {
+				if (o.preReleaseNumeric[i]) {
+					int compare = Integer.compare(partsA[i].length(), partsB[i].length());
+					if (compare != 0) return compare;
+				} else {
+					return -1;
+				}
+			} else if (o.preReleaseNumeric[i]) {
+				return 1;
+			}
+
+			int compare = partsA[i].compareTo(partsB[i]);
+			if (compare != 0) return compare;
+		}
+
+		return partsB.length > partsA.length ? -1 : 0;
+	}
+
 	@Override
 	public boolean equals(Object o) {
 		if (this == o) return true;
@@ -237,7 +327,7 @@ public class SemanticVersionImpl implements Version.Semantic {
 
 	@Override
 	public int hashCode() {
-		return Arrays.deepHashCode(new Object[] { raw, components, preRelease, buildMeta });
+		return hash;
 	}
 
 	@Override
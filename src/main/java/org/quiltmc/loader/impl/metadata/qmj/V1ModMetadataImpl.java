@@ -232,6 +232,10 @@ final class V1ModMetadataImpl implements InternalModMetadata {
 		return this.icons.getIcon(size);
 	}
 
+	Icons icons() {
+		return this.icons;
+	}
+
 	@Override
 	public boolean containsValue(String key) {
 		return this.root.containsKey(key);
@@ -32,6 +32,7 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -70,6 +71,11 @@ public final class V1ModMetadataReader {
 	}
 
 	public static V1ModMetadataImpl read(JsonLoaderValue.ObjectImpl root, Path path, QuiltPluginManager manager, PluginGuiTreeNode parentNode) {
+		return read(root, path, manager, parentNode, null);
+	}
+
+	/** @param warned Set to true if any warnings were logged or added to the gui while reading. */
+	static V1ModMetadataImpl read(JsonLoaderValue.ObjectImpl root, Path path, QuiltPluginManager manager, PluginGuiTreeNode parentNode, @Nullable AtomicBoolean warned) {
 		// Read loader category
 		@Nullable JsonLoaderValue quiltLoader = root.get("quilt_loader");
 
@@ -81,7 +87,12 @@ public final class V1ModMetadataReader {
 			throw parseException(quiltLoader, "quilt_loader field must be an object");
 		}
 
-		return new V1ModMetadataReader(path, manager, parentNode).readFields(root);
+		V1ModMetadataReader reader = new V1ModMetadataReader(path, manager, parentNode);
+		V1ModMetadataImpl metadata = reader.readFields(root);
+		if (warned != null && (reader.loggedAnyWarnings || reader.modJsonNode != null)) {
+			warned.set(true);
+		}
+		return metadata;
 	}
 
 	private static class QLKeys {
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.metadata.qmj;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.quiltmc.loader.api.Version;
+import org.quiltmc.loader.api.VersionFormatException;
+import org.quiltmc.loader.impl.util.QuiltLoaderInternal;
+import org.quiltmc.loader.impl.util.QuiltLoaderInternalType;
+
+/** Keeps a single instance of every {@link Version} created from the same raw string, so equal versions can share
+ * their pre-tokenised comparison state and usually compare by identity. Versions are only weakly held, so any that
+ * are no longer used can still be collected. */
+@QuiltLoaderInternal(QuiltLoaderInternalType.NEW_INTERNAL)
+public final class VersionInterner {
+
+	// Keyed by class as well, so a semantic and a raw version with the same string never replace each other
+	private static final Map<Key, VersionRef> VERSIONS = new ConcurrentHashMap<>();
+	private static final ReferenceQueue<Version> CLEARED = new ReferenceQueue<>();
+
+	private VersionInterner() {}
+
+	/** @return The version for the given string, as {@link Version#of(String)}. */
+	public static Version of(String raw) {
+		Version version = get(SemanticVersionImpl.class, raw);
+		if (version == null) {
+			version = get(GenericVersionImpl.class, raw);
+		}
+		if (version != null) {
+			return version;
+		}
+
+		try {
+			return intern(SemanticVersionImpl.parse(raw));
+		} catch (VersionFormatException ex) {
+			return intern(new GenericVersionImpl(raw));
+		}
+	}
+
+	/** @return The interned version of the given class for the given raw string, or null if there isn't one. */
+	static <V extends Version> V get(Class<V> type, String raw) {
+		VersionRef ref = VERSIONS.get(new Key(type, raw));
+		return ref == null ? null : type.cast(ref.get());
+	}
+
+	/** @return The already interned version with the same class and raw string as the given version, or the given
+	 *         version if there wasn't one. */
+	@SuppressWarnings("unchecked")
+	static <V extends Version> V intern(V version) {
+		removeCleared();
+
+		Key key = new Key(version.getClass(), version.raw());
+		VersionRef ref = new VersionRef(key, version);
+
+		while (true) {
+			VersionRef current = VERSIONS.putIfAbsent(key, ref);
+			if (current == null) {
+				return version;
+			}
+			Version existing = current.get();
+			if (existing != null) {
+				return (V) existing;
+			}
+			// The previous version was collected, but its reference hasn't been removed yet
+			if (VERSIONS.replace(key, current, ref)) {
+				return version;
+			}
+		}
+	}
+
+	private static void removeCleared() {
+		VersionRef ref;
+		while ((ref = (VersionRef) CLEARED.poll()) != null) {
+			// Only removes the mapping if it hasn't already been replaced by a newer version
+			VERSIONS.remove(ref.key, ref);
+		}
+	}
+
+	private static final class Key {
+		final Class<?> type;
+		final String raw;
+
+		Key(Class<?> type, String raw) {
+			this.type = type;
+			this.raw = raw;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return type == other.type && raw.equals(other.raw);
+		}
+
+		@Override
+		public int hashCode() {
+			return type.hashCode() * 31 + raw.hashCode();
+		}
+	}
+
+	private static final class VersionRef extends WeakReference<Version> {
+		final Key key;
+
+		VersionRef(Key key, Version version) {
+			super(version, CLEARED);
+			this.key = key;
+		}
+	}
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.plugin;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.quiltmc.loader.api.FasterFiles;
+import org.quiltmc.loader.impl.util.FileFingerprint;
+import org.quiltmc.loader.impl.util.HashUtil;
+import org.quiltmc.loader.impl.util.QuiltLoaderInternal;
+import org.quiltmc.loader.impl.util.QuiltLoaderInternalType;
+import org.quiltmc.loader.impl.util.log.Log;
+import org.quiltmc.loader.impl.util.log.LogCategory;
+
+/** On-disk store of jars that were extracted from other jars, so they can be opened directly from the default
+ * filesystem (rather than being copied into memory on every launch). Extracted jars are named by the hash of their
+ * contents, so the same library nested in several mods is only stored once.
+ * <p>
+ * The index maps each nested jar to the {@link FileFingerprint} of the real file that contains it. A nested jar is only
+ * extracted again if that fingerprint changes. Jars that weren't used in the current launch are deleted by
+ * {@link #save()}. */
+@QuiltLoaderInternal(QuiltLoaderInternalType.NEW_INTERNAL)
+public final class NestedJarCache {
+
+	private static final byte[] HEADER = "quiltnestedjarsv1".getBytes(StandardCharsets.UTF_8);
+	private static final String INDEX_FILE = "index.bin";
+	private static final String SUFFIX = ".jar";
+
+	private final Path folder;
+	private final Map<String, CacheEntry> previous;
+	private final Map<String, CacheEntry> current = new ConcurrentHashMap<>();
+	private volatile boolean changed = false;
+
+	private NestedJarCache(Path folder, Map<String, CacheEntry> previous) {
+		this.folder = folder;
+		this.previous = previous;
+	}
+
+	public static NestedJarCache load(Path folder) {
+		Path indexFile = folder.resolve(INDEX_FILE);
+		if (!Files.isRegularFile(indexFile)) {
+			return new NestedJarCache(folder, Collections.emptyMap());
+		}
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+			byte[] header = new byte[HEADER.length];
+			in.readFully(header);
+			if (!Arrays.equals(header, HEADER)) {
+				throw new IOException("Unknown header " + new String(header, StandardCharsets.UTF_8));
+			}
+
+			int count = in.readInt();
+			Map<String, CacheEntry> entries = new HashMap<>();
+			for (int i = 0; i < count; i++) {
+				String key = in.readUTF();
+				FileFingerprint fingerprint = FileFingerprint.read(in);
+				String hash = in.readUTF();
+				entries.put(key, new CacheEntry(fingerprint, hash));
+			}
+			return new NestedJarCache(folder, entries);
+		} catch (IOException e) {
+			Log.warn(LogCategory.CACHE, "Failed to read the nested jar index " + indexFile + ", ignoring it", e);
+			return new NestedJarCache(folder, Collections.emptyMap());
+		}
+	}
+
+	/** Returns a file on the default filesystem with the same contents as the given nested jar, extracting it if it
+	 * hasn't already been extracted since the containing file last changed.
+	 *
+	 * @param nested The nested jar, which isn't on the default filesystem.
+	 * @param key A string that uniquely identifies the nested jar, including any outer files it's contained in.
+	 * @param fingerprint The fingerprint of the real file that contains the nested jar. */
+	public Path get(Path nested, String key, FileFingerprint fingerprint) throws IOException {
+		CacheEntry entry = previous.get(key);
+		if (entry != null && entry.fingerprint.equals(fingerprint)) {
+			Path file = folder.resolve(entry.hash + SUFFIX);
+			if (FasterFiles.isRegularFile(file)) {
+				current.put(key, entry);
+				return file;
+			}
+		}
+
+		entry = new CacheEntry(fingerprint, extract(nested));
+		current.put(key, entry);
+		changed = true;
+		return folder.resolve(entry.hash + SUFFIX);
+	}
+
+	private String extract(Path nested) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+
+		Files.createDirectories(folder);
+		Path tmp = Files.createTempFile(folder, "extracting-", ".tmp");
+		try {
+			byte[] buffer = new byte[0x4000];
+			try (InputStream from = Files.newInputStream(nested); OutputStream to = Files.newOutputStream(tmp)) {
+				int count;
+				while ((count = from.read(buffer)) > 0) {
+					digest.update(buffer, 0, count);
+					to.write(buffer, 0, count);
+				}
+			}
+
+			String hash = HashUtil.hashToString(digest.digest());
+			Path file = folder.resolve(hash + SUFFIX);
+			if (!FasterFiles.isRegularFile(file)) {
+				Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+			return hash;
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	/** Writes the index of every nested jar used since this cache was loaded, and deletes every extracted jar that
+	 * wasn't used. */
+	public void save() {
+		if (!changed && current.size() == previous.size()) {
+			return;
+		}
+
+		List<Map.Entry<String, CacheEntry>> entries = new ArrayList<>(current.entrySet());
+		Set<String> used = new HashSet<>();
+		used.add(INDEX_FILE);
+
+		Path indexFile = folder.resolve(INDEX_FILE);
+		Path tmp = folder.resolve(INDEX_FILE + ".tmp");
+		try {
+			Files.createDirectories(folder);
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+				out.write(HEADER);
+				out.writeInt(entries.size());
+				for (Map.Entry<String, CacheEntry> entry : entries) {
+					out.writeUTF(entry.getKey());
+					entry.getValue().fingerprint.write(out);
+					out.writeUTF(entry.getValue().hash);
+					used.add(entry.getValue().hash + SUFFIX);
+				}
+			}
+			Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			Log.warn(LogCategory.CACHE, "Failed to write the nested jar index to " + indexFile, e);
+			return;
+		}
+
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+			for (Path file : stream) {
+				String name = file.getFileName().toString();
+				// Other launches might be extracting (or saving) into the same folder right now
+				if (used.contains(name) || name.startsWith("extracting-") || name.endsWith(".tmp")) {
+					continue;
+				}
+
+				try {
+					Files.deleteIfExists(file);
+				} catch (IOException e) {
+					// Most likely still open (or mapped) by another process, so try again next time
+					Log.warn(LogCategory.CACHE, "Failed to remove the unused nested jar " + file, e);
+				}
+			}
+		} catch (IOException e) {
+			Log.warn(LogCategory.CACHE, "Failed to list unused nested jars in " + folder, e);
+		}
+	}
+
+	static final class CacheEntry {
+		final FileFingerprint fingerprint;
+		final String hash;
+
+		CacheEntry(FileFingerprint fingerprint, String hash) {
+			this.fingerprint = fingerprint;
+			this.hash = hash;
+		}
+	}
+}
@@ -45,6 +45,7 @@ import java.util.Queue;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -96,6 +97,7 @@ import org.quiltmc.loader.impl.filesystem.QuiltZipPath;
 import org.quiltmc.loader.impl.game.GameProvider;
 import org.quiltmc.loader.impl.gui.GuiManagerImpl;
 import org.quiltmc.loader.impl.gui.QuiltJsonGuiMessage;
+import org.quiltmc.loader.impl.metadata.qmj.ModMetadataCache;
 import org.quiltmc.loader.impl.metadata.qmj.V1ModMetadataReader;
 import org.quiltmc.loader.impl.plugin.base.InternalModContainerBase;
 import org.quiltmc.loader.impl.plugin.gui.TempQuilt2OldStatusNode;
@@ -112,6 +114,7 @@ import org.quiltmc.loader.impl.solver.Sat4jWrapper;
 import org.quiltmc.loader.impl.util.AsciiTableGenerator;
 import org.quiltmc.loader.impl.util.AsciiTableGenerator.AsciiTableColumn;
 import org.quiltmc.loader.impl.util.AsciiTableGenerator.AsciiTableRow;
+import org.quiltmc.loader.impl.util.FileFingerprint;
 import org.quiltmc.loader.impl.util.HashUtil;
 import org.quiltmc.loader.impl.util.QuiltLoaderInternal;
 import org.quiltmc.loader.impl.util.QuiltLoaderInternalType;
@@ -140,6 +143,10 @@ public class QuiltPluginManagerImpl implements QuiltPluginManager {
 	private final Path absGameDir, absModsDir;
 	final Map<Path, Path> pathParents = new HashMap<>();
 	final Map<Path, String> customPathNames = new HashMap<>();
+
+	/** Cache for {@link #describePath(Path)}. A path's description only depends on its parents, which are always
+	 * registered before the path itself can be found. */
+	private final Map<Path, String> describedPaths = new ConcurrentHashMap<>();
 	final Map<String, Integer> allocatedFileSystemIndices = new HashMap<>();
 	Map<Path, List<List<Path>>> sourcePaths;
 
@@ -162,7 +169,13 @@ public class QuiltPluginManagerImpl implements QuiltPluginManager {
 	final Set<String> idsWithPlugins = new HashSet<>();
 	boolean pluginIdsChanged = false;
 
-	final Sat4jWrapper solver = new Sat4jWrapper();
+	final Sat4jWrapper solver;
+
+	/** Null if {@link QuiltLoaderConfig#cacheModMetadata} is false, or if there isn't a cache directory. */
+	public final ModMetadataCache metadataCache;
+
+	/** Null if {@link QuiltLoaderConfig#cacheNestedJars} is false, or if there isn't a cache directory. */
+	final NestedJarCache nestedJarCache;
 
 	/** Set to null if {@link QuiltLoaderConfig#singleThreadedLoading} is true, otherwise this will be a useful
 	 * value. */
@@ -203,6 +216,8 @@ public class QuiltPluginManagerImpl implements QuiltPluginManager {
 		this.absGameDir = gameDir.toAbsolutePath().normalize();
 		this.absModsDir = modsDir.toAbsolutePath().normalize();
 
+		this.solver = new Sat4jWrapper(config.solverOptimiseTimeout, config.solverPortfolio);
+
 		this.executor = config.singleThreadedLoading ? null : Executors.newCachedThreadPool();
 		this.mainThreadTasks = config.singleThreadedLoading ? new ArrayDeque<>() : new ConcurrentLinkedQueue<>();
 
@@ -211,6 +226,18 @@ public class QuiltPluginManagerImpl implements QuiltPluginManager {
 
 		mainThreadTasks.add(new MainThreadTask.ScanModFolderTask(modsDir, QUILT_ID));
 
+		if (config.cacheModMetadata && cacheDir != null) {
+			metadataCache = ModMetadataCache.load(cacheDir.resolve(QUILT_ID).resolve("mod-metadata-cache.bin"));
+		} else {
+			metadataCache = null;
+		}
+
+		if (config.cacheNestedJars && cacheDir != null) {
+			nestedJarCache = NestedJarCache.load(cacheDir.resolve(QUILT_ID).resolve("nested-jars"));
+		} else {
+			nestedJarCache = null;
+		}
+
 		theQuiltPlugin = new StandardQuiltPlugin();
 	}
 
@@ -240,7 +267,7 @@ public class QuiltPluginManagerImpl implements QuiltPluginManager {
 	private Path loadZip0(Path zip) throws IOException, NonZipException {
 		String name = zip.getFileName().toString();
 		try {
-			QuiltZipPath qRoot = new QuiltZipFileSystem(name, zip, "").getRoot();
+			QuiltZipPath qRoot = new QuiltZipFileSystem(name, extractNestedZip(zip), "").getRoot();
 			pathParents.put(qRoot, zip);
 			return qRoot;
 		} catch (IOException e) {
@@ -253,6 +280,26 @@ public class QuiltPluginManagerImpl implements QuiltPluginManager {
 		}
 	}
 
+	/** @return A file on the default filesystem with the same contents as the given zip, if the nested jar cache is
+	 *         enabled and the zip is inside a real file. Otherwise returns the zip itself. */
+	private Path extractNestedZip(Path zip) throws IOException {
+		if (nestedJarCache == null || zip.getFileSystem() == FileSystems.getDefault()) {
+			return zip;
+		}
+
+		String name = zip.getFileName().toString();
+		if (!name.endsWith(".jar") && !name.endsWith(".zip")) {
+			return zip;
+		}
+
+		Optional<Path> real = getRealContainingFile(zip);
+		if (!real.isPresent() || !FasterFiles.isRegularFile(real.get())) {
+			return zip;
+		}
+
+		return nestedJarCache.get(zip, describePath(zip), FileFingerprint.of(real.get()));
+	}
+
 	@Override
 	public Path createMemoryFileSystem(String name) {
 		return new QuiltMemoryFileSystem.ReadWrite(name, true).getRoot();
@@ -439,6 +486,15 @@ public class QuiltPluginManagerImpl implements QuiltPluginManager {
 
 	@Override
 	public String describePath(Path path) {
+		String described = describedPaths.get(path);
+		if (described == null) {
+			described = describePath0(path);
+			describedPaths.put(path, described);
+		}
+		return described;
+	}
+
+	private String describePath0(Path path) {
 
 		String custom = customPathNames.get(path);
 		if (custom != null) {
@@ -1187,6 +1243,12 @@ public class QuiltPluginManagerImpl implements QuiltPluginManager {
 			if (result != null) {
 				new SourcePathGenerator().generate();
 				populateModsGuiTab(result);
+				if (metadataCache != null) {
+					metadataCache.save();
+				}
+				if (nestedJarCache != null) {
+					nestedJarCache.save();
+				}
 				return result;
 			}
 		}
@@ -1308,76 +1370,78 @@ public class QuiltPluginManagerImpl implements QuiltPluginManager {
 		boolean failed = false;
 
 		solver_error_iteration: do {
-			Collection<Rule> rules = solver.getError();
-
-			for (Entry<QuiltLoaderPlugin, BasePluginContext> entry : plugins.entrySet()) {
-				QuiltLoaderPlugin plugin = entry.getKey();
-				BasePluginContext ctx = entry.getValue();
-				boolean recovered = plugin.handleError(rules);
-				Rule blamed = null;
-				try {
-					ctx.blameableRules = rules;
-					recovered = plugin.handleError(rules);
-					blamed = ctx.blamedRule;
-				} finally {
-					ctx.blameableRules = null;
-					ctx.blamedRule = null;
-				}
+			// Every error in the list is independent of the others, so removing a rule
+			// to fix one doesn't change the others, and they can all be handled before solving again.
+			next_error: for (Collection<Rule> rules : solver.getErrors()) {
+				for (Entry<QuiltLoaderPlugin, BasePluginContext> entry : plugins.entrySet()) {
+					QuiltLoaderPlugin plugin = entry.getKey();
+					BasePluginContext ctx = entry.getValue();
+					boolean recovered = plugin.handleError(rules);
+					Rule blamed = null;
+					try {
+						ctx.blameableRules = rules;
+						recovered = plugin.handleError(rules);
+						blamed = ctx.blamedRule;
+					} finally {
+						ctx.blameableRules = null;
+						ctx.blamedRule = null;
+					}
 
-				if (recovered) {
+					if (recovered) {
+
+						if (blamed != null) {
+							// Okay, so plugins aren't meant to do this
+							// (Either blame a rule, OR handle it in some other way)
+							// Since this is an invalid state we'll report this error
+							// and report that the plugin did the wrong thing
+							failed = true;
+							helper.reportSolverError(rules);
+							solver.removeRule(blamed);
+							reportError(theQuiltPluginContext, QuiltLoaderText.translate("plugin.illegal_state.recovered_and_blamed", ctx.pluginId));
+							return;
+						}
 
-					if (blamed != null) {
-						// Okay, so plugins aren't meant to do this
-						// (Either blame a rule, OR handle it in some other way)
-						// Since this is an invalid state we'll report this error
-						// and report that the plugin did the wrong thing
+						if (blamed == null) {
+							// A plugin recovered from an error
+							if (failed) {
+								// but we already failed, so it's too late
+								// since the recovery probably messed something up
+								// we'll just exit the loop here and drop any other errors.
+								break solver_error_iteration;
+							}
+							// And it's the first error, so we can just move on to the next cycle
+							return;
+						}
+					} else if (blamed != null) {
 						failed = true;
 						helper.reportSolverError(rules);
 						solver.removeRule(blamed);
-						reportError(theQuiltPluginContext, QuiltLoaderText.translate("plugin.illegal_state.recovered_and_blamed", ctx.pluginId));
-						return;
+						continue next_error;
 					}
-
-					if (blamed == null) {
-						// A plugin recovered from an error
-						if (failed) {
-							// but we already failed, so it's too late
-							// since the recovery probably messed something up
-							// we'll just exit the loop here and drop any other errors.
-							break solver_error_iteration;
-						}
-						// And it's the first error, so we can just move on to the next cycle
-						return;
-					}
-				} else if (blamed != null) {
-					failed = true;
-					helper.reportSolverError(rules);
-					solver.removeRule(blamed);
-					continue solver_error_iteration;
 				}
-			}
 
-			// No plugin blamed any rules
-			// So we'll just pick one of them randomly and remove it.
+				// No plugin blamed any rules
+				// So we'll just pick one of them randomly and remove it.
 
-			failed = true;
-			helper.reportSolverError(rules);
+				failed = true;
+				helper.reportSolverError(rules);
 
-			Rule pickedRule = rules.stream().filter(r -> r instanceof QuiltRuleBreak).findAny().orElse(null);
+				Rule pickedRule = rules.stream().filter(r -> r instanceof QuiltRuleBreak).findAny().orElse(null);
 
-			if (pickedRule == null) {
-				pickedRule = rules.stream().filter(r -> r instanceof QuiltRuleDep).findAny().orElse(null);
-			}
+				if (pickedRule == null) {
+					pickedRule = rules.stream().filter(r -> r instanceof QuiltRuleDep).findAny().orElse(null);
+				}
 
-			if (pickedRule == null) {
-				pickedRule = rules.stream().filter(r -> !(r instanceof ModIdDefinition)).findAny().orElse(null);
-			}
+				if (pickedRule == null) {
+					pickedRule = rules.stream().filter(r -> !(r instanceof ModIdDefinition)).findAny().orElse(null);
+				}
 
-			if (pickedRule == null) {
-				pickedRule = rules.iterator().next();
-			}
+				if (pickedRule == null) {
+					pickedRule = rules.iterator().next();
+				}
 
-			solver.removeRule(pickedRule);
+				solver.removeRule(pickedRule);
+			}
 
 		} while (!solver.hasSolution());
 
@@ -22,7 +22,6 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -322,7 +321,7 @@ class SolverErrorHelper {
 				for (OptionLink link : fullChain.get(fullChain.size() - 1)) {
 					// We validate all this earlier
 					QuiltRuleDepOnly dep = (QuiltRuleDepOnly) link.to.get(0).rule;
-					fullRange = VersionRange.ofRanges(Arrays.asList(fullRange, dep.publicDep.versionRange()));
+					fullRange = fullRange.combineMatchingEither(dep.publicDep.versionRange());
 					allInvalidOptions.addAll(dep.getWrongOptions());
 				}
 
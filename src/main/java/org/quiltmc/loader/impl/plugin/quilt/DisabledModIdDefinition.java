@@ -16,6 +16,8 @@
 
 package org.quiltmc.loader.impl.plugin.quilt;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.function.Consumer;
 
 import org.quiltmc.loader.api.gui.QuiltLoaderText;
@@ -55,6 +57,11 @@ public final class DisabledModIdDefinition extends ModIdDefinition {
 		}
 	}
 
+	@Override
+	public Collection<?> getInterestKeys() {
+		return Collections.singleton(option);
+	}
+
 	@Override
 	public boolean onLoadOptionAdded(LoadOption option) {
 		if (option == this.option && !valid) {
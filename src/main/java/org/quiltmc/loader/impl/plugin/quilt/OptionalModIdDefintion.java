@@ -17,6 +17,8 @@
 package org.quiltmc.loader.impl.plugin.quilt;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.function.Consumer;
@@ -87,6 +89,11 @@ public final class OptionalModIdDefintion extends ModIdDefinition {
 		return modid;
 	}
 
+	@Override
+	public Collection<?> getInterestKeys() {
+		return Collections.singleton(modid);
+	}
+
 	@Override
 	public boolean onLoadOptionAdded(LoadOption option) {
 		if (option instanceof ModLoadOption) {
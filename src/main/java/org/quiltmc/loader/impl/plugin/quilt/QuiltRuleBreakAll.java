@@ -56,6 +56,11 @@ public class QuiltRuleBreakAll extends QuiltRuleBreak {
 		this.options = optionList.toArray(new QuiltRuleBreakOnly[0]);
 	}
 
+	@Override
+	public Collection<?> getInterestKeys() {
+		return Collections.emptySet();
+	}
+
 	@Override
 	public boolean onLoadOptionAdded(LoadOption option) {
 		return false;
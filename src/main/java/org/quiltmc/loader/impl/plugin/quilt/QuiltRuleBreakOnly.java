@@ -66,6 +66,11 @@ public class QuiltRuleBreakOnly extends QuiltRuleBreak {
 		}
 	}
 
+	@Override
+	public Collection<?> getInterestKeys() {
+		return Collections.singleton(publicDep.id().id());
+	}
+
 	@Override
 	public boolean onLoadOptionAdded(LoadOption option) {
 		if (option instanceof ModLoadOption) {
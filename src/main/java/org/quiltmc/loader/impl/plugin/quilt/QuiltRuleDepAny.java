@@ -56,6 +56,11 @@ public class QuiltRuleDepAny extends QuiltRuleDep {
 		this.options = optionList.toArray(new QuiltRuleDepOnly[0]);
 	}
 
+	@Override
+	public Collection<?> getInterestKeys() {
+		return Collections.emptySet();
+	}
+
 	@Override
 	public boolean onLoadOptionAdded(LoadOption option) {
 		return false;
@@ -17,6 +17,7 @@
 package org.quiltmc.loader.impl.plugin.quilt;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -75,6 +76,11 @@ public class QuiltRuleDepOnly extends QuiltRuleDep {
 		}
 	}
 
+	@Override
+	public Collection<?> getInterestKeys() {
+		return Arrays.asList(source, publicDep.id().id());
+	}
+
 	@Override
 	public boolean onLoadOptionAdded(LoadOption option) {
 		if (option == source && !valid) {
@@ -28,9 +28,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Objects;
-import java.util.regex.Pattern;
 
 import org.quiltmc.json5.exception.ParseException;
 import org.quiltmc.loader.api.FasterFiles;
@@ -60,12 +58,15 @@ import org.quiltmc.loader.impl.filesystem.QuiltJoinedFileSystem;
 import org.quiltmc.loader.impl.game.GameProvider;
 import org.quiltmc.loader.impl.game.GameProvider.BuiltinMod;
 import org.quiltmc.loader.impl.metadata.qmj.InternalModMetadata;
+import org.quiltmc.loader.impl.metadata.qmj.ModMetadataCache;
 import org.quiltmc.loader.impl.metadata.qmj.ModMetadataReader;
 import org.quiltmc.loader.impl.metadata.qmj.QuiltOverrides;
 import org.quiltmc.loader.impl.metadata.qmj.QuiltOverrides.ModOverrides;
 import org.quiltmc.loader.impl.metadata.qmj.QuiltOverrides.SpecificOverrides;
 import org.quiltmc.loader.impl.metadata.qmj.V1ModMetadataBuilder;
 import org.quiltmc.loader.impl.plugin.BuiltinQuiltPlugin;
+import org.quiltmc.loader.impl.plugin.QuiltPluginManagerImpl;
+import org.quiltmc.loader.impl.util.FileFingerprint;
 import org.quiltmc.loader.impl.util.QuiltLoaderInternal;
 import org.quiltmc.loader.impl.util.QuiltLoaderInternalType;
 import org.quiltmc.loader.impl.util.SystemProperties;
@@ -247,7 +248,7 @@ public class StandardQuiltPlugin extends BuiltinQuiltPlugin {
 		}
 
 		try {
-			InternalModMetadata meta = ModMetadataReader.read(qmj, context().manager(), guiNode);
+			InternalModMetadata meta = readMetadata(root, qmj, guiNode);
 
 			Path from = root;
 			if (isZip) {
@@ -297,6 +298,30 @@ public class StandardQuiltPlugin extends BuiltinQuiltPlugin {
 		}
 	}
 
+	private InternalModMetadata readMetadata(Path root, Path qmj, PluginGuiTreeNode guiNode) throws IOException,
+		ParseException {
+
+		QuiltPluginManager manager = context().manager();
+		ModMetadataCache cache = null;
+		if (manager instanceof QuiltPluginManagerImpl) {
+			cache = ((QuiltPluginManagerImpl) manager).metadataCache;
+		}
+
+		if (cache == null) {
+			return ModMetadataReader.read(qmj, manager, guiNode);
+		}
+
+		// Only files on the default filesystem have a meaningful size and modification time,
+		// so mods inside other mods are keyed by the outermost jar instead.
+		Path real = qmj.getFileSystem() == FileSystems.getDefault() ? qmj : manager.getRealContainingFile(root).orElse(null);
+		FileFingerprint fingerprint = null;
+		if (real != null && FasterFiles.isRegularFile(real)) {
+			fingerprint = FileFingerprint.of(real);
+		}
+
+		return cache.read(qmj, manager.describePath(qmj), fingerprint, manager, guiNode);
+	}
+
 	@Override
 	public void onLoadOptionAdded(LoadOption option) {
 
@@ -358,12 +383,8 @@ public class StandardQuiltPlugin extends BuiltinQuiltPlugin {
 					overrideList.add(new SingleOverrideEntry(byPath, true));
 				}
 
-				for (Entry<Pattern, ModOverrides> entry : overrides.patternOverrides.entrySet()) {
-					if (!entry.getKey().matcher(mod.id()).matches()) {
-						continue;
-					}
-
-					overrideList.add(new SingleOverrideEntry(entry.getValue(), false));
+				for (ModOverrides byPattern : overrides.getPatternOverrides(mod.id())) {
+					overrideList.add(new SingleOverrideEntry(byPattern, false));
 				}
 
 				depends = new HashSet<>(depends);
@@ -424,7 +445,7 @@ public class StandardQuiltPlugin extends BuiltinQuiltPlugin {
 
 		if (fuzzy && removal instanceof ModDependency.Only) {
 			ModDependency.Only specific = (ModDependency.Only) removal;
-			if (specific.versionRange() == VersionRange.ANY && specific.unless() == null) {
+			if (VersionRange.ANY.equals(specific.versionRange()) && specific.unless() == null) {
 				List<ModDependency> matches = new ArrayList<>();
 				for (ModDependency dep : in) {
 					if (!(dep instanceof ModDependency.Only)) {
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.solver;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.quiltmc.loader.api.plugin.solver.LoadOption;
+import org.quiltmc.loader.api.plugin.solver.Rule;
+import org.quiltmc.loader.impl.util.QuiltLoaderInternal;
+import org.quiltmc.loader.impl.util.QuiltLoaderInternalType;
+
+/** Every {@link LoadOption} added to a {@link Sat4jWrapper}, each with a dense id that stays the same until the option
+ * is removed, and the weights of each option. Ids aren't reused after an option is removed, so they can be used to
+ * index arrays for as long as the solver exists. */
+@QuiltLoaderInternal(QuiltLoaderInternalType.NEW_INTERNAL)
+final class OptionIndex {
+
+	private final Map<LoadOption, Entry> entries = new HashMap<>();
+	private Entry[] byId = new Entry[64];
+	private int nextId = 0;
+
+	/** Adds the given option, or clears the weights of it if it's already been added.
+	 *
+	 * @return The id of the option. */
+	int add(LoadOption option) {
+		Entry entry = entries.get(option);
+		if (entry != null) {
+			entry.weights.clear();
+			entry.totalWeight = 0;
+			return entry.id;
+		}
+
+		int id = nextId++;
+		if (id >= byId.length) {
+			byId = Arrays.copyOf(byId, byId.length * 2);
+		}
+		entry = new Entry(option, id);
+		byId[id] = entry;
+		entries.put(option, entry);
+		return id;
+	}
+
+	/** @return The id the option had, or -1 if it wasn't added. */
+	int remove(LoadOption option) {
+		Entry entry = entries.remove(option);
+		if (entry == null) {
+			return -1;
+		}
+		byId[entry.id] = null;
+		return entry.id;
+	}
+
+	boolean contains(LoadOption option) {
+		return entries.containsKey(option);
+	}
+
+	/** @return The id of the option, or -1 if it hasn't been added. */
+	int getId(LoadOption option) {
+		Entry entry = entries.get(option);
+		return entry == null ? -1 : entry.id;
+	}
+
+	/** @return The option with the given id, or null if it's been removed. */
+	LoadOption getOption(int id) {
+		Entry entry = byId[id];
+		return entry == null ? null : entry.option;
+	}
+
+	/** @return One more than the largest id that has been handed out. */
+	int idLimit() {
+		return nextId;
+	}
+
+	Collection<LoadOption> options() {
+		return Collections.unmodifiableSet(entries.keySet());
+	}
+
+	/** @return False if the option hasn't been added. */
+	boolean setWeight(LoadOption option, Rule key, int weight) {
+		Entry entry = entries.get(option);
+		if (entry == null) {
+			return false;
+		}
+		Integer old = entry.weights.put(key, weight);
+		entry.totalWeight += weight - (old == null ? 0 : old);
+		return true;
+	}
+
+	/** @return The sum of every weight of the option with the given id. */
+	int getTotalWeight(int id) {
+		return byId[id].totalWeight;
+	}
+
+	private static final class Entry {
+		final LoadOption option;
+		final int id;
+		final Map<Rule, Integer> weights = new HashMap<>(2);
+		int totalWeight;
+
+		Entry(LoadOption option, int id) {
+			this.option = option;
+			this.id = id;
+		}
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.solver;
+
+import java.util.Arrays;
+
+import org.quiltmc.loader.api.plugin.solver.LoadOption;
+import org.quiltmc.loader.impl.util.QuiltLoaderInternal;
+import org.quiltmc.loader.impl.util.QuiltLoaderInternalType;
+import org.quiltmc.loader.impl.util.log.Log;
+import org.quiltmc.loader.impl.util.log.LogCategory;
+import org.quiltmc.loader.util.sat4j.core.VecInt;
+import org.quiltmc.loader.util.sat4j.pb.IPBSolver;
+import org.quiltmc.loader.util.sat4j.specs.IVecInt;
+
+/** Maps the {@link OptionIndex} ids of {@link LoadOption}s to the variables of a single sat4j solver. These can't be
+ * the same, since some solvers allocate extra variables of their own. */
+@QuiltLoaderInternal(QuiltLoaderInternalType.NEW_INTERNAL)
+final class OptionVariables {
+
+	private final IPBSolver solver;
+	private final OptionIndex index;
+	private final LogCategory category;
+
+	/** Indexed by option id. 0 means the option doesn't have a variable. */
+	private int[] idToVar;
+
+	/** Indexed by variable. -1 means the variable isn't used for an option. */
+	private int[] varToId;
+
+	OptionVariables(IPBSolver solver, OptionIndex index, LogCategory category) {
+		this.solver = solver;
+		this.index = index;
+		this.category = category;
+		this.idToVar = new int[Math.max(16, index.idLimit())];
+		this.varToId = new int[Math.max(16, index.idLimit() + 1)];
+		Arrays.fill(varToId, -1);
+	}
+
+	/** @return The variable for the given option, allocating a new one if it doesn't have one already. */
+	int put(LoadOption option) {
+		int id = index.getId(option);
+		if (id < 0) {
+			throw new IllegalStateException("Unknown option " + option);
+		}
+		return putId(id);
+	}
+
+	/** @return The variable for the option with the given id, allocating a new one if it doesn't have one already. */
+	int putId(int id) {
+		if (id >= idToVar.length) {
+			idToVar = Arrays.copyOf(idToVar, Math.max(id + 1, idToVar.length * 2));
+		}
+
+		int variable = idToVar[id];
+		if (variable == 0) {
+			variable = solver.nextFreeVarId(true);
+			idToVar[id] = variable;
+
+			if (variable >= varToId.length) {
+				int oldLength = varToId.length;
+				varToId = Arrays.copyOf(varToId, Math.max(variable + 1, oldLength * 2));
+				Arrays.fill(varToId, oldLength, varToId.length, -1);
+			}
+			varToId[variable] = id;
+
+			if (Sat4jWrapper.LOG) {
+				Log.info(category, variable + " = " + index.getOption(id));
+			}
+		}
+
+		return variable;
+	}
+
+	/** @return The variable for the option with the given id, or 0 if it doesn't have one. */
+	int getVariable(int id) {
+		return id < idToVar.length ? idToVar[id] : 0;
+	}
+
+	/** @return The id of the option for the given variable, or -1 if the variable isn't used for an option. */
+	int getId(int variable) {
+		return variable < varToId.length ? varToId[variable] : -1;
+	}
+
+	/** @return The option for the given variable, or null if the variable isn't used for an option. */
+	LoadOption getOption(int variable) {
+		int id = getId(variable);
+		return id < 0 ? null : index.getOption(id);
+	}
+
+	/** Forgets the variable of the option with the given id. The variable itself is left in the solver, since sat4j
+	 * can't remove them. */
+	void remove(int id) {
+		int variable = getVariable(id);
+		if (variable != 0) {
+			idToVar[id] = 0;
+			varToId[variable] = -1;
+		}
+	}
+
+	IVecInt mapOptionsToSat4jClause(LoadOption[] options) {
+		IVecInt vec = new VecInt(options.length);
+
+		for (LoadOption option : options) {
+			boolean negated = false;
+
+			if (option instanceof NegatedLoadOption) {
+				negated = true;
+				option = ((NegatedLoadOption) option).not;
+			}
+
+			int value = put(option);
+
+			if (negated) {
+				value = -value;
+			}
+
+			vec.push(value);
+		}
+
+		return vec;
+	}
+}
@@ -17,7 +17,6 @@
 package org.quiltmc.loader.impl.solver;
 
 import java.util.Arrays;
-import java.util.Set;
 
 import org.quiltmc.loader.api.plugin.solver.AliasedLoadOption;
 import org.quiltmc.loader.api.plugin.solver.LoadOption;
@@ -60,18 +59,24 @@ abstract class RuleDefinition {
 		return op;
 	}
 
-	/* package-private */ void validateOptions(Set<LoadOption> validOptions) {
+	/** @return The option, or the option it negates if it's negated. */
+	/* package-private */ static LoadOption unwrap(LoadOption op) {
+		if (RuleContext.isNegated(op)) {
+			return RuleContext.negate(op);
+		}
+		return op;
+	}
+
+	/* package-private */ void validateOptions(OptionIndex validOptions) {
 		for (LoadOption option : options) {
-			if (RuleContext.isNegated(option)) {
-				option = RuleContext.negate(option);
-			}
+			option = unwrap(option);
 			if (!validOptions.contains(option)) {
 				throw new IllegalStateException("Tried to define rule " + rule.getClass() + " " + rule + " as " + this + ", but the option " + option.getClass() + " " + option + " isn't registered!");
 			}
 		}
 	}
 
-	protected abstract IConstr[] put(Sat4jWrapper wrapper, IPBSolver solver) throws ContradictionException;
+	protected abstract IConstr[] put(OptionVariables variables, IPBSolver solver) throws ContradictionException;
 
 	static final class AtLeastOneOf extends RuleDefinition {
 
@@ -85,8 +90,8 @@ abstract class RuleDefinition {
 		}
 
 		@Override
-		protected IConstr[] put(Sat4jWrapper wrapper, IPBSolver solver) throws ContradictionException {
-			return new IConstr[] { solver.addClause(wrapper.mapOptionsToSat4jClause(options)) };
+		protected IConstr[] put(OptionVariables variables, IPBSolver solver) throws ContradictionException {
+			return new IConstr[] { solver.addClause(variables.mapOptionsToSat4jClause(options)) };
 		}
 	}
 
@@ -111,8 +116,8 @@ abstract class RuleDefinition {
 		}
 
 		@Override
-		protected IConstr[] put(Sat4jWrapper wrapper, IPBSolver solver) throws ContradictionException {
-			IVecInt clause = wrapper.mapOptionsToSat4jClause(options);
+		protected IConstr[] put(OptionVariables variables, IPBSolver solver) throws ContradictionException {
+			IVecInt clause = variables.mapOptionsToSat4jClause(options);
 			if (count == 1) {
 				return new IConstr[] { solver.addClause(clause) };
 			}
@@ -127,8 +132,8 @@ abstract class RuleDefinition {
 		}
 
 		@Override
-		protected IConstr[] put(Sat4jWrapper wrapper, IPBSolver solver) throws ContradictionException {
-			return new IConstr[] { solver.addAtMost(wrapper.mapOptionsToSat4jClause(options), count) };
+		protected IConstr[] put(OptionVariables variables, IPBSolver solver) throws ContradictionException {
+			return new IConstr[] { solver.addAtMost(variables.mapOptionsToSat4jClause(options), count) };
 		}
 	}
 
@@ -139,10 +144,10 @@ abstract class RuleDefinition {
 		}
 
 		@Override
-		protected IConstr[] put(Sat4jWrapper wrapper, IPBSolver solver) throws ContradictionException {
+		protected IConstr[] put(OptionVariables variables, IPBSolver solver) throws ContradictionException {
 			// Sat4j doesn't seem to handle exactly correctly ATM
 			// however it's a non-issue, since internally it's just both atMost and atLeast anyway.
-			IVecInt clause = wrapper.mapOptionsToSat4jClause(options);
+			IVecInt clause = variables.mapOptionsToSat4jClause(options);
 			return new IConstr[] { solver.addAtMost(clause, count), solver.addAtLeast(clause, count) };
 		}
 	}
@@ -157,10 +162,10 @@ abstract class RuleDefinition {
 		}
 
 		@Override
-		protected IConstr[] put(Sat4jWrapper wrapper, IPBSolver solver) throws ContradictionException {
+		protected IConstr[] put(OptionVariables variables, IPBSolver solver) throws ContradictionException {
 			// Sat4j doesn't seem to handle exactly correctly ATM
 			// however it's a non-issue, since internally it's just both atMost and atLeast anyway.
-			IVecInt clause = wrapper.mapOptionsToSat4jClause(options);
+			IVecInt clause = variables.mapOptionsToSat4jClause(options);
 			return new IConstr[] { solver.addAtMost(clause, max), solver.addAtLeast(clause, min) };
 		}
 
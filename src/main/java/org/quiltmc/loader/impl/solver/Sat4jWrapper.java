@@ -20,15 +20,23 @@ import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import org.quiltmc.loader.api.plugin.solver.AliasedLoadOption;
 import org.quiltmc.loader.api.plugin.solver.LoadOption;
+import org.quiltmc.loader.api.plugin.solver.ModLoadOption;
 import org.quiltmc.loader.api.plugin.solver.Rule;
 import org.quiltmc.loader.api.plugin.solver.RuleContext;
 import org.quiltmc.loader.api.plugin.solver.RuleDefiner;
@@ -66,7 +74,20 @@ import org.quiltmc.loader.util.sat4j.specs.TimeoutException;
 @QuiltLoaderInternal(QuiltLoaderInternalType.LEGACY_EXPOSED)
 public class Sat4jWrapper implements RuleContext {
 
-	private static final boolean LOG = Boolean.getBoolean(SystemProperties.DEBUG_MOD_SOLVING);
+	static final boolean LOG = Boolean.getBoolean(SystemProperties.DEBUG_MOD_SOLVING);
+
+	/** 5 second timeout - this will regularly be hit by users as such this needs to be fairly short, but not too short
+	 * as then there's no time to optimise. ALSO this happens *every cycle* */
+	public static final int DEFAULT_OPTIMISE_TIMEOUT_MILLIS = 5000;
+
+	/** The least time each component is optimised for before we stop waiting for better solutions. */
+	private static final long MIN_OPTIMISE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+	/** Extra time each component is optimised for, per option and rule definition it contains. */
+	private static final long OPTIMISE_NANOS_PER_ELEMENT = TimeUnit.MICROSECONDS.toNanos(50);
+
+	/** The most errors {@link #getErrors()} will find in a single group of rules at once. */
+	private static final int MAX_ERRORS_PER_GROUP = 32;
 
 	public enum Sat4jSolveStep {
 
@@ -88,29 +109,60 @@ public class Sat4jWrapper implements RuleContext {
 	private volatile Sat4jSolveStep step = Sat4jSolveStep.DEFINE;
 
 	/** Only available during {@link Sat4jSolveStep#SOLVE} */
-	private XplainPB explainer;
+	private volatile XplainPB explainer;
 
-	/** Only available during {@link Sat4jSolveStep#OPTIMISE} */
-	private volatile PseudoOptDecorator optimiser;
+	/** The variables of the {@link #explainer}. Only available during {@link Sat4jSolveStep#SOLVE} */
+	private OptionVariables variables;
 
-	/** Set to {@link #explainer} during {@link Sat4jSolveStep#SOLVE}, and {@link #optimiser} during
-	 * {@link Sat4jSolveStep#OPTIMISE}. */
-	private IPBSolver solver;
+	/** Every independent part of the problem, each with their own optimiser. Only available during
+	 * {@link Sat4jSolveStep#RE_SOLVING} and {@link Sat4jSolveStep#OPTIMISE}. */
+	private volatile List<OptimisationComponent> components;
 
 	private boolean rulesChanged = false;
 
 	private volatile boolean cancelled = false;
 
-	private final Map<LoadOption, Map<Rule, Integer>> optionToWeight = new HashMap<>();
+	/** Errors found by {@link #getErrors()} which are still valid, since none of their rules have been removed or
+	 * redefined since. */
+	private final List<Set<Rule>> cachedErrors = new ArrayList<>();
+
+	/** The solvers used by {@link #getErrors()} while it's running, so they can be cancelled. */
+	private final Set<XplainPB> diagnosers = ConcurrentHashMap.newKeySet();
+
+	private final OptionIndex optionIndex = new OptionIndex();
 	private final Map<Rule, List<RuleDefinition>> ruleToDefinitions = new HashMap<>();
 
-	private final Map<LoadOption, Integer> optionToIndex = new HashMap<>();
-	private final Map<Integer, LoadOption> indexToOption = new HashMap<>();
+	/** Rules which returned null from {@link Rule#getInterestKeys()}, so are told about every option. */
+	private final Set<Rule> broadcastRules = new LinkedHashSet<>();
+	private final Map<Rule, Collection<?>> ruleToKeys = new HashMap<>();
+	private final Map<Object, List<Rule>> keyToRules = new HashMap<>();
+	private final Map<String, List<ModLoadOption>> modIdToOptions = new HashMap<>();
 
 	/** Only available during {@link Sat4jSolveStep#SOLVE}. */
 	private Map<IConstr, Rule> constraintToRule = null;
 
-	public Sat4jWrapper() {}
+	/** Only available during {@link Sat4jSolveStep#SOLVE}. Used to remove the constraints of a rule from the
+	 * {@link #explainer} when it's removed or redefined, rather than rebuilding the whole solver. */
+	private Map<Rule, List<IConstr>> ruleToConstraints = null;
+
+	/** The longest time {@link #getSolution()} will spend optimising. */
+	private final long optimiseTimeoutNanos;
+
+	/** If true then every component is optimised with several {@link Strategy strategies} at once. */
+	private final boolean portfolio;
+
+	public Sat4jWrapper() {
+		this(DEFAULT_OPTIMISE_TIMEOUT_MILLIS, false);
+	}
+
+	/** @param optimiseTimeoutMillis The longest time {@link #getSolution()} will spend optimising. It usually stops
+	 *            sooner, once better solutions stop being found quickly.
+	 * @param portfolio If true then several differently configured solvers are raced against each other for each part
+	 *            of the problem, and the best solution is used. */
+	public Sat4jWrapper(int optimiseTimeoutMillis, boolean portfolio) {
+		this.optimiseTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(optimiseTimeoutMillis);
+		this.portfolio = portfolio;
+	}
 
 	public Sat4jSolveStep getStep() {
 		return step;
@@ -118,13 +170,12 @@ public class Sat4jWrapper implements RuleContext {
 
 	/** Clears out this {@link Sat4jWrapper} of all data EXCEPT the added {@link Rule}s and {@link LoadOption}s. */
 	public void resetStep() {
-		optionToIndex.clear();
-		indexToOption.clear();
 		explainer = null;
-		optimiser = null;
-		solver = null;
+		variables = null;
+		components = null;
 		cancelled = false;
 		constraintToRule = null;
+		ruleToConstraints = null;
 		rulesChanged = true;
 		step = Sat4jSolveStep.DEFINE;
 	}
@@ -137,15 +188,20 @@ public class Sat4jWrapper implements RuleContext {
 	@Override
 	public void addOption(LoadOption option) {
 		validateCanAdd();
-		optionToWeight.put(option, new HashMap<>());
+		optionIndex.add(option);
 
 		if (LOG) {
 			Log.info(CATEGORY, "Adding option " + option);
 		}
 
+		if (option instanceof ModLoadOption) {
+			ModLoadOption mod = (ModLoadOption) option;
+			modIdToOptions.computeIfAbsent(mod.id(), id -> new ArrayList<>()).add(mod);
+		}
+
 		List<Rule> rulesToRedefine = new ArrayList<>();
 
-		for (Rule rule : ruleToDefinitions.keySet()) {
+		for (Rule rule : getInterestedRules(option)) {
 			if (rule.onLoadOptionAdded(option)) {
 				rulesToRedefine.add(rule);
 			}
@@ -169,10 +225,7 @@ public class Sat4jWrapper implements RuleContext {
 				option = target;
 			}
 		}
-		Map<Rule, Integer> weightMap = optionToWeight.get(option);
-		if (weightMap != null) {
-			weightMap.put(key, weight);
-		} else {
+		if (!optionIndex.setWeight(option, key, weight)) {
 			throw new IllegalArgumentException("Unknown LoadOption " + option);
 		}
 	}
@@ -185,12 +238,22 @@ public class Sat4jWrapper implements RuleContext {
 			Log.info(CATEGORY, "Removing option " + option);
 		}
 
-		indexToOption.remove(optionToIndex.remove(option));
-		optionToWeight.remove(option);
+		int index = optionIndex.remove(option);
+		if (variables != null && index >= 0) {
+			variables.remove(index);
+		}
+
+		if (option instanceof ModLoadOption) {
+			String id = ((ModLoadOption) option).id();
+			List<ModLoadOption> list = modIdToOptions.get(id);
+			if (list != null && list.remove(option) && list.isEmpty()) {
+				modIdToOptions.remove(id);
+			}
+		}
 
 		List<Rule> rulesToRedefine = new ArrayList<>();
 
-		for (Rule rule : ruleToDefinitions.keySet()) {
+		for (Rule rule : getInterestedRules(option)) {
 			if (rule.onLoadOptionRemoved(option)) {
 				rulesToRedefine.add(rule);
 			}
@@ -202,7 +265,8 @@ public class Sat4jWrapper implements RuleContext {
 	}
 
 	/** Adds a new {@link Rule} to this solver. This calls {@link Rule#onLoadOptionAdded(LoadOption)} for every
-	 * {@link LoadOption} currently held, and calls {@link Rule#define(RuleDefiner)} once afterwards. */
+	 * {@link LoadOption} currently held (that matches the {@link Rule#getInterestKeys()}, if the rule has any), and
+	 * calls {@link Rule#define(RuleDefiner)} once afterwards. */
 	@Override
 	public void addRule(Rule rule) {
 		if (LOG) {
@@ -212,9 +276,33 @@ public class Sat4jWrapper implements RuleContext {
 		validateCanAdd();
 
 		ruleToDefinitions.put(rule, new ArrayList<>(1));
+		unindexRule(rule);
+		cachedErrors.removeIf(error -> error.contains(rule));
+
+		Collection<?> keys = rule.getInterestKeys();
+		if (keys == null) {
+			broadcastRules.add(rule);
 
-		for (LoadOption option : optionToWeight.keySet()) {
-			rule.onLoadOptionAdded(option);
+			for (LoadOption option : optionIndex.options()) {
+				rule.onLoadOptionAdded(option);
+			}
+		} else {
+			ruleToKeys.put(rule, keys);
+			Set<LoadOption> options = new LinkedHashSet<>();
+
+			for (Object key : keys) {
+				keyToRules.computeIfAbsent(key, k -> new ArrayList<>()).add(rule);
+
+				if (key instanceof String) {
+					options.addAll(modIdToOptions.getOrDefault(key, Collections.emptyList()));
+				} else if (key instanceof LoadOption && optionIndex.contains((LoadOption) key)) {
+					options.add((LoadOption) key);
+				}
+			}
+
+			for (LoadOption option : options) {
+				rule.onLoadOptionAdded(option);
+			}
 		}
 
 		rule.define(new RuleDefinerInternal(rule));
@@ -227,7 +315,31 @@ public class Sat4jWrapper implements RuleContext {
 
 		validateCanAdd();
 		ruleToDefinitions.remove(rule);
-		rulesChanged = true;
+		unindexRule(rule);
+		retractConstraints(rule);
+	}
+
+	private void unindexRule(Rule rule) {
+		broadcastRules.remove(rule);
+		Collection<?> keys = ruleToKeys.remove(rule);
+		if (keys != null) {
+			for (Object key : keys) {
+				List<Rule> rules = keyToRules.get(key);
+				if (rules != null && rules.remove(rule) && rules.isEmpty()) {
+					keyToRules.remove(key);
+				}
+			}
+		}
+	}
+
+	/** @return Every rule which might be affected by the given option being added or removed. */
+	private Set<Rule> getInterestedRules(LoadOption option) {
+		Set<Rule> rules = new LinkedHashSet<>(broadcastRules);
+		rules.addAll(keyToRules.getOrDefault(option, Collections.emptyList()));
+		if (option instanceof ModLoadOption) {
+			rules.addAll(keyToRules.getOrDefault(((ModLoadOption) option).id(), Collections.emptyList()));
+		}
+		return rules;
 	}
 
 	/** Clears any current definitions this rule is associated with, and calls {@link Rule#define(RuleDefiner)} */
@@ -240,7 +352,7 @@ public class Sat4jWrapper implements RuleContext {
 
 		validateCanAdd();
 		ruleToDefinitions.put(rule, new ArrayList<>(1));
-		rulesChanged = true;
+		retractConstraints(rule);
 		rule.define(new RuleDefinerInternal(rule));
 	}
 
@@ -283,11 +395,10 @@ public class Sat4jWrapper implements RuleContext {
 			}
 
 			rulesChanged = false;
-			optionToIndex.clear();
-			indexToOption.clear();
 			constraintToRule = new HashMap<>();
-			solver = SolverFactory.newDefault();
-			solver = explainer = new XplainPB(solver);
+			ruleToConstraints = new HashMap<>();
+			explainer = new XplainPB(SolverFactory.newDefault());
+			variables = new OptionVariables(explainer, optionIndex, CATEGORY);
 			putDefinitions();
 
 		} else if (step != Sat4jSolveStep.SOLVE) {
@@ -302,15 +413,25 @@ public class Sat4jWrapper implements RuleContext {
 				Log.info(CATEGORY, "Found a valid solution, preparing to optimise it.");
 			}
 
+			// The model we just found is valid for the optimisers as well
+			// so we use it as an upper bound for their objective functions.
+			boolean[] firstModel = new boolean[optionIndex.idLimit()];
+			for (int value : explainer.model()) {
+				if (value > 0) {
+					int id = variables.getId(value);
+					if (id >= 0) {
+						firstModel[id] = true;
+					}
+				}
+			}
+
 			explainer = null;
-			solver = new OptToPBSATAdapter(optimiser = new PseudoOptDecorator(SolverFactory.newDefault()));
-			// optimiser.setTimeoutForFindingBetterSolution(2);
-			step = Sat4jSolveStep.RE_SOLVING;
-			optionToIndex.clear();
-			indexToOption.clear();
-			solver.setVerbose(true);
+			variables = null;
 			constraintToRule = null;
-			putDefinitions();
+			ruleToConstraints = null;
+			step = Sat4jSolveStep.RE_SOLVING;
+
+			components = splitIntoComponents(firstModel);
 			return true;
 		} else {
 			return false;
@@ -333,6 +454,56 @@ public class Sat4jWrapper implements RuleContext {
 		return rules;
 	}
 
+	/** Finds as many of the errors that prevented {@link #hasSolution()} from returning true as possible, in one go.
+	 * Each error is a minimal set of rules which can't all be satisfied together, and no two errors share a rule, so
+	 * removing a rule from one error doesn't change the others. Errors found by earlier calls are reused for as long
+	 * as none of their rules are removed or redefined.
+	 * <p>
+	 * Rules which don't share any options can't be part of the same error, so each group of rules that do is
+	 * diagnosed separately, in parallel.
+	 *
+	 * @return A non-empty list of errors.
+	 * @throws IllegalStateException if the last call to {@link #hasSolution()} didn't return false, or if any other
+	 *             methods have been called since the last call to {@link #hasSolution()}. */
+	public List<Collection<Rule>> getErrors() throws TimeoutException {
+		checkCancelled();
+
+		if (step != Sat4jSolveStep.SOLVE || explainer == null) {
+			throw new IllegalStateException("Wrong step to call getErrors! (" + step + ")");
+		}
+
+		List<Collection<Rule>> errors = new ArrayList<>(cachedErrors);
+		Set<Rule> excluded = new HashSet<>();
+		for (Set<Rule> error : cachedErrors) {
+			excluded.addAll(error);
+		}
+
+		List<DiagnosisGroup> groups = splitIntoDiagnosisGroups(excluded);
+
+		try {
+			if (groups.size() == 1) {
+				groups.get(0).diagnose();
+			} else if (!groups.isEmpty()) {
+				runInParallel(groups, DiagnosisGroup::diagnose);
+			}
+		} catch (ModSolvingError e) {
+			// Never thrown by diagnose()
+			throw new IllegalStateException(e);
+		}
+
+		for (DiagnosisGroup group : groups) {
+			errors.addAll(group.errors);
+			cachedErrors.addAll(group.errors);
+		}
+
+		if (errors.isEmpty()) {
+			// Should never happen, since every error is contained within a single group
+			errors.add(getError());
+		}
+
+		return errors;
+	}
+
 	/** Computes and returns the optimised solution.
 	 * 
 	 * @return The solution.
@@ -342,97 +513,125 @@ public class Sat4jWrapper implements RuleContext {
 	public List<LoadOption> getSolution() throws TimeoutException, ModSolvingError {
 		checkCancelled();
 
-		if (LOG) {
-			Log.info(CATEGORY, "Starting optimisation.");
-		}
+		List<OptimisationComponent> list = components;
 
-		int count = 0;
-		boolean success = false;
+		if (list == null) {
+			throw new IllegalStateException("Wrong step to call getSolution! (" + step + ")");
+		}
 
-		// 5 second timeout - this will regularly be hit by users
-		// as such this needs to be fairly short, but not too short as then there's no time to optimise.
-		// ALSO this happens *every cycle*
-		optimiser.setTimeoutForFindingBetterSolution(5);
+		if (LOG) {
+			Log.info(CATEGORY, "Starting optimisation of " + list.size() + " components.");
+		}
 
-		while (true) {
+		step = Sat4jSolveStep.OPTIMISE;
+		long start = System.nanoTime();
+		long deadline = start + optimiseTimeoutNanos;
 
-			try {
-				if (!optimiser.admitABetterSolution()) {
-					break;
-				}
-			} catch (TimeoutException e) {
-				if (success) {
-					if (LOG) {
-						Log.info(CATEGORY, "Aborted optimisation due to timeout");
-					}
-					break;
-				}
+		List<ComponentOptimiser> optimisers = new ArrayList<>();
+		for (OptimisationComponent component : list) {
+			if (component.definitions.isEmpty()) {
+				component.settle();
+			} else {
+				optimisers.addAll(component.optimisers);
 			}
+		}
 
-			step = Sat4jSolveStep.OPTIMISE;
-			success = true;
-
-			if (LOG) {
-				Log.info(
-					CATEGORY, "Found solution #" + (++count) + " weight = " + optimiser.calculateObjective().intValue()
-						+ " = " + Arrays.toString(optimiser.model())
-				);
-			}
+		if (optimisers.size() == 1) {
+			optimisers.get(0).optimise(deadline);
+		} else if (!optimisers.isEmpty()) {
+			runInParallel(optimisers, optimiser -> optimiser.optimise(deadline));
+		}
 
-			try {
-				optimiser.discardCurrentSolution();
-			} catch (ContradictionException e) {
-				// This means we're *already* optimal?
-				if (LOG) {
-					Log.info(CATEGORY, "Found optimal solution!");
-				}
-				break;
-			}
+		List<LoadOption> solution = new ArrayList<>();
+		for (OptimisationComponent component : list) {
+			solution.addAll(component.getSolution());
 		}
 
-		if (!success) {
-			throw new ModSolvingError(
-				"We just solved this! Something must have gone wrong internally..." + ruleToDefinitions
-			);
+		if (LOG) {
+			Log.info(CATEGORY, "Optimisation took " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
 		}
 
-		int[] model = optimiser.model();
-		List<LoadOption> list = new ArrayList<>();
+		components = null;
+		step = Sat4jSolveStep.DONE;
 
-		for (int value : model) {
-			if (value < 0) {
-				// Negated, so ignored
-				continue;
-			}
+		return solution;
+	}
 
-			LoadOption option = indexToOption.get(value);
-			if (option == null) {
-				throw new ModSolvingError("Unknown value " + value);
-			}
-			list.add(option);
+	/** Runs the given task for every value in the list, spread across as many threads as there are processors. */
+	private <T> void runInParallel(List<T> list, ParallelTask<T> task) throws TimeoutException, ModSolvingError {
+
+		int threadCount = Math.min(Runtime.getRuntime().availableProcessors(), list.size());
+		AtomicInteger nextIndex = new AtomicInteger();
+		Throwable[] exceptions = new Throwable[threadCount];
+		Thread[] threads = new Thread[threadCount];
+
+		for (int i = 0; i < threadCount; i++) {
+			int threadIndex = i;
+			threads[i] = new Thread(() -> {
+				try {
+					int index;
+					while ((index = nextIndex.getAndIncrement()) < list.size()) {
+						task.run(list.get(index));
+					}
+				} catch (Throwable t) {
+					exceptions[threadIndex] = t;
+					// Stop the other threads from picking up any more work
+					nextIndex.set(list.size());
+				}
+			}, "Quilt Loader Solver " + i);
+			threads[i].setDaemon(true);
+			threads[i].start();
 		}
 
-		step = Sat4jSolveStep.DONE;
+		for (Thread thread : threads) {
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				hardCancel();
+				throw new TimeoutException("Interrupted while solving");
+			}
+		}
 
-		return list;
+		for (Throwable t : exceptions) {
+			if (t instanceof TimeoutException) {
+				throw (TimeoutException) t;
+			} else if (t instanceof ModSolvingError) {
+				throw (ModSolvingError) t;
+			} else if (t instanceof RuntimeException) {
+				throw (RuntimeException) t;
+			} else if (t instanceof Error) {
+				throw (Error) t;
+			} else if (t != null) {
+				throw new IllegalStateException(t);
+			}
+		}
 	}
 
 	/** This method cancels the current operation, if there is one running. */
 	public boolean cancel() {
-		IPBSolver s = solver;
+		boolean any = false;
+		XplainPB s = explainer;
 		if (s != null) {
 			s.expireTimeout();
-			return true;
+			any = true;
 		}
-		return false;
+		List<OptimisationComponent> list = components;
+		if (list != null) {
+			for (OptimisationComponent component : list) {
+				any |= component.cancel();
+			}
+		}
+		for (XplainPB diagnoser : diagnosers) {
+			diagnoser.expireTimeout();
+			any = true;
+		}
+		return any;
 	}
 
 	/** This method cancels the current operation, if we are in the given step, otherwise this does nothing. */
 	public boolean cancelIf(Sat4jSolveStep step) {
-		IPBSolver s = solver;
-		if (s != null && this.step == step) {
-			s.expireTimeout();
-			return true;
+		if (this.step == step) {
+			return cancel();
 		}
 		return false;
 	}
@@ -447,99 +646,183 @@ public class Sat4jWrapper implements RuleContext {
 	// # Internal #
 	// ############
 
-	/* package-private */ IVecInt mapOptionsToSat4jClause(LoadOption[] options) {
-		IVecInt vec = new VecInt(options.length);
+	private void checkCancelled() throws TimeoutException {
+		if (cancelled) {
+			throw new TimeoutException();
+		}
+	}
 
-		for (LoadOption option : options) {
-			boolean negated = false;
+	private void putDefinitions() {
+		if (constraintToRule != null) {
+			constraintToRule.clear();
+			ruleToConstraints.clear();
+		}
 
-			if (option instanceof NegatedLoadOption) {
-				negated = true;
-				option = ((NegatedLoadOption) option).not;
+		for (int id = 0; id < optionIndex.idLimit(); id++) {
+			if (optionIndex.getOption(id) != null) {
+				variables.putId(id);
 			}
+		}
 
-			int value = putOptionRaw(option);
+		for (Map.Entry<Rule, List<RuleDefinition>> entry : ruleToDefinitions.entrySet()) {
+			Rule rule = entry.getKey();
 
-			if (negated) {
-				value = -value;
+			for (RuleDefinition def : entry.getValue()) {
+				addRuleDefinition(rule, def);
 			}
-
-			vec.push(value);
 		}
-
-		return vec;
 	}
 
-	private int putOptionRaw(LoadOption option) {
-		Integer objVal = optionToIndex.get(option);
+	/** Splits every option and rule definition into groups which don't share any options, since each group can be
+	 * optimised on its own. */
+	private List<OptimisationComponent> splitIntoComponents(boolean[] firstModel) {
+		int[] parents = new int[optionIndex.idLimit()];
+		for (int i = 0; i < parents.length; i++) {
+			parents[i] = i;
+		}
 
-		if (objVal == null) {
-			objVal = solver.nextFreeVarId(true);
-			optionToIndex.put(option, objVal);
-			indexToOption.put(objVal, option);
+		for (List<RuleDefinition> definitions : ruleToDefinitions.values()) {
+			for (RuleDefinition def : definitions) {
+				def.validateOptions(optionIndex);
+				int first = -1;
+				for (LoadOption option : def.options) {
+					int id = findRoot(parents, optionIndex.getId(RuleDefinition.unwrap(option)));
+					if (first < 0) {
+						first = id;
+					} else if (id != first) {
+						parents[id] = first;
+					}
+				}
+			}
+		}
 
-			if (LOG) {
-				Log.info(CATEGORY, objVal + " = " + option);
+		Map<Integer, OptimisationComponent> roots = new HashMap<>();
+		List<OptimisationComponent> list = new ArrayList<>();
+		for (int i = 0; i < parents.length; i++) {
+			if (optionIndex.getOption(i) == null) {
+				// Removed
+				continue;
+			}
+			int root = findRoot(parents, i);
+			OptimisationComponent component = roots.get(root);
+			if (component == null) {
+				component = new OptimisationComponent();
+				roots.put(root, component);
+				list.add(component);
 			}
+			component.add(i);
 		}
 
-		int value = objVal;
-		return value;
-	}
+		for (List<RuleDefinition> definitions : ruleToDefinitions.values()) {
+			for (RuleDefinition def : definitions) {
+				// Definitions without any options can't affect anything
+				if (def.options.length > 0) {
+					int id = optionIndex.getId(RuleDefinition.unwrap(def.options[0]));
+					roots.get(findRoot(parents, id)).definitions.add(def);
+				}
+			}
+		}
 
-	private void checkCancelled() throws TimeoutException {
-		if (cancelled) {
-			throw new TimeoutException();
+		int strategyCount = portfolio
+			? Math.min(Strategy.values().length, Runtime.getRuntime().availableProcessors())
+			: 1;
+
+		for (OptimisationComponent component : list) {
+			if (!component.definitions.isEmpty()) {
+				component.build(firstModel, strategyCount);
+			}
 		}
+
+		return list;
 	}
 
-	private void putDefinitions() {
-		if (constraintToRule != null) {
-			constraintToRule.clear();
+	/** Splits every rule which isn't excluded into groups which don't share any options. */
+	private List<DiagnosisGroup> splitIntoDiagnosisGroups(Set<Rule> excluded) {
+		int[] parents = new int[optionIndex.idLimit()];
+		for (int i = 0; i < parents.length; i++) {
+			parents[i] = i;
 		}
 
-		for (LoadOption option : optionToWeight.keySet()) {
-			putOptionRaw(option);
-		}
+		Map<Rule, Integer> ruleToOption = new LinkedHashMap<>();
 
 		for (Map.Entry<Rule, List<RuleDefinition>> entry : ruleToDefinitions.entrySet()) {
-			Rule rule = entry.getKey();
+			if (excluded.contains(entry.getKey())) {
+				continue;
+			}
 
+			int first = -1;
 			for (RuleDefinition def : entry.getValue()) {
-				addRuleDefinition(rule, def);
+				def.validateOptions(optionIndex);
+				for (LoadOption option : def.options) {
+					int id = findRoot(parents, optionIndex.getId(RuleDefinition.unwrap(option)));
+					if (first < 0) {
+						first = id;
+					} else if (id != first) {
+						parents[id] = first;
+					}
+				}
 			}
-		}
 
-		if (optimiser != null) {
-			int count = optionToWeight.size();
-			IVecInt vars = new VecInt(count);
-			IVec<BigInteger> coeffs = new Vec<>(count);
+			// Rules without any options can't be part of an error
+			if (first >= 0) {
+				ruleToOption.put(entry.getKey(), first);
+			}
+		}
 
-			for (LoadOption option : optionToWeight.keySet()) {
-				Map<Rule, Integer> weights = optionToWeight.get(option);
-				Integer value = optionToIndex.get(option);
-				if (value == null) {
-					throw new NullPointerException(option + " isn't in the optionToIndex map!");
-				}
-				vars.push(value);
-				int totalWeight = 0;
-				for (int weight : weights.values()) {
-					totalWeight += weight;
-				}
-				coeffs.push(BigInteger.valueOf(totalWeight));
+		Map<Integer, DiagnosisGroup> roots = new HashMap<>();
+		List<DiagnosisGroup> list = new ArrayList<>();
+		for (Map.Entry<Rule, Integer> entry : ruleToOption.entrySet()) {
+			int root = findRoot(parents, entry.getValue());
+			DiagnosisGroup group = roots.get(root);
+			if (group == null) {
+				group = new DiagnosisGroup();
+				roots.put(root, group);
+				list.add(group);
 			}
+			group.rules.add(entry.getKey());
+		}
+		return list;
+	}
 
-			optimiser.setObjectiveFunction(new ObjectiveFunction(vars, coeffs));
+	private static int findRoot(int[] parents, int index) {
+		while (parents[index] != index) {
+			// Path halving keeps the trees shallow
+			parents[index] = parents[parents[index]];
+			index = parents[index];
+		}
+		return index;
+	}
+
+	/** Removes the constraints of the given rule from the {@link #explainer}, or marks the rules as changed if that
+	 * isn't possible. */
+	private void retractConstraints(Rule rule) {
+		cachedErrors.removeIf(error -> error.contains(rule));
+
+		if (ruleToConstraints == null) {
+			rulesChanged = true;
+			return;
+		}
+
+		List<IConstr> constraints = ruleToConstraints.remove(rule);
+		if (constraints == null) {
+			return;
+		}
+
+		for (IConstr c : constraints) {
+			constraintToRule.remove(c);
+			if (!explainer.removeConstr(c)) {
+				rulesChanged = true;
+			}
 		}
 	}
 
 	private void addRuleDefinition(Rule rule, RuleDefinition def) {
 
-		def.validateOptions(optionToWeight.keySet());
+		def.validateOptions(optionIndex);
 
 		IConstr[] added;
 		try {
-			added = def.put(this, solver);
+			added = def.put(variables, explainer);
 		} catch (ContradictionException e) {
 			// Should never happen
 			throw new IllegalStateException("Failed to add the definition " + def, e);
@@ -549,11 +832,396 @@ public class Sat4jWrapper implements RuleContext {
 			for (IConstr c : added) {
 				if (c != null) {
 					constraintToRule.put(c, rule);
+					ruleToConstraints.computeIfAbsent(rule, r -> new ArrayList<>()).add(c);
+				}
+			}
+		}
+	}
+
+	/** A set of options which don't share any rule definitions with any other options, and so can be optimised
+	 * independently. */
+	private final class OptimisationComponent {
+		/** The {@link OptionIndex} ids of every option in this component. */
+		int[] ids = new int[4];
+		int idCount = 0;
+		final List<RuleDefinition> definitions = new ArrayList<>();
+
+		/** One for each {@link Strategy} used. Empty if this component doesn't have any definitions. */
+		final List<ComponentOptimiser> optimisers = new ArrayList<>();
+
+		/** Set once any of the {@link #optimisers} has found a solution. */
+		volatile boolean solved;
+
+		/** Set once any of the {@link #optimisers} has proven that its solution is the best. */
+		volatile boolean optimal;
+
+		/** Only available after {@link #settle()}. */
+		List<LoadOption> solution;
+
+		/** The options picked by the first model, which is used if none of the {@link #optimisers} find a solution
+		 * before the deadline. Only available after {@link #build(boolean[], int)}. */
+		List<LoadOption> firstSolution;
+
+		void add(int id) {
+			if (idCount == ids.length) {
+				ids = Arrays.copyOf(ids, idCount * 2);
+			}
+			ids[idCount++] = id;
+		}
+
+		/** @return The number of options and definitions, which is used to scale how long this is optimised for. */
+		int size() {
+			return idCount + definitions.size();
+		}
+
+		void build(boolean[] firstModel, int strategyCount) {
+			firstSolution = new ArrayList<>();
+			for (int i = 0; i < idCount; i++) {
+				if (firstModel[ids[i]]) {
+					firstSolution.add(optionIndex.getOption(ids[i]));
+				}
+			}
+
+			Strategy[] strategies = Strategy.values();
+			for (int i = 0; i < strategyCount; i++) {
+				optimisers.add(new ComponentOptimiser(this, strategies[i], firstModel));
+			}
+		}
+
+		/** Picks the best value for every option directly, since there aren't any definitions to satisfy. Options with a
+		 * total weight of zero aren't picked, which is the same result sat4j gives for a variable that isn't in any
+		 * constraint, since it tries false first. */
+		void settle() {
+			solution = new ArrayList<>();
+			for (int i = 0; i < idCount; i++) {
+				if (optionIndex.getTotalWeight(ids[i]) < 0) {
+					solution.add(optionIndex.getOption(ids[i]));
+				}
+			}
+		}
+
+		/** Called when one of the {@link #optimisers} has proven its solution is the best, so the others don't need to
+		 * keep looking. */
+		void markOptimal(ComponentOptimiser from) {
+			optimal = true;
+			for (ComponentOptimiser other : optimisers) {
+				if (other != from) {
+					other.cancel(false);
+				}
+			}
+		}
+
+		/** @return The best solution found by any of the {@link #optimisers}, or the settled solution. */
+		List<LoadOption> getSolution() throws ModSolvingError {
+			if (solution != null) {
+				return solution;
+			}
+
+			ComponentOptimiser best = null;
+			for (ComponentOptimiser optimiser : optimisers) {
+				if (optimiser.solution != null && (best == null || optimiser.objective < best.objective)) {
+					best = optimiser;
+				}
+			}
+
+			if (best == null) {
+				if (LOG) {
+					Log.info(CATEGORY, "No solution found before the deadline, using the first model instead");
+				}
+				return firstSolution;
+			}
+
+			if (LOG && optimisers.size() > 1) {
+				Log.info(CATEGORY, "Picked the solution from " + best.strategy + " with weight " + best.objective);
+			}
+
+			return best.solution;
+		}
+
+		boolean cancel() {
+			boolean any = false;
+			for (ComponentOptimiser optimiser : optimisers) {
+				any |= optimiser.cancel(true);
+			}
+			return any;
+		}
+	}
+
+	/** Optimises an {@link OptimisationComponent} with a single {@link Strategy}. */
+	private final class ComponentOptimiser {
+		final OptimisationComponent component;
+		final Strategy strategy;
+		final PseudoOptDecorator optimiser;
+		final OptionVariables variables;
+
+		/** Only available after {@link #optimise(long)} has found a solution. */
+		List<LoadOption> solution;
+		long objective;
+
+		/** Set by {@link Sat4jWrapper#cancel()}. */
+		volatile boolean cancelRequested;
+
+		ComponentOptimiser(OptimisationComponent component, Strategy strategy, boolean[] firstModel) {
+			this.component = component;
+			this.strategy = strategy;
+
+			PseudoOptDecorator optimiser = new PseudoOptDecorator(strategy.factory.get());
+			IPBSolver solver = new OptToPBSATAdapter(optimiser);
+			solver.setVerbose(true);
+			variables = new OptionVariables(solver, optionIndex, CATEGORY);
+
+			for (int i = 0; i < component.idCount; i++) {
+				variables.putId(component.ids[i]);
+			}
+
+			for (RuleDefinition def : component.definitions) {
+				try {
+					def.put(variables, solver);
+				} catch (ContradictionException e) {
+					// Should never happen
+					throw new IllegalStateException("Failed to add the definition " + def, e);
+				}
+			}
+
+			IVecInt vars = new VecInt(component.idCount);
+			IVec<BigInteger> coeffs = new Vec<>(component.idCount);
+			long bound = 0;
+
+			for (int i = 0; i < component.idCount; i++) {
+				int id = component.ids[i];
+				int weight = optionIndex.getTotalWeight(id);
+				vars.push(variables.getVariable(id));
+				coeffs.push(BigInteger.valueOf(weight));
+				if (firstModel[id]) {
+					bound += weight;
+				}
+			}
+
+			optimiser.setObjectiveFunction(new ObjectiveFunction(vars, coeffs));
+
+			try {
+				optimiser.addAtMost(vars, coeffs, BigInteger.valueOf(bound));
+			} catch (ContradictionException e) {
+				// Should never happen, since the first model satisfies every other constraint
+				throw new IllegalStateException("Failed to bound the objective function to " + bound, e);
+			}
+
+			this.optimiser = optimiser;
+		}
+
+		/** @param hardDeadline The {@link System#nanoTime()} after which this must stop, even if it hasn't found any
+		 *            solution. In that case the component falls back to the first model.
+		 * @throws TimeoutException if this was cancelled before any solution was found for the component. */
+		void optimise(long hardDeadline) throws TimeoutException, ModSolvingError {
+			int count = 0;
+			boolean success = false;
+
+			// Each component gets its own budget, starting from when it was picked up,
+			// so components that wait for a free thread aren't cut short.
+			// Larger problems get longer before we stop waiting for better solutions.
+			long start = System.nanoTime();
+			long softDeadline = Math.min(
+				hardDeadline, start + MIN_OPTIMISE_NANOS + OPTIMISE_NANOS_PER_ELEMENT * component.size()
+			);
+
+			while (true) {
+				if (component.optimal) {
+					break;
+				}
+
+				if (cancelRequested) {
+					if (!success && !component.solved) {
+						throw new TimeoutException("Cancelled before any solution was found");
+					}
+					break;
+				}
+
+				long now = System.nanoTime();
+				if (success && now >= softDeadline) {
+					if (LOG) {
+						Log.info(CATEGORY, "Aborted optimisation due to timeout");
+					}
+					break;
+				}
+
+				if (!success && component.solved && now >= softDeadline) {
+					// Another strategy already has a solution we can use
+					break;
+				}
+
+				if (now >= hardDeadline) {
+					if (LOG) {
+						Log.info(CATEGORY, strategy + " didn't find a solution before the deadline");
+					}
+					break;
+				}
+
+				long remaining = TimeUnit.NANOSECONDS.toMillis((success ? softDeadline : hardDeadline) - now);
+				optimiser.setTimeoutMs(Math.max(1, remaining));
+
+				try {
+					if (!optimiser.admitABetterSolution()) {
+						if (success) {
+							component.markOptimal(this);
+						}
+						break;
+					}
+				} catch (TimeoutException e) {
+					if (success) {
+						if (LOG) {
+							Log.info(CATEGORY, "Aborted optimisation due to timeout");
+						}
+						break;
+					}
+					// We know there's a solution, so keep looking for it until we're cancelled or the deadline passes
+					continue;
+				}
+
+				success = true;
+				component.solved = true;
+				objective = optimiser.calculateObjective().longValue();
+
+				// Improvements that keep coming quickly earn more time,
+				// while slow ones let us stop well before the hard deadline.
+				long found = System.nanoTime();
+				softDeadline = Math.min(hardDeadline, Math.max(softDeadline, found + (found - start)));
+
+				if (LOG) {
+					Log.info(
+						CATEGORY, strategy + " found solution #" + (++count) + " weight = " + objective + " = "
+							+ Arrays.toString(optimiser.model())
+					);
 				}
+
+				try {
+					optimiser.discardCurrentSolution();
+				} catch (ContradictionException e) {
+					// This means we're *already* optimal?
+					if (LOG) {
+						Log.info(CATEGORY, "Found optimal solution!");
+					}
+					component.markOptimal(this);
+					break;
+				}
+			}
+
+			if (!success) {
+				// Either another strategy has a solution, or the component falls back to the first model
+				return;
+			}
+
+			List<LoadOption> solution = new ArrayList<>();
+			for (int value : optimiser.model()) {
+				if (value < 0) {
+					// Negated, so ignored
+					continue;
+				}
+
+				LoadOption option = variables.getOption(value);
+				if (option == null) {
+					throw new ModSolvingError("Unknown value " + value);
+				}
+				solution.add(option);
+			}
+			this.solution = solution;
+		}
+
+		/** @param external True if this was cancelled by {@link Sat4jWrapper#cancel()}, rather than because another
+		 *            strategy proved its solution is optimal. */
+		boolean cancel(boolean external) {
+			if (external) {
+				cancelRequested = true;
+			}
+			optimiser.expireTimeout();
+			return true;
+		}
+	}
+
+	/** A set of rules which don't share any options with any other rules, and so can be diagnosed independently. */
+	private final class DiagnosisGroup {
+		final List<Rule> rules = new ArrayList<>();
+
+		/** Only available after {@link #diagnose()}. */
+		final List<Set<Rule>> errors = new ArrayList<>();
+
+		void diagnose() throws TimeoutException {
+			XplainPB solver = new XplainPB(SolverFactory.newDefault());
+			OptionVariables variables = new OptionVariables(solver, optionIndex, CATEGORY);
+			Map<IConstr, Rule> constraintToRule = new HashMap<>();
+			Map<Rule, List<IConstr>> ruleToConstraints = new HashMap<>();
+
+			for (Rule rule : rules) {
+				List<IConstr> constraints = new ArrayList<>();
+				for (RuleDefinition def : ruleToDefinitions.get(rule)) {
+					IConstr[] added;
+					try {
+						added = def.put(variables, solver);
+					} catch (ContradictionException e) {
+						// Should never happen
+						throw new IllegalStateException("Failed to add the definition " + def, e);
+					}
+					for (IConstr c : added) {
+						if (c != null) {
+							constraintToRule.put(c, rule);
+							constraints.add(c);
+						}
+					}
+				}
+				ruleToConstraints.put(rule, constraints);
+			}
+
+			diagnosers.add(solver);
+			try {
+				while (errors.size() < MAX_ERRORS_PER_GROUP && !solver.isSatisfiable()) {
+					Set<Rule> error = new LinkedHashSet<>();
+					for (IConstr c : solver.explain()) {
+						Rule rule = constraintToRule.get(c);
+						if (rule != null) {
+							error.add(rule);
+						}
+					}
+
+					if (error.isEmpty()) {
+						break;
+					}
+
+					errors.add(error);
+
+					// Removing every rule in the error means the next error can't share any of them
+					for (Rule rule : error) {
+						for (IConstr c : ruleToConstraints.remove(rule)) {
+							if (!solver.removeConstr(c)) {
+								return;
+							}
+						}
+					}
+				}
+			} finally {
+				diagnosers.remove(solver);
 			}
 		}
 	}
 
+	@FunctionalInterface
+	private interface ParallelTask<T> {
+		void run(T value) throws TimeoutException, ModSolvingError;
+	}
+
+	/** The sat4j configurations raced against each other when {@link Sat4jWrapper#portfolio} is enabled. Only the
+	 * first is used otherwise. */
+	private enum Strategy {
+		DEFAULT(SolverFactory::newDefault),
+		GLUCOSE_RESTARTS(SolverFactory::newResolutionGlucose),
+		SIMPLE_RESTARTS(SolverFactory::newResolutionSimpleRestarts),
+		CUTTING_PLANES(SolverFactory::newCuttingPlanes);
+
+		final Supplier<IPBSolver> factory;
+
+		Strategy(Supplier<IPBSolver> factory) {
+			this.factory = factory;
+		}
+	}
+
 	class RuleDefinerInternal implements RuleDefiner {
 
 		final Rule rule;
@@ -596,7 +1264,7 @@ public class Sat4jWrapper implements RuleContext {
 
 			ruleToDefinitions.computeIfAbsent(rule, r -> new ArrayList<>()).add(def);
 
-			if (solver != null) {
+			if (explainer != null) {
 				addRuleDefinition(rule, def);
 			}
 		}
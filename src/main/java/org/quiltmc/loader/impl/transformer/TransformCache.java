@@ -29,6 +29,7 @@ import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -61,6 +62,7 @@ import org.quiltmc.loader.impl.util.QuiltLoaderInternalType;
 import org.quiltmc.loader.impl.util.SystemProperties;
 import org.quiltmc.loader.impl.util.log.Log;
 import org.quiltmc.loader.impl.util.log.LogCategory;
+import org.quiltmc.loader.impl.util.log.LogLevel;
 import org.spongepowered.asm.mixin.transformer.IMixinTransformer;
 import org.spongepowered.asm.mixin.transformer.throwables.IllegalClassLoadError;
 
@@ -110,7 +112,9 @@ public class TransformCache {
 			throw new ModResolutionException("Failed to create parent directories of the transform cache file!", e);
 		}
 
+		long start = System.nanoTime();
 		QuiltZipPath existing = checkTransformCache(transformCacheFolder, map);
+		long checkEnd = System.nanoTime();
 		boolean isNewlyGenerated = false;
 		if (existing == null) {
 			existing = createTransformCache(transformCacheFolder.resolve(CACHE_FILE), toString(map), modList, result);
@@ -118,6 +122,15 @@ public class TransformCache {
 		} else if (!Boolean.getBoolean(SystemProperties.DISABLE_PRELOAD_TRANSFORM_CACHE)) {
 			FilePreloadHelper.preLoad(transformCacheFolder.resolve(CACHE_FILE));
 		}
+		long end = System.nanoTime();
+
+		Map<String, Object> fields = new LinkedHashMap<>();
+		fields.put("newly_generated", isNewlyGenerated);
+		fields.put("mod_count", modList.size());
+		fields.put("check_ms", (checkEnd - start) / 1_000_000);
+		fields.put((isNewlyGenerated ? "create_ms" : "preload_ms"), (end - checkEnd) / 1_000_000);
+		Log.logFields(LogLevel.DEBUG, LogCategory.CACHE, fields, "%s the transform cache in %dms",
+			isNewlyGenerated ? "Created" : "Reused", (end - start) / 1_000_000);
 		return new TransformCacheResult(transformCacheFolder, isNewlyGenerated, existing);
 	}
 
@@ -20,24 +20,75 @@ package org.quiltmc.loader.impl.util;
 import org.quiltmc.loader.api.LanguageAdapter;
 import org.quiltmc.loader.api.LanguageAdapterException;
 import org.quiltmc.loader.api.ModContainer;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
 import org.quiltmc.loader.impl.launch.common.QuiltLauncherBase;
 
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandleProxies;
 import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @QuiltLoaderInternal(QuiltLoaderInternalType.LEGACY_EXPOSED)
 public final class DefaultLanguageAdapter implements LanguageAdapter {
 	public static final DefaultLanguageAdapter INSTANCE = new DefaultLanguageAdapter();
 
+	private static final boolean COMPILE_ENTRYPOINTS = !Boolean.getBoolean(SystemProperties.DISABLE_COMPILED_ENTRYPOINTS);
+
+	/** Resolved entrypoints, by value and then by requested type, so that the reflection needed to find the class and
+	 * member only happens once, even if the same value is used for several entrypoints. */
+	private final Map<String, Map<Class<?>, Factory>> factories = new ConcurrentHashMap<>();
+
+	/** Full privilege lookups in the same package, class loader and module as each entrypoint class, or null if one
+	 * couldn't be created. */
+	private static final ClassValue<MethodHandles.Lookup> LOOKUPS = new ClassValue<MethodHandles.Lookup>() {
+		@Override
+		protected MethodHandles.Lookup computeValue(Class<?> c) {
+			try {
+				return defineLookup(c);
+			} catch (Exception | LinkageError e) {
+				return null;
+			}
+		}
+	};
+
 	private DefaultLanguageAdapter() { }
 
+	/** Creates a new entrypoint instance from an already resolved class or member. */
+	@FunctionalInterface
+	private interface Factory {
+		Object create() throws Throwable;
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public <T> T create(ModContainer mod, String value, Class<T> type) throws LanguageAdapterException {
+		Map<Class<?>, Factory> byType = factories.computeIfAbsent(value, v -> new ConcurrentHashMap<>());
+		Factory factory = byType.get(type);
+
+		if (factory == null) {
+			factory = resolve(value, type);
+			byType.put(type, factory);
+		}
+
+		try {
+			return (T) factory.create();
+		} catch (LanguageAdapterException e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new LanguageAdapterException(e);
+		}
+	}
+
+	private static Factory resolve(String value, Class<?> type) throws LanguageAdapterException {
 		String[] methodSplit = value.split("::");
 
 		if (methodSplit.length >= 3) {
@@ -54,13 +105,7 @@ public final class DefaultLanguageAdapter implements LanguageAdapter {
 
 		if (methodSplit.length == 1) {
 			if (type.isAssignableFrom(c)) {
-				try {
-					@SuppressWarnings("unchecked")
-					T tmp = (T) c.getDeclaredConstructor().newInstance();
-					return tmp;
-				} catch (Exception e) {
-					throw new LanguageAdapterException(e);
-				}
+				return constructor(c);
 			} else {
 				throw new LanguageAdapterException("Class " + c.getName() + " cannot be cast to " + type.getName() + "!");
 			}
@@ -91,13 +136,15 @@ public final class DefaultLanguageAdapter implements LanguageAdapter {
 					throw new LanguageAdapterException("Field " + value + " cannot be cast to " + type.getName() + "!");
 				}
 
-				@SuppressWarnings("unchecked")
-				T tmp = (T) field.get(null);
-				return tmp;
+				return () -> {
+					try {
+						return field.get(null);
+					} catch (IllegalAccessException e) {
+						throw new LanguageAdapterException("Field " + value + " cannot be accessed!", e);
+					}
+				};
 			} catch (NoSuchFieldException e) {
 				// ignore
-			} catch (IllegalAccessException e) {
-				throw new LanguageAdapterException("Field " + value + " cannot be accessed!", e);
 			}
 
 			if (!type.isInterface()) {
@@ -111,15 +158,8 @@ public final class DefaultLanguageAdapter implements LanguageAdapter {
 			}
 
 			final Method targetMethod = methodList.get(0);
-			Object object = null;
-
-			if ((targetMethod.getModifiers() & Modifier.STATIC) == 0) {
-				try {
-					object = c.getDeclaredConstructor().newInstance();
-				} catch (Exception e) {
-					throw new LanguageAdapterException(e);
-				}
-			}
+			boolean isStatic = (targetMethod.getModifiers() & Modifier.STATIC) != 0;
+			Factory receiver = isStatic ? null : constructor(c);
 
 			MethodHandle handle;
 
@@ -129,16 +169,191 @@ public final class DefaultLanguageAdapter implements LanguageAdapter {
 				throw new LanguageAdapterException(ex);
 			}
 
-			if (object != null) {
-				handle = handle.bindTo(object);
+			if (COMPILE_ENTRYPOINTS) {
+				MethodHandle compiled = compile(c, targetMethod, type);
+
+				if (compiled != null) {
+					if (isStatic) {
+						return () -> (Object) compiled.invokeExact();
+					} else {
+						return () -> (Object) compiled.invokeExact(receiver.create());
+					}
+				}
 			}
 
 			// uses proxy as well, but this handles default and object methods
+			return () -> {
+				MethodHandle target = isStatic ? handle : handle.bindTo(receiver.create());
+				try {
+					return MethodHandleProxies.asInterfaceInstance(type, target);
+				} catch (Exception ex) {
+					throw new LanguageAdapterException(ex);
+				}
+			};
+		}
+	}
+
+	private static Factory constructor(Class<?> c) {
+		Constructor<?> constructor;
+
+		try {
+			constructor = c.getDeclaredConstructor();
+		} catch (Exception e) {
+			return () -> {
+				throw new LanguageAdapterException(e);
+			};
+		}
+
+		return () -> {
 			try {
-				return MethodHandleProxies.asInterfaceInstance(type, handle);
-			} catch (Exception ex) {
-				throw new LanguageAdapterException(ex);
+				return constructor.newInstance();
+			} catch (Exception e) {
+				throw new LanguageAdapterException(e);
+			}
+		};
+	}
+
+	/** Uses {@link LambdaMetafactory} to implement the given functional interface with a method, in the same way as a
+	 * method reference in source code. Unlike {@link MethodHandleProxies} the resulting class calls the method
+	 * directly, so it can be inlined.
+	 *
+	 * @return A handle which creates the interface instance, taking the receiver if the method isn't static, or null
+	 *         if the method can't implement the interface this way. */
+	static MethodHandle compile(Class<?> c, Method method, Class<?> type) {
+		Method sam = null;
+
+		for (Method m : type.getMethods()) {
+			if (!Modifier.isAbstract(m.getModifiers()) || isObjectMethod(m)) {
+				continue;
+			}
+
+			if (sam != null) {
+				// Not a functional interface
+				return null;
 			}
+
+			sam = m;
+		}
+
+		if (sam == null) {
+			return null;
+		}
+
+		try {
+			// The generated class is defined next to the target class, so it must see the same interface
+			if (Class.forName(type.getName(), false, c.getClassLoader()) != type) {
+				return null;
+			}
+
+			MethodHandles.Lookup lookup = LOOKUPS.get(c);
+			if (lookup == null) {
+				return null;
+			}
+
+			boolean isStatic = Modifier.isStatic(method.getModifiers());
+			MethodHandle impl = lookup.unreflect(method);
+			MethodType samType = MethodType.methodType(sam.getReturnType(), sam.getParameterTypes());
+
+			// Use the more specific parameter types of the method where they are compatible, so that generic
+			// interfaces get the casts that a method reference would have
+			Class<?>[] params = sam.getParameterTypes();
+			Class<?>[] implParams = method.getParameterTypes();
+
+			if (params.length != implParams.length) {
+				return null;
+			}
+
+			for (int i = 0; i < params.length; i++) {
+				if (!params[i].isPrimitive() && params[i].isAssignableFrom(implParams[i])) {
+					params[i] = implParams[i];
+				}
+			}
+
+			MethodType instantiatedType = MethodType.methodType(sam.getReturnType(), params);
+			MethodType factoryType = isStatic ? MethodType.methodType(type) : MethodType.methodType(type, c);
+
+			CallSite site = LambdaMetafactory.metafactory(
+				lookup, sam.getName(), factoryType, samType, impl, instantiatedType
+			);
+
+			MethodType erased = isStatic
+				? MethodType.methodType(Object.class)
+				: MethodType.methodType(Object.class, Object.class);
+			return site.getTarget().asType(erased);
+		} catch (Exception | LinkageError e) {
+			// Including LambdaConversionException, when the method isn't compatible with the interface
+			return null;
+		}
+	}
+
+	/** LambdaMetafactory needs a lookup with full privilege access, which {@link MethodHandles#privateLookupIn} can't
+	 * give for classes in another class loader (and so another unnamed module). Instead this defines a tiny class next
+	 * to the target class, which returns its own {@link MethodHandles#lookup()}. */
+	private static MethodHandles.Lookup defineLookup(Class<?> c) throws ReflectiveOperationException {
+		String name = c.getName() + "$QuiltEntrypointLookup";
+		String lookupDesc = "()Ljava/lang/invoke/MethodHandles$Lookup;";
+
+		ClassWriter writer = new ClassWriter(0);
+		writer.visit(
+			Opcodes.V1_8, Opcodes.ACC_FINAL | Opcodes.ACC_SUPER | Opcodes.ACC_SYNTHETIC,
+			name.replace('.', '/'), null, "java/lang/Object", null
+		);
+		MethodVisitor mv = writer.visitMethod(Opcodes.ACC_STATIC, "lookup", lookupDesc, null, null);
+		mv.visitCode();
+		mv.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/invoke/MethodHandles", "lookup", lookupDesc, false);
+		mv.visitInsn(Opcodes.ARETURN);
+		mv.visitMaxs(1, 0);
+		mv.visitEnd();
+		writer.visitEnd();
+
+		// Defining the helper and calling it only need package access, which privateLookupIn does give
+		MethodHandles.Lookup packageLookup = MethodHandles.privateLookupIn(c, MethodHandles.lookup());
+		MethodType lookupType = MethodType.methodType(MethodHandles.Lookup.class);
+
+		Class<?> helper;
+		try {
+			helper = packageLookup.defineClass(writer.toByteArray());
+		} catch (LinkageError e) {
+			// ClassValue may compute the same value on several threads at once, so it might already exist. A mod could
+			// have a class with the same name though, so only use it if it's another copy of this helper
+			helper = Class.forName(name, false, c.getClassLoader());
+			if (!isLookupHelper(helper, lookupType)) {
+				throw e;
+			}
+		}
+
+		MethodHandle factory = packageLookup.findStatic(helper, "lookup", lookupType);
+		MethodHandles.Lookup lookup;
+		try {
+			lookup = (MethodHandles.Lookup) factory.invokeExact();
+		} catch (Throwable t) {
+			throw new IllegalStateException("Failed to call " + name, t);
+		}
+
+		if (lookup.lookupClass() != helper) {
+			throw new IllegalStateException(name + " didn't return its own lookup");
+		}
+		return lookup;
+	}
+
+	private static boolean isLookupHelper(Class<?> helper, MethodType lookupType) {
+		if (!helper.isSynthetic() || (helper.getModifiers() & Modifier.FINAL) == 0) {
+			return false;
+		}
+		try {
+			Method method = helper.getDeclaredMethod("lookup");
+			return (method.getModifiers() & Modifier.STATIC) != 0 && method.getReturnType() == lookupType.returnType();
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	private static boolean isObjectMethod(Method m) {
+		try {
+			Object.class.getMethod(m.getName(), m.getParameterTypes());
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
 		}
 	}
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/** A cheap identity for a file on the default filesystem: its absolute path, size, and last modified time. Used by
+ * caches to decide if a file has changed since it was last read, without reading the file itself. */
+@QuiltLoaderInternal(QuiltLoaderInternalType.NEW_INTERNAL)
+public final class FileFingerprint {
+
+	public final String path;
+	public final long size;
+	public final long lastModified;
+
+	public FileFingerprint(String path, long size, long lastModified) {
+		this.path = path;
+		this.size = size;
+		this.lastModified = lastModified;
+	}
+
+	/** @param file A file on the default filesystem. */
+	public static FileFingerprint of(Path file) throws IOException {
+		BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+		String path = file.toAbsolutePath().normalize().toString();
+		return new FileFingerprint(path, attrs.size(), attrs.lastModifiedTime().toMillis());
+	}
+
+	public static FileFingerprint read(DataInput from) throws IOException {
+		return new FileFingerprint(from.readUTF(), from.readLong(), from.readLong());
+	}
+
+	public void write(DataOutput to) throws IOException {
+		to.writeUTF(path);
+		to.writeLong(size);
+		to.writeLong(lastModified);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof FileFingerprint)) {
+			return false;
+		}
+		FileFingerprint other = (FileFingerprint) obj;
+		return size == other.size && lastModified == other.lastModified && path.equals(other.path);
+	}
+
+	@Override
+	public int hashCode() {
+		return path.hashCode() * 31 + Long.hashCode(size ^ lastModified);
+	}
+
+	@Override
+	public String toString() {
+		return path + " (" + size + " bytes, modified " + lastModified + ")";
+	}
+}
@@ -37,6 +37,10 @@ public final class SystemProperties {
 	public static final String GLOBAL_CONFIG_EXTENSION = "loader.globalConfigExtension";
 	public static final String LOG_FILE = "loader.log.file";
 	public static final String LOG_LEVEL = "loader.log.level";
+	// write log messages on a background thread, through a bounded buffer
+	public static final String LOG_ASYNC = "loader.log.async";
+	// "json" to also write every log message as a json object per line, to the file given by LOG_FILE
+	public static final String LOG_FORMAT = "loader.log.format";
 	public static final String SKIP_MC_PROVIDER = "loader.skipMcProvider";
 	// additional mods to load (path separator separated paths, @ prefix for meta-file with each line referencing an actual file)
 	// names that end with "\*" (windows) or "/*" (any) will make loader scan the folder, otherwise it will be loaded as a mod.
@@ -46,6 +50,8 @@ public final class SystemProperties {
 	// system level libraries, matching code sources will not be assumed to be part of the game or mods and remain on the system class path (paths separated by path separator)
 	public static final String SYSTEM_LIBRARIES = "loader.systemLibraries";
 	public static final String DISABLE_FORKED_GUIS = "loader.disable_forked_guis";
+	// Sends forked gui messages as json rather than the batched binary format
+	public static final String FORKED_GUI_JSON_PROTOCOL = "loader.forked_gui.json_protocol";
 	public static final String DEBUG_LOG_LIB_CLASSIFICATION = "loader.debug.logLibClassification";
 	// throw exceptions from entrypoints, discovery etc. directly instead of gathering and attaching as suppressed
 	public static final String DEBUG_THROW_DIRECTLY = "loader.debug.throwDirectly";
@@ -61,11 +67,15 @@ public final class SystemProperties {
 	public static final String DEBUG_REPLACE_VERSION = "loader.debug.replaceVersion";
 	// defaults to 60 seconds; can be changed by setting the system property
 	public static final String DEBUG_RESOLUTION_TIME_LIMIT = "loader.debug.resolutionTimeLimit";
+	// log a table of how long each mod's entrypoints took after each entrypoint key is invoked
+	public static final String DEBUG_ENTRYPOINT_TIMINGS = "loader.debug.entrypoint_timings";
 	public static final String DEBUG_DUMP_OVERRIDE_PATHS = "loader.debug.dump_override_paths";
 	public static final String ENABLE_EXPERIMENTAL_CHASM = "loader.experimental.enable_chasm";
 	public static final String ENABLE_EXPERIMENTAL_LOADING_PLUGINS = "loader.experimental.allow_loading_plugins";
 	public static final String JAR_COPIED_MODS = "loader.workaround.jar_copied_mods";
 	public static final String JAR_COPY_ALL_MODS = "loader.workaround.jar_copy_all_mods";
+	// store entries in jar-copied mods without compression, which is faster to write at the cost of disk space
+	public static final String JAR_COPY_STORE_UNCOMPRESSED = "loader.workaround.jar_copy_store_uncompressed";
 	public static final String DISABLE_STRICT_PARSING = "loader.workaround.disable_strict_parsing";
 	public static final String LOG_EARLY_CLASS_LOADS = "loader.debug.log_early_class_loads";
 	public static final String DEBUG_CLASS_TO_MOD = "loader.debug.dump_class_to_mod";
@@ -79,6 +89,8 @@ public final class SystemProperties {
 	public static final String DEBUG_DUMP_FILESYSTEM_CONTENTS = "loader.debug.filesystem.dump_contents";
 	public static final String DEBUG_VALIDATE_FILESYSTEM_CONTENTS = "loader.debug.filesystem.validate_constantly";
 	public static final String ALWAYS_DEFER_FILESYSTEM_OPERATIONS = "loader.workaround.defer_all_filesystem_operations";
+	// create method reference entrypoints with interface proxies rather than LambdaMetafactory
+	public static final String DISABLE_COMPILED_ENTRYPOINTS = "loader.workaround.disable_compiled_entrypoints";
 
 	private SystemProperties() {
 	}
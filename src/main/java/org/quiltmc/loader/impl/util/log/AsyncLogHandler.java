@@ -0,0 +1,335 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.util.log;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.quiltmc.loader.impl.util.QuiltLoaderInternal;
+import org.quiltmc.loader.impl.util.QuiltLoaderInternalType;
+
+/** Passes log messages to another {@link LogHandler} on a background thread, so that logging threads never wait for
+ * the console (or each other).
+ * <p>
+ * Messages are queued in a fixed size ring buffer, which any number of threads can add to without locking. If the
+ * buffer is full then new messages are dropped and counted, and the count is logged once there is space again. The
+ * most recent messages that were written are kept so they can be {@link #replay(LogHandler) replayed} to a later
+ * handler. */
+@QuiltLoaderInternal(QuiltLoaderInternalType.NEW_INTERNAL)
+public final class AsyncLogHandler implements LogHandler {
+	private static final int DEFAULT_CAPACITY = 8192;
+	private static final int DEFAULT_REPLAY_WINDOW = 1024;
+
+	private final LogHandler delegate;
+
+	private final int mask;
+	private final Entry[] slots;
+
+	/** The position that each slot is ready for: equal to the position when it can be written to, and one more than
+	 * the position when it can be read from. */
+	private final AtomicLongArray sequences;
+
+	/** The next position to be claimed by a producer. */
+	private final AtomicLong head = new AtomicLong();
+
+	/** The next position to be read. Only used by the writer thread. */
+	private long tail;
+
+	private final AtomicLong dropped = new AtomicLong();
+	private long reportedDrops;
+
+	private final int replayWindow;
+	private final ArrayDeque<Entry> recent;
+
+	private final Thread writer;
+	private final Thread shutdownHook;
+	private volatile boolean sleeping;
+	private volatile boolean closed;
+
+	public AsyncLogHandler(LogHandler delegate) {
+		this(delegate, DEFAULT_CAPACITY, DEFAULT_REPLAY_WINDOW);
+	}
+
+	/** @param capacity The number of messages that can be waiting to be written. Rounded up to a power of two.
+	 * @param replayWindow The number of written messages to keep for {@link #replay(LogHandler)}. */
+	public AsyncLogHandler(LogHandler delegate, int capacity, int replayWindow) {
+		this.delegate = delegate;
+
+		int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+		this.mask = size - 1;
+		this.slots = new Entry[size];
+		this.sequences = new AtomicLongArray(size);
+
+		for (int i = 0; i < size; i++) {
+			sequences.set(i, i);
+		}
+
+		this.replayWindow = replayWindow;
+		this.recent = new ArrayDeque<>(Math.min(replayWindow, 256));
+
+		writer = new Thread(this::drain, "Quilt Loader Log Writer");
+		writer.setDaemon(true);
+		writer.start();
+
+		shutdownHook = new Thread(this::flushAndStop, "AsyncLogHandler shutdown hook");
+		Runtime.getRuntime().addShutdownHook(shutdownHook);
+	}
+
+	@Override
+	public void log(long time, LogLevel level, LogCategory category, String msg, Throwable exc, boolean fromReplay, boolean wasSuppressed) {
+		offer(new Entry(time, null, level, category, msg, null, null, exc, null, fromReplay, wasSuppressed));
+	}
+
+	@Override
+	public void logFormat(long time, LogLevel level, LogCategory category, String format, Object[] args, Throwable exc) {
+		offer(new Entry(time, null, level, category, null, format, args, exc, null, false, false));
+	}
+
+	@Override
+	public void logStructured(long time, String thread, LogLevel level, LogCategory category, String format, Object[] args,
+		Throwable exc, Map<String, ?> fields) {
+
+		offer(new Entry(time, thread, level, category, null, format, args, exc, fields, false, false));
+	}
+
+	@Override
+	public boolean shouldLog(LogLevel level, LogCategory category) {
+		return delegate.shouldLog(level, category);
+	}
+
+	/** @return The number of messages that have been dropped because the buffer was full. */
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+
+	private void offer(Entry entry) {
+		if (closed) {
+			// The writer thread has stopped, so nothing else will write this
+			synchronized (recent) {
+				write(entry);
+			}
+			return;
+		}
+
+		long pos = head.get();
+
+		while (true) {
+			int index = (int) pos & mask;
+			long diff = sequences.get(index) - pos;
+
+			if (diff == 0) {
+				if (head.compareAndSet(pos, pos + 1)) {
+					slots[index] = entry;
+					sequences.set(index, pos + 1);
+					break;
+				}
+				pos = head.get();
+			} else if (diff < 0) {
+				// Full
+				dropped.incrementAndGet();
+				return;
+			} else {
+				pos = head.get();
+			}
+		}
+
+		if (sleeping) {
+			LockSupport.unpark(writer);
+		}
+	}
+
+	/** @return The next entry, or null if the buffer is empty. Only called by the writer thread. */
+	private Entry poll() {
+		int index = (int) tail & mask;
+
+		if (sequences.get(index) != tail + 1) {
+			return null;
+		}
+
+		Entry entry = slots[index];
+		slots[index] = null;
+		sequences.set(index, tail + mask + 1);
+		tail++;
+		return entry;
+	}
+
+	private void drain() {
+		while (true) {
+			Entry entry = poll();
+
+			if (entry == null) {
+				if (closed) {
+					return;
+				}
+
+				sleeping = true;
+
+				if (sequences.get((int) tail & mask) != tail + 1 && !closed) {
+					LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+				}
+
+				sleeping = false;
+				continue;
+			}
+
+			synchronized (recent) {
+				reportDrops();
+				write(entry);
+			}
+		}
+	}
+
+	private void reportDrops() {
+		long drops = dropped.get();
+
+		if (drops != reportedDrops) {
+			String msg = (drops - reportedDrops) + " log messages were dropped since the log buffer was full";
+			write(new Entry(System.currentTimeMillis(), null, LogLevel.WARN, LogCategory.LOG, msg, null, null, null, null, false, false));
+			reportedDrops = drops;
+		}
+	}
+
+	private void write(Entry entry) {
+		try {
+			if (entry.thread != null) {
+				delegate.logStructured(entry.time, entry.thread, entry.level, entry.category, entry.format, entry.args, entry.exc, entry.fields);
+			} else if (entry.msg == null) {
+				delegate.logFormat(entry.time, entry.level, entry.category, entry.format, entry.args, entry.exc);
+			} else {
+				delegate.log(entry.time, entry.level, entry.category, entry.msg, entry.exc, entry.fromReplay, entry.wasSuppressed);
+			}
+		} catch (Throwable t) {
+			System.err.println("Failed to write a log message: " + t);
+		}
+
+		if (replayWindow > 0) {
+			if (recent.size() >= replayWindow) {
+				recent.removeFirst();
+			}
+			recent.addLast(entry);
+		}
+	}
+
+	/** Passes the most recently written messages to the given handler, after writing every queued message. */
+	public boolean replay(LogHandler target) {
+		List<Entry> entries;
+
+		flush();
+
+		synchronized (recent) {
+			if (recent.isEmpty()) return false;
+			entries = new ArrayList<>(recent);
+		}
+
+		for (Entry entry : entries) {
+			target.log(entry.time, entry.level, entry.category, entry.message(), entry.exc, true, entry.wasSuppressed);
+		}
+
+		return true;
+	}
+
+	/** Waits until every message queued before this was called has been written. */
+	public void flush() {
+		long target = head.get();
+
+		while (!closed && writer.isAlive()) {
+			int index = (int) (target - 1) & mask;
+			// Either the last claimed slot has been read, or it's been reused since
+			if (target == 0 || sequences.get(index) >= target + mask) {
+				return;
+			}
+
+			LockSupport.unpark(writer);
+			Thread.yield();
+		}
+	}
+
+	private void flushAndStop() {
+		closed = true;
+		LockSupport.unpark(writer);
+
+		try {
+			writer.join(TimeUnit.SECONDS.toMillis(5));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		// Anything that was claimed but not yet read when the writer stopped
+		synchronized (recent) {
+			Entry entry;
+			while ((entry = poll()) != null) {
+				write(entry);
+			}
+			reportDrops();
+		}
+	}
+
+	@Override
+	public void close() {
+		try {
+			Runtime.getRuntime().removeShutdownHook(shutdownHook);
+		} catch (IllegalStateException e) {
+			// Already shutting down
+			return;
+		}
+
+		flushAndStop();
+		delegate.close();
+	}
+
+	private static final class Entry {
+		final long time;
+		/** The name of the logging thread, only set for structured messages. */
+		final String thread;
+		final LogLevel level;
+		final LogCategory category;
+		final String msg;
+		final String format;
+		final Object[] args;
+		final Throwable exc;
+		final Map<String, ?> fields;
+		final boolean fromReplay;
+		final boolean wasSuppressed;
+
+		Entry(long time, String thread, LogLevel level, LogCategory category, String msg, String format, Object[] args,
+			Throwable exc, Map<String, ?> fields, boolean fromReplay, boolean wasSuppressed) {
+
+			this.time = time;
+			this.thread = thread;
+			this.level = level;
+			this.category = category;
+			this.msg = msg;
+			this.format = format;
+			this.args = args;
+			this.exc = exc;
+			this.fields = fields;
+			this.fromReplay = fromReplay;
+			this.wasSuppressed = wasSuppressed;
+		}
+
+		String message() {
+			if (msg != null) return msg;
+			return args.length == 0 ? format : Log.formatMessage(format, args);
+		}
+	}
+}
@@ -177,6 +177,11 @@ final class BuiltinLogHandler extends ConsoleLogHandler {
 
 				try {
 					Path file = LoaderUtil.normalizePath(Paths.get(fileName));
+
+					// The structured log already has every message, so don't overwrite it if it uses the same file
+					Path structured = Log.getStructuredFile();
+					if (structured != null && file.equals(LoaderUtil.normalizePath(structured))) return;
+
 					Files.createDirectories(file.getParent());
 
 					try (Writer writer = Files.newBufferedWriter(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.CREATE)) {
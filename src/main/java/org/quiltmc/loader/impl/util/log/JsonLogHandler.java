@@ -0,0 +1,211 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.loader.impl.util.log;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Map;
+
+import org.quiltmc.loader.impl.util.QuiltLoaderInternal;
+import org.quiltmc.loader.impl.util.QuiltLoaderInternalType;
+
+/** Writes every message as a single line json object, for tools that read the log rather than people. Each object
+ * contains the time, level, category, thread, the formatted message, and the format template and arguments it was
+ * created from, as well as any extra fields passed to {@link Log#logFields}.
+ * <p>
+ * This writes to the file directly, so it should be wrapped in an {@link AsyncLogHandler}. */
+@QuiltLoaderInternal(QuiltLoaderInternalType.NEW_INTERNAL)
+public final class JsonLogHandler implements LogHandler {
+	private static final LogLevel MIN_LEVEL = LogLevel.getDefault();
+
+	private final BufferedWriter writer;
+	private final StringBuilder line = new StringBuilder();
+	private boolean failed;
+
+	public JsonLogHandler(Path file) throws IOException {
+		Path parent = file.getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+
+		writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.WRITE,
+			StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.CREATE);
+	}
+
+	@Override
+	public void log(long time, LogLevel level, LogCategory category, String msg, Throwable exc, boolean fromReplay, boolean wasSuppressed) {
+		write(time, Thread.currentThread().getName(), level, category, msg, null, null, exc, null);
+	}
+
+	@Override
+	public void logFormat(long time, LogLevel level, LogCategory category, String format, Object[] args, Throwable exc) {
+		write(time, Thread.currentThread().getName(), level, category, Log.formatMessage(format, args), format, args, exc, null);
+	}
+
+	@Override
+	public void logStructured(long time, String thread, LogLevel level, LogCategory category, String format, Object[] args,
+		Throwable exc, Map<String, ?> fields) {
+
+		if (args.length == 0) {
+			write(time, thread, level, category, format, null, null, exc, fields);
+		} else {
+			write(time, thread, level, category, Log.formatMessage(format, args), format, args, exc, fields);
+		}
+	}
+
+	private synchronized void write(long time, String thread, LogLevel level, LogCategory category, String msg,
+		String format, Object[] args, Throwable exc, Map<String, ?> fields) {
+
+		if (failed) {
+			return;
+		}
+
+		StringBuilder sb = line;
+		sb.setLength(0);
+		sb.append("{\"time\":");
+		appendString(sb, Instant.ofEpochMilli(time).toString());
+		sb.append(",\"level\":");
+		appendString(sb, level.name());
+		sb.append(",\"context\":");
+		appendString(sb, category.context);
+		sb.append(",\"category\":");
+		appendString(sb, category.name);
+		sb.append(",\"thread\":");
+		appendString(sb, thread);
+		sb.append(",\"message\":");
+		appendString(sb, msg);
+
+		if (format != null) {
+			sb.append(",\"template\":");
+			appendString(sb, format);
+			sb.append(",\"args\":[");
+
+			for (int i = 0; i < args.length; i++) {
+				if (i > 0) sb.append(',');
+				appendValue(sb, args[i]);
+			}
+
+			sb.append(']');
+		}
+
+		if (fields != null && !fields.isEmpty()) {
+			sb.append(",\"fields\":{");
+			boolean first = true;
+
+			for (Map.Entry<String, ?> entry : fields.entrySet()) {
+				if (!first) sb.append(',');
+				first = false;
+				appendString(sb, entry.getKey());
+				sb.append(':');
+				appendValue(sb, entry.getValue());
+			}
+
+			sb.append('}');
+		}
+
+		if (exc != null) {
+			StringWriter trace = new StringWriter();
+
+			try (PrintWriter pw = new PrintWriter(trace, false)) {
+				exc.printStackTrace(pw);
+			}
+
+			sb.append(",\"exception\":");
+			appendString(sb, trace.toString());
+		}
+
+		sb.append("}\n");
+
+		try {
+			writer.append(sb);
+			writer.flush();
+		} catch (IOException e) {
+			failed = true;
+			System.err.println("Failed to write to the structured log, no further messages will be written: " + e);
+		}
+	}
+
+	private static void appendValue(StringBuilder sb, Object value) {
+		if (value == null) {
+			sb.append("null");
+		} else if (value instanceof Boolean || value instanceof Integer || value instanceof Long
+			|| value instanceof Short || value instanceof Byte) {
+
+			sb.append(value);
+		} else if (value instanceof Number && Double.isFinite(((Number) value).doubleValue())) {
+			sb.append(value);
+		} else {
+			appendString(sb, String.valueOf(value));
+		}
+	}
+
+	private static void appendString(StringBuilder sb, String str) {
+		sb.append('"');
+
+		for (int i = 0, len = str.length(); i < len; i++) {
+			char c = str.charAt(i);
+
+			switch (c) {
+				case '"':
+					sb.append("\\\"");
+					break;
+				case '\\':
+					sb.append("\\\\");
+					break;
+				case '\n':
+					sb.append("\\n");
+					break;
+				case '\r':
+					sb.append("\\r");
+					break;
+				case '\t':
+					sb.append("\\t");
+					break;
+				default:
+					if (c < 0x20) {
+						sb.append(String.format("\\u%04x", (int) c));
+					} else {
+						sb.append(c);
+					}
+			}
+		}
+
+		sb.append('"');
+	}
+
+	@Override
+	public boolean shouldLog(LogLevel level, LogCategory category) {
+		return !level.isLessThan(MIN_LEVEL);
+	}
+
+	@Override
+	public synchronized void close() {
+		try {
+			writer.close();
+		} catch (IOException e) {
+			// ignore
+		}
+	}
+}
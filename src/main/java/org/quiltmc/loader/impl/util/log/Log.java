@@ -17,16 +17,31 @@
 
 package org.quiltmc.loader.impl.util.log;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.IllegalFormatException;
+import java.util.Map;
 
+import org.quiltmc.loader.impl.util.LoaderUtil;
 import org.quiltmc.loader.impl.util.QuiltLoaderInternal;
 import org.quiltmc.loader.impl.util.QuiltLoaderInternalType;
+import org.quiltmc.loader.impl.util.SystemProperties;
 
 @QuiltLoaderInternal(QuiltLoaderInternalType.LEGACY_EXPOSED)
 public final class Log {
 	public static final String NAME = "Quilt Loader";
 	private static final boolean CHECK_FOR_BRACKETS = true;
+	private static final boolean ASYNC = Boolean.getBoolean(SystemProperties.LOG_ASYNC);
+	private static final String DEFAULT_STRUCTURED_FILE = "quiltloader.log.jsonl";
+	private static final Object[] NO_ARGS = new Object[0];
+
+	/** The file {@link #STRUCTURED} writes to, or null if {@link SystemProperties#LOG_FORMAT} isn't "json". */
+	private static final Path STRUCTURED_FILE = findStructuredFile();
+
+	/** Receives every message as well as {@link #handler}, if {@link SystemProperties#LOG_FORMAT} is "json". */
+	private static final LogHandler STRUCTURED = createStructuredHandler();
 
 	private static LogHandler handler = new BuiltinLogHandler();
 
@@ -37,12 +52,19 @@ public final class Log {
 
 		LogHandler oldhHandler = Log.handler;
 
+		if (ASYNC && !(handler instanceof AsyncLogHandler)) {
+			handler = new AsyncLogHandler(handler);
+		}
+
 		if (oldhHandler instanceof BuiltinLogHandler && replayBuiltin) {
 			((BuiltinLogHandler) oldhHandler).replay(handler);
+		} else if (oldhHandler instanceof AsyncLogHandler && replayBuiltin) {
+			((AsyncLogHandler) oldhHandler).replay(handler);
 		}
 
 		Log.handler = handler;
 		oldhHandler.close();
+		flushStructured();
 	}
 
 	/**
@@ -120,54 +142,117 @@ public final class Log {
 	}
 
 	public static void log(LogLevel level, LogCategory category, String msg) {
-		LogHandler handler = Log.handler;
-		if (handler.shouldLog(level, category)) log(handler, level, category, msg, null);
+		log(level, category, msg, null);
 	}
 
 	public static void log(LogLevel level, LogCategory category, String msg, Throwable exc) {
 		LogHandler handler = Log.handler;
-		if (handler.shouldLog(level, category)) log(handler, level, category, msg, exc);
+		boolean output = handler.shouldLog(level, category);
+		boolean structured = STRUCTURED != null && STRUCTURED.shouldLog(level, category);
+
+		if (output) log(handler, level, category, msg, exc);
+		if (structured) logStructured(level, category, msg.trim(), NO_ARGS, exc, null);
 	}
 
 	public static void logFormat(LogLevel level, LogCategory category, String format, Object... args) {
-		LogHandler handler = Log.handler;
-		if (!handler.shouldLog(level, category)) return;
+		logFields(level, category, null, format, args);
+	}
 
-		String msg;
-		Throwable exc;
+	/** Same as {@link #logFormat(LogLevel, LogCategory, String, Object...)}, but also passes the given named values
+	 * (like timings) to the structured log, if it's enabled. */
+	public static void logFields(LogLevel level, LogCategory category, Map<String, ?> fields, String format, Object... args) {
+		LogHandler handler = Log.handler;
+		boolean output = handler.shouldLog(level, category);
+		boolean structured = STRUCTURED != null && STRUCTURED.shouldLog(level, category);
+		if (!output && !structured) return;
 
 		if (args.length == 0) {
 			//assert getRequiredArgs(format.toString()) == 0;
 
-			msg = format;
-			exc = null;
+			if (output) log(handler, level, category, format, null);
+			if (structured) logStructured(level, category, format.trim(), NO_ARGS, null, fields);
+			return;
+		}
+
+		if (CHECK_FOR_BRACKETS) {
+			if (format.indexOf("{}") != -1) throw new IllegalArgumentException("log message containing {}: "+format);
+		}
+
+		Object lastArg = args[args.length - 1];
+		Throwable exc;
+
+		if (lastArg instanceof Throwable && getRequiredArgs(format) < args.length) {
+			exc = (Throwable) lastArg;
+			args = Arrays.copyOf(args, args.length - 1);
 		} else {
-			if (CHECK_FOR_BRACKETS) {
-				if (format.indexOf("{}") != -1) throw new IllegalArgumentException("log message containing {}: "+format);
-			}
+			exc = null;
+		}
 
-			Object lastArg = args[args.length - 1];
-			Object[] newArgs;
+		assert getRequiredArgs(format) == args.length;
 
-			if (lastArg instanceof Throwable && getRequiredArgs(format) < args.length) {
-				exc = (Throwable) lastArg;
-				newArgs = Arrays.copyOf(args, args.length - 1);
-			} else {
-				exc = null;
-				newArgs = args;
-			}
+		// Formatting is left to the handler, which might do it on another thread
+		if (output) handler.logFormat(System.currentTimeMillis(), level, category, format, args, exc);
+		if (structured) logStructured(level, category, format, args, exc, fields);
+	}
 
-			assert getRequiredArgs(format) == newArgs.length;
+	private static void logStructured(LogLevel level, LogCategory category, String format, Object[] args, Throwable exc, Map<String, ?> fields) {
+		String thread = Thread.currentThread().getName();
+		STRUCTURED.logStructured(System.currentTimeMillis(), thread, level, category, format, args, exc, fields);
+	}
 
-			try {
-				msg = String.format(format, newArgs);
-			} catch (IllegalFormatException e) {
-				msg = "Format error: fmt=["+format+"] args="+Arrays.toString(args);
-				warn(LogCategory.LOG, "Invalid format string.", e);
-			}
+	/** @return The file every message is also written to as json, or null if there isn't one. */
+	static Path getStructuredFile() {
+		return STRUCTURED != null ? STRUCTURED_FILE : null;
+	}
+
+	/** Waits until every message queued for the structured log has been written. Called whenever the main handler is
+	 * closed, so the structured log has caught up with it by the time the new handler takes over. */
+	private static void flushStructured() {
+		if (STRUCTURED instanceof AsyncLogHandler) {
+			((AsyncLogHandler) STRUCTURED).flush();
+		}
+	}
+
+	private static Path findStructuredFile() {
+		String format = System.getProperty(SystemProperties.LOG_FORMAT);
+
+		if (format == null || format.equalsIgnoreCase("text")) {
+			return null;
+		}
+
+		if (!format.equalsIgnoreCase("json")) {
+			System.err.println("Unknown " + SystemProperties.LOG_FORMAT + " '" + format + "', expected 'text' or 'json'");
+			return null;
+		}
+
+		return LoaderUtil.normalizePath(Paths.get(System.getProperty(SystemProperties.LOG_FILE, DEFAULT_STRUCTURED_FILE)));
+	}
+
+	private static LogHandler createStructuredHandler() {
+		if (STRUCTURED_FILE == null) {
+			return null;
+		}
+
+		try {
+			return new AsyncLogHandler(new JsonLogHandler(STRUCTURED_FILE));
+		} catch (IOException e) {
+			System.err.println("Failed to open the structured log file " + STRUCTURED_FILE + ": " + e);
+			return null;
+		}
+	}
+
+	/** Formats a message passed to one of the format overloads, after any trailing {@link Throwable} was removed. */
+	static String formatMessage(String format, Object[] args) {
+		String msg;
+
+		try {
+			msg = String.format(format, args);
+		} catch (IllegalFormatException e) {
+			msg = "Format error: fmt=["+format+"] args="+Arrays.toString(args);
+			warn(LogCategory.LOG, "Invalid format string.", e);
 		}
 
-		log(handler, level, category, msg, exc);
+		return msg.trim();
 	}
 
 	private static int getRequiredArgs(String format) {
@@ -217,6 +302,6 @@ public final class Log {
 
 
 	public static boolean shouldLog(LogLevel level, LogCategory category) {
-		return handler.shouldLog(level, category);
+		return handler.shouldLog(level, category) || (STRUCTURED != null && STRUCTURED.shouldLog(level, category));
 	}
 }
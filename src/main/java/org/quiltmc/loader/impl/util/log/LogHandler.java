@@ -17,11 +17,35 @@
 
 package org.quiltmc.loader.impl.util.log;
 
+import java.util.Map;
+
 import org.quiltmc.loader.impl.util.QuiltLoaderInternal;
 import org.quiltmc.loader.impl.util.QuiltLoaderInternalType;
 
 public interface LogHandler {
 	void log(long time, LogLevel level, LogCategory category, String msg, Throwable exc, boolean fromReplay, boolean wasSuppressed);
+
+	/** Logs a message that hasn't been formatted yet. Handlers can override this to format it later, or on another
+	 * thread, but the arguments might change after this returns. */
+	default void logFormat(long time, LogLevel level, LogCategory category, String format, Object[] args, Throwable exc) {
+		log(time, level, category, Log.formatMessage(format, args), exc, false, false);
+	}
+
+	/** Logs a message along with the thread that logged it, and any named values (like timings) attached to it.
+	 * Structured handlers write these as separate fields, other handlers ignore them.
+	 *
+	 * @param args The format arguments, or an empty array if the format is the message itself.
+	 * @param fields Extra named values, or null. */
+	default void logStructured(long time, String thread, LogLevel level, LogCategory category, String format, Object[] args,
+		Throwable exc, Map<String, ?> fields) {
+
+		if (args.length == 0) {
+			log(time, level, category, format, exc, false, false);
+		} else {
+			logFormat(time, level, category, format, args, exc);
+		}
+	}
+
 	boolean shouldLog(LogLevel level, LogCategory category);
 	void close();
 }
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.loader.impl.entrypoint;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.quiltmc.loader.api.LanguageAdapter;
+import org.quiltmc.loader.api.ModContainer;
+import org.quiltmc.loader.api.entrypoint.EntrypointContainer;
+import org.quiltmc.loader.api.entrypoint.EntrypointTiming;
+import org.quiltmc.loader.impl.metadata.qmj.AdapterLoadableClassEntry;
+
+public class EntrypointProfilerTester {
+
+	private static EntrypointTiming find(String key) {
+		EntrypointTiming found = null;
+		for (EntrypointTiming timing : EntrypointProfiler.getTimings()) {
+			if (timing.key().equals(key)) {
+				Assertions.assertNull(found, "Multiple timings for " + key);
+				found = timing;
+			}
+		}
+		return found;
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Test
+	public void testInvokeExcludesConstruction() throws Exception {
+		TestModContainer mod = new TestModContainer("profiled");
+		LanguageAdapter adapter = new LanguageAdapter() {
+			@Override
+			public <T> T create(ModContainer from, String value, Class<T> type) {
+				sleep(300);
+				return type.cast(value);
+			}
+		};
+
+		EntrypointStorage storage = new EntrypointStorage();
+		storage.add(mod, "test_invoke", new AdapterLoadableClassEntry("test", "value"), Collections.singletonMap("test", adapter));
+		storage.freeze();
+		EntrypointContainer<String> container = storage.getEntrypointContainers("test_invoke", String.class).get(0);
+
+		// The entrypoint is only created once the invoker asks for it
+		EntrypointProfiler.invoke("test_invoke", container, c -> {
+			Assertions.assertEquals(0, find("test_invoke").constructNanos());
+			Assertions.assertEquals("value", c.getEntrypoint());
+			sleep(20);
+		});
+
+		EntrypointTiming timing = find("test_invoke");
+		Assertions.assertNotNull(timing);
+		Assertions.assertSame(mod, timing.provider());
+		Assertions.assertTrue(timing.invokeNanos() >= TimeUnit.MILLISECONDS.toNanos(20), timing.toString());
+		Assertions.assertTrue(timing.invokeNanos() < TimeUnit.MILLISECONDS.toNanos(300), timing.toString());
+		Assertions.assertTrue(timing.constructNanos() >= TimeUnit.MILLISECONDS.toNanos(300), timing.toString());
+
+		List<String> report = new ArrayList<>();
+		EntrypointProfiler.appendReport("test_invoke", report::add);
+		Assertions.assertTrue(report.stream().anyMatch(line -> line.contains("profiled")), report.toString());
+	}
+
+	@Test
+	public void testTimingCreatedOnFirstUse() throws Exception {
+		TestModContainer mod = new TestModContainer("profiled_lazily");
+		LanguageAdapter adapter = new LanguageAdapter() {
+			@Override
+			public <T> T create(ModContainer from, String value, Class<T> type) {
+				sleep(5);
+				return type.cast(value);
+			}
+		};
+
+		EntrypointStorage storage = new EntrypointStorage();
+		storage.add(mod, "test_lazy", new AdapterLoadableClassEntry("test", "value"), Collections.singletonMap("test", adapter));
+		storage.freeze();
+		List<EntrypointContainer<String>> containers = storage.getEntrypointContainers("test_lazy", String.class);
+
+		// Neither adding nor listing the entrypoint uses it
+		Assertions.assertNull(find("test_lazy"));
+
+		Assertions.assertEquals("value", containers.get(0).getEntrypoint());
+		EntrypointTiming timing = find("test_lazy");
+		Assertions.assertNotNull(timing);
+		Assertions.assertTrue(timing.constructNanos() >= TimeUnit.MILLISECONDS.toNanos(5), timing.toString());
+		Assertions.assertEquals(0, timing.invokeNanos());
+	}
+}
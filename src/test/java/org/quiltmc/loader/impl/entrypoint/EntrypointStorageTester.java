@@ -0,0 +1,64 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.loader.impl.entrypoint;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.quiltmc.loader.api.LanguageAdapter;
+import org.quiltmc.loader.api.ModContainer;
+import org.quiltmc.loader.api.entrypoint.EntrypointContainer;
+import org.quiltmc.loader.impl.metadata.qmj.AdapterLoadableClassEntry;
+
+public class EntrypointStorageTester {
+
+	private static final LanguageAdapter ADAPTER = new LanguageAdapter() {
+		@Override
+		public <T> T create(ModContainer from, String value, Class<T> type) {
+			// A new instance each time, so tests can tell whether it was created again
+			return type.cast(new String(value));
+		}
+	};
+
+	@Test
+	public void testReturnedListsAreCopies() throws Exception {
+		TestModContainer mod = new TestModContainer("stored");
+		EntrypointStorage storage = new EntrypointStorage();
+		storage.add(mod, "test_copies", new AdapterLoadableClassEntry("test", "first"), Collections.singletonMap("test", ADAPTER));
+		storage.add(mod, "test_copies", new AdapterLoadableClassEntry("test", "second"), Collections.singletonMap("test", ADAPTER));
+		storage.freeze();
+
+		List<String> entrypoints = storage.getEntrypoints("test_copies", String.class);
+		entrypoints.remove(0);
+		entrypoints.add("added");
+		List<String> again = storage.getEntrypoints("test_copies", String.class);
+		Assertions.assertNotSame(entrypoints, again);
+		Assertions.assertEquals(2, again.size());
+		// The instances themselves are still only created once
+		Assertions.assertSame(entrypoints.get(0), again.get(1));
+
+		List<EntrypointContainer<String>> containers = storage.getEntrypointContainers("test_copies", String.class);
+		containers.clear();
+		List<EntrypointContainer<String>> containersAgain = storage.getEntrypointContainers("test_copies", String.class);
+		Assertions.assertEquals(2, containersAgain.size());
+		Assertions.assertEquals("first", containersAgain.get(0).getEntrypoint());
+		Assertions.assertSame(again.get(0), containersAgain.get(0).getEntrypoint());
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.loader.impl.entrypoint;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.quiltmc.loader.api.ModContainer;
+import org.quiltmc.loader.api.entrypoint.EntrypointContainer;
+
+public class ParallelEntrypointInvokerTester {
+
+	private static EntrypointContainer<String> entrypoint(ModContainer mod, String name) {
+		return new EntrypointContainerImpl<>(mod, name);
+	}
+
+	@Test
+	public void testDependenciesRunFirst() throws Exception {
+		TestModContainer a = new TestModContainer("mod_a");
+		TestModContainer b = new TestModContainer("mod_b", "mod_a");
+		TestModContainer c = new TestModContainer("mod_c", "mod_b");
+		TestModContainer d = new TestModContainer("mod_d");
+
+		List<EntrypointContainer<String>> containers = Arrays.asList(
+			entrypoint(c, "c1"), entrypoint(b, "b1"), entrypoint(d, "d1"), entrypoint(c, "c2"), entrypoint(a, "a1")
+		);
+
+		for (int run = 0; run < 20; run++) {
+			List<String> order = Collections.synchronizedList(new ArrayList<>());
+			Throwable[] errors = ParallelEntrypointInvoker.invoke(containers, container -> {
+				Thread.yield();
+				order.add(container.getEntrypoint());
+			});
+
+			Assertions.assertArrayEquals(new Throwable[containers.size()], errors);
+			Assertions.assertEquals(containers.size(), order.size(), order.toString());
+			Assertions.assertTrue(order.indexOf("a1") < order.indexOf("b1"), order.toString());
+			Assertions.assertTrue(order.indexOf("b1") < order.indexOf("c1"), order.toString());
+			// Entrypoints of the same mod keep their order
+			Assertions.assertTrue(order.indexOf("c1") < order.indexOf("c2"), order.toString());
+		}
+	}
+
+	@Test
+	public void testErrorsKeepTheirIndex() throws Exception {
+		TestModContainer a = new TestModContainer("mod_a");
+		TestModContainer b = new TestModContainer("mod_b", "mod_a");
+		RuntimeException failure = new RuntimeException("a failed");
+
+		List<EntrypointContainer<String>> containers = Arrays.asList(
+			entrypoint(b, "b1"), entrypoint(a, "a1"), entrypoint(a, "a2")
+		);
+		List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+		Throwable[] errors = ParallelEntrypointInvoker.invoke(containers, container -> {
+			if (container.getEntrypoint().equals("a1")) {
+				throw failure;
+			}
+			order.add(container.getEntrypoint());
+		});
+
+		Assertions.assertArrayEquals(new Throwable[] { null, failure, null }, errors);
+		// A failing entrypoint doesn't stop the rest of its mod, or the mods that depend on it
+		Assertions.assertEquals(Arrays.asList("a2", "b1"), order);
+	}
+
+	@Test
+	public void testCyclesDontDeadlock() throws Exception {
+		TestModContainer a = new TestModContainer("mod_a", "mod_b");
+		TestModContainer b = new TestModContainer("mod_b", "mod_a");
+		List<EntrypointContainer<String>> containers = Arrays.asList(entrypoint(a, "a1"), entrypoint(b, "b1"));
+		List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+		Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+			ParallelEntrypointInvoker.invoke(containers, container -> order.add(container.getEntrypoint()));
+		});
+
+		// The dependency that closes the cycle is ignored, when visiting mods in their original order
+		Assertions.assertEquals(Arrays.asList("b1", "a1"), order);
+	}
+
+	@Test
+	public void testCycleBreakingFollowsDeclarationOrder() throws Exception {
+		// mod_a reaches the mod_b <-> mod_c cycle through mod_b first, so mod_c's dependency on mod_b is the one
+		// that closes it and gets ignored
+		TestModContainer a = new TestModContainer("mod_a", "mod_b", "mod_c");
+		TestModContainer b = new TestModContainer("mod_b", "mod_c");
+		TestModContainer c = new TestModContainer("mod_c", "mod_b");
+
+		for (int run = 0; run < 20; run++) {
+			List<EntrypointContainer<String>> containers = Arrays.asList(
+				entrypoint(a, "a1"), entrypoint(b, "b1"), entrypoint(c, "c1")
+			);
+			List<String> order = Collections.synchronizedList(new ArrayList<>());
+			ParallelEntrypointInvoker.invoke(containers, container -> order.add(container.getEntrypoint()));
+			Assertions.assertEquals(Arrays.asList("c1", "b1", "a1"), order);
+		}
+	}
+}
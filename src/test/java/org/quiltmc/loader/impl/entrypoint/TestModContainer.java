@@ -0,0 +1,86 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.loader.impl.entrypoint;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+
+import org.quiltmc.loader.api.plugin.ModContainerExt;
+import org.quiltmc.loader.impl.metadata.qmj.InternalModMetadata;
+import org.quiltmc.loader.impl.metadata.qmj.ModMetadataReader;
+
+/** A mod which only has metadata, for entrypoint tests. */
+final class TestModContainer implements ModContainerExt {
+	private final InternalModMetadata metadata;
+
+	TestModContainer(String id, String... depends) throws IOException {
+		StringBuilder json = new StringBuilder("{\"schema_version\": 1, \"quilt_loader\": {");
+		json.append("\"group\": \"org.quiltmc.test\", \"id\": \"").append(id).append("\", \"version\": \"1.0.0\", ");
+		json.append("\"intermediate_mappings\": \"net.fabricmc:intermediary\", \"depends\": [");
+		for (int i = 0; i < depends.length; i++) {
+			json.append(i == 0 ? "\"" : ", \"").append(depends[i]).append('"');
+		}
+		json.append("]}}");
+		this.metadata = ModMetadataReader.read(new ByteArrayInputStream(json.toString().getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Override
+	public InternalModMetadata metadata() {
+		return metadata;
+	}
+
+	@Override
+	public Path rootPath() {
+		return Paths.get("");
+	}
+
+	@Override
+	public List<List<Path>> getSourcePaths() {
+		return Collections.emptyList();
+	}
+
+	@Override
+	public BasicSourceType getSourceType() {
+		return BasicSourceType.OTHER;
+	}
+
+	@Override
+	public String pluginId() {
+		return "test";
+	}
+
+	@Override
+	public String modType() {
+		return "test";
+	}
+
+	@Override
+	public boolean shouldAddToQuiltClasspath() {
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return metadata.id();
+	}
+}
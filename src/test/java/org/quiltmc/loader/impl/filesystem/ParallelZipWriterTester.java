@@ -0,0 +1,91 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.filesystem;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class ParallelZipWriterTester {
+
+	@TempDir
+	Path tempDir;
+
+	@ParameterizedTest
+	@ValueSource(booleans = { true, false })
+	public void testRoundTrip(boolean compress) throws IOException {
+		try (QuiltMemoryFileSystem fs = new QuiltMemoryFileSystem.ReadWrite("zip_writer", true)) {
+			Path root = fs.getRoot();
+			Files.createDirectories(root.resolve("a/b"));
+			for (int i = 0; i < 100; i++) {
+				String text = "file number " + i + " ".repeat(i * 10);
+				Files.write(root.resolve("a/b/file" + i + ".txt"), text.getBytes(StandardCharsets.UTF_8));
+			}
+			Files.write(root.resolve("skipped.txt"), new byte[] { 1, 2, 3 });
+
+			ParallelZipWriter writer = new ParallelZipWriter(root);
+			ParallelZipWriter.EntryProcessor processor = (name, bytes) -> name.equals("skipped.txt") ? null : bytes;
+			byte[] fingerprint = writer.computeFingerprint();
+			Assertions.assertArrayEquals(fingerprint, new ParallelZipWriter(root).computeFingerprint());
+
+			Path zip = tempDir.resolve("out.zip");
+			writer.write(zip, compress, processor);
+
+			try (FileSystem zipFs = FileSystems.newFileSystem(zip, (ClassLoader) null)) {
+				Path zipRoot = zipFs.getPath("/");
+				Assertions.assertTrue(Files.isDirectory(zipRoot.resolve("a/b")));
+				Assertions.assertFalse(Files.exists(zipRoot.resolve("skipped.txt")));
+				for (int i = 0; i < 100; i++) {
+					String name = "a/b/file" + i + ".txt";
+					Assertions.assertArrayEquals(Files.readAllBytes(root.resolve(name)), Files.readAllBytes(zipRoot.resolve(name)));
+				}
+			}
+
+			Files.write(root.resolve("a/b/file0.txt"), new byte[] { 4 });
+			Assertions.assertFalse(
+				Arrays.equals(fingerprint, new ParallelZipWriter(root).computeFingerprint()),
+				"Changing a file should change the fingerprint"
+			);
+		}
+	}
+
+	@Test
+	public void testSameSizeEditInMemory() throws IOException {
+		try (QuiltMemoryFileSystem fs = new QuiltMemoryFileSystem.ReadWrite("zip_fingerprint", true)) {
+			Path file = fs.getRoot().resolve("file.txt");
+			Files.write(file, "before".getBytes(StandardCharsets.UTF_8));
+			FileTime time = Files.getLastModifiedTime(file);
+			byte[] fingerprint = new ParallelZipWriter(fs.getRoot()).computeFingerprint();
+
+			// Same size and modification time, so only the contents can tell them apart
+			Files.write(file, "after!".getBytes(StandardCharsets.UTF_8));
+			Files.setLastModifiedTime(file, time);
+			Assertions.assertFalse(Arrays.equals(fingerprint, new ParallelZipWriter(fs.getRoot()).computeFingerprint()));
+		}
+	}
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.loader.impl.gui;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.quiltmc.loader.api.LoaderValue;
+import org.quiltmc.loader.api.plugin.LoaderValueFactory;
+
+public class ForkCommsCodecTester {
+
+	private static final LoaderValueFactory LVF = LoaderValueFactory.getFactory();
+
+	private static byte[] frame(ForkCommsCodec.Writer writer, LoaderValue value) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		writer.write(new DataOutputStream(bytes), value);
+		return bytes.toByteArray();
+	}
+
+	private static LoaderValue read(ForkCommsCodec.Reader reader, byte[] frame) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(frame));
+		LoaderValue value = reader.read(in);
+		Assertions.assertEquals(-1, in.read(), "Trailing bytes in the frame");
+		return value;
+	}
+
+	private static LoaderValue roundTrip(LoaderValue value) throws IOException {
+		return read(new ForkCommsCodec.Reader(), frame(new ForkCommsCodec.Writer(), value));
+	}
+
+	private static void assertSameValue(LoaderValue expected, LoaderValue actual) {
+		Assertions.assertEquals(expected.type(), actual.type());
+		switch (expected.type()) {
+			case OBJECT: {
+				Assertions.assertEquals(expected.asObject().keySet().toString(), actual.asObject().keySet().toString());
+				for (Map.Entry<String, LoaderValue> entry : expected.asObject().entrySet()) {
+					assertSameValue(entry.getValue(), actual.asObject().get(entry.getKey()));
+				}
+				break;
+			}
+			case ARRAY: {
+				Assertions.assertEquals(expected.asArray().size(), actual.asArray().size());
+				Iterator<LoaderValue> iter = actual.asArray().iterator();
+				for (LoaderValue element : expected.asArray()) {
+					assertSameValue(element, iter.next());
+				}
+				break;
+			}
+			case STRING: {
+				Assertions.assertEquals(expected.asString(), actual.asString());
+				break;
+			}
+			case NUMBER: {
+				Assertions.assertEquals(expected.asNumber(), actual.asNumber());
+				break;
+			}
+			case BOOLEAN: {
+				Assertions.assertEquals(expected.asBoolean(), actual.asBoolean());
+				break;
+			}
+			case NULL: {
+				break;
+			}
+			default: {
+				Assertions.fail("Unknown type " + expected.type());
+			}
+		}
+	}
+
+	private static String repeat(char c, int count) {
+		StringBuilder sb = new StringBuilder(count);
+		for (int i = 0; i < count; i++) {
+			sb.append(c);
+		}
+		return sb.toString();
+	}
+
+	@Test
+	public void testEveryType() throws IOException {
+		Map<String, LoaderValue> map = new LinkedHashMap<>();
+		map.put("null", LVF.nul());
+		map.put("true", LVF.bool(true));
+		map.put("false", LVF.bool(false));
+		map.put("number", LVF.number(42));
+		map.put("string", LVF.string("text with \u00e9 and \ud83d\ude00"));
+		map.put("empty", LVF.string(""));
+		map.put("array", LVF.array(new LoaderValue[] { LVF.number(1), LVF.string("two"), LVF.array(new LoaderValue[0]) }));
+		map.put("object", LVF.object(new LinkedHashMap<>()));
+		LoaderValue value = LVF.object(map);
+
+		for (LoaderValue.LType type : LoaderValue.LType.values()) {
+			boolean found = false;
+			for (LoaderValue sub : map.values()) {
+				found |= sub.type() == type;
+			}
+			Assertions.assertTrue(found, "No value of type " + type);
+		}
+
+		assertSameValue(value, roundTrip(value));
+	}
+
+	@Test
+	public void testNumbers() throws IOException {
+		Number[] numbers = {
+			0, 1, -1, 63, -64, 64, -65, Integer.MAX_VALUE, Integer.MIN_VALUE,
+			(long) Integer.MAX_VALUE + 1, (long) Integer.MIN_VALUE - 1, Long.MAX_VALUE, Long.MIN_VALUE,
+			0.5, -0.0, Double.MAX_VALUE, Double.MIN_VALUE, Double.NEGATIVE_INFINITY, Double.NaN,
+			new BigDecimal("-12345678901234567890.0987654321"),
+		};
+
+		for (Number number : numbers) {
+			Assertions.assertEquals(number, roundTrip(LVF.number(number)).asNumber(), "Round trip of " + number);
+		}
+
+		// Smaller integer types are widened
+		Assertions.assertEquals(-5, roundTrip(LVF.number((byte) -5)).asNumber());
+		Assertions.assertEquals(-500, roundTrip(LVF.number((short) -500)).asNumber());
+	}
+
+	@Test
+	public void testDictionaryAcrossFrames() throws IOException {
+		ForkCommsCodec.Writer writer = new ForkCommsCodec.Writer();
+		ForkCommsCodec.Reader reader = new ForkCommsCodec.Reader();
+
+		Map<String, LoaderValue> map = new LinkedHashMap<>();
+		map.put("key", LVF.string("repeated value"));
+		LoaderValue value = LVF.object(map);
+
+		byte[] first = frame(writer, value);
+		byte[] second = frame(writer, value);
+		Assertions.assertTrue(second.length < first.length, "The second frame should only refer to known strings");
+
+		assertSameValue(value, read(reader, first));
+		assertSameValue(value, read(reader, second));
+
+		// A reader that missed the first frame can't know what the references mean
+		Assertions.assertThrows(IOException.class, () -> read(new ForkCommsCodec.Reader(), second));
+	}
+
+	@Test
+	public void testLongStringsAreNotShared() throws IOException {
+		ForkCommsCodec.Writer writer = new ForkCommsCodec.Writer();
+		String longString = repeat('x', 257);
+		String limitString = repeat('y', 256);
+
+		byte[] first = frame(writer, LVF.string(longString));
+		byte[] second = frame(writer, LVF.string(longString));
+		Assertions.assertEquals(first.length, second.length);
+		Assertions.assertTrue(second.length > longString.length());
+
+		// The long string is sent in full each time, so the second frame can be read on its own
+		Assertions.assertEquals(longString, read(new ForkCommsCodec.Reader(), second).asString());
+
+		frame(writer, LVF.string(limitString));
+		Assertions.assertTrue(frame(writer, LVF.string(limitString)).length < limitString.length());
+	}
+
+	@Test
+	public void testTruncatedFrame() throws IOException {
+		LoaderValue value = LVF.array(new LoaderValue[] { LVF.string("abc"), LVF.number(Long.MAX_VALUE) });
+		byte[] frame = frame(new ForkCommsCodec.Writer(), value);
+		byte[] truncated = new byte[frame.length - 1];
+		System.arraycopy(frame, 0, truncated, 0, truncated.length);
+
+		Assertions.assertThrows(EOFException.class, () -> read(new ForkCommsCodec.Reader(), truncated));
+	}
+}
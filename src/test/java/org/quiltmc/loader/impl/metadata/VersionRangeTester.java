@@ -0,0 +1,110 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.loader.impl.metadata;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.quiltmc.loader.api.Version;
+import org.quiltmc.loader.api.VersionInterval;
+import org.quiltmc.loader.api.VersionRange;
+
+public class VersionRangeTester {
+
+	private static VersionInterval interval(String min, boolean minInclusive, String max, boolean maxInclusive) {
+		return VersionInterval.of(
+			min == null ? null : Version.of(min), minInclusive, max == null ? null : Version.of(max), maxInclusive
+		);
+	}
+
+	private static VersionRange range(VersionInterval... intervals) {
+		return VersionRange.ofIntervals(Arrays.asList(intervals));
+	}
+
+	private static void assertIntervals(VersionRange range, VersionInterval... expected) {
+		Assertions.assertEquals(Arrays.asList(expected), Arrays.asList(range.toArray()), range.toString());
+	}
+
+	@Test
+	void testNestedIntervalsMerge() {
+		VersionInterval outer = interval("1", true, "5", false);
+		assertIntervals(range(outer, interval("2", true, "3", false)), outer);
+		assertIntervals(range(interval("2", true, "3", false), outer), outer);
+	}
+
+	@Test
+	void testTouchingIntervalsMerge() {
+		VersionInterval merged = interval("1", true, "3", false);
+		assertIntervals(range(interval("1", true, "2", true), interval("2", true, "3", false)), merged);
+		assertIntervals(range(interval("1", true, "2", true), interval("2", false, "3", false)), merged);
+		assertIntervals(range(interval("1", true, "2", false), interval("2", true, "3", false)), merged);
+
+		// 2 itself is excluded by both, so these stay separate
+		VersionInterval low = interval("1", true, "2", false);
+		VersionInterval high = interval("2", false, "3", false);
+		assertIntervals(range(high, low), low, high);
+	}
+
+	@Test
+	void testNormalisedForm() {
+		VersionInterval a = interval("1", true, "2", false);
+		VersionInterval b = interval("3", true, "4", false);
+		VersionInterval c = interval("5", true, null, false);
+
+		// Sorted, and anything after an unbounded interval is absorbed into it
+		assertIntervals(range(c, a, interval("6", true, "7", false), b), a, b, c);
+		assertIntervals(range(interval(null, false, "3", false), a, b), interval(null, false, "4", false));
+		Assertions.assertEquals(range(a, b), range(b, a, a));
+	}
+
+	@Test
+	void testIsSatisfiedBy() {
+		VersionRange range = range(interval("1", true, "2", false), interval("3", false, "4", true));
+
+		Assertions.assertFalse(range.isSatisfiedBy(Version.of("0.9")));
+		Assertions.assertTrue(range.isSatisfiedBy(Version.of("1")));
+		Assertions.assertTrue(range.isSatisfiedBy(Version.of("1.5")));
+		Assertions.assertFalse(range.isSatisfiedBy(Version.of("2")));
+		Assertions.assertFalse(range.isSatisfiedBy(Version.of("3")));
+		Assertions.assertTrue(range.isSatisfiedBy(Version.of("3.1")));
+		Assertions.assertTrue(range.isSatisfiedBy(Version.of("4")));
+		Assertions.assertFalse(range.isSatisfiedBy(Version.of("4.1")));
+		Assertions.assertFalse(VersionRange.NONE.isSatisfiedBy(Version.of("1")));
+		Assertions.assertTrue(VersionRange.ANY.isSatisfiedBy(Version.of("1")));
+	}
+
+	@Test
+	void testSetOperations() {
+		VersionRange a = range(interval("1", true, "3", false), interval("5", true, "7", false));
+		VersionRange b = range(interval("2", true, "6", false));
+
+		assertIntervals(a.combineMatchingBoth(b), interval("2", true, "3", false), interval("5", true, "6", false));
+		assertIntervals(a.combineMatchingEither(b), interval("1", true, "7", false));
+		assertIntervals(
+			a.invert(),
+			interval(null, false, "1", false), interval("3", true, "5", false), interval("7", true, null, false)
+		);
+
+		Assertions.assertEquals(a, a.invert().invert());
+		Assertions.assertEquals(VersionRange.ANY, VersionRange.NONE.invert());
+		Assertions.assertEquals(VersionRange.NONE, VersionRange.ANY.invert());
+		Assertions.assertEquals(VersionRange.NONE, a.combineMatchingBoth(a.invert()));
+		Assertions.assertEquals(VersionRange.ANY, a.combineMatchingEither(a.invert()));
+	}
+}
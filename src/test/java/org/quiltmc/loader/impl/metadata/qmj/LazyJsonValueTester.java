@@ -0,0 +1,137 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.loader.impl.metadata.qmj;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.quiltmc.json5.JsonReader;
+import org.quiltmc.json5.exception.ParseException;
+import org.quiltmc.loader.api.LoaderValue;
+
+public class LazyJsonValueTester {
+
+	@ParameterizedTest
+	@ValueSource(strings = {
+		// Everything on the first line, so the lazy values have to be padded to the right column there too
+		"{\"schema_version\": 1, \"custom\": {\"a\": [1, 2.5, {\"b\": \"c\"}]}, \"list\": [true, false, null]}",
+		"{\n  \"schema_version\": 1,\n  \"custom\": {\n    \"a\": [1, 2, 3],\n    \"nested\": { \"deep\": [[], {}] }\n  }\n}",
+		"{\n\"k\\\"ey\": [\"}\", \"]\", \"\\\"{\", \"\\\\\"],\n    \"after\":\n\n      {\"x\": -1.5e3}}",
+		"{ \"empty\" : { } , \"also\" :[ ] }",
+		"{\"quilt_loader\": {\"id\": \"kept\"}, \"custom\": {\"id\": \"lazy\"}}",
+		// Unquoted json5 keys are shorter than the quoted form, so there's no spare room on the first line
+		"{custom:{\"a\": [1, {\"b\": 2}]}, other:[{\"c\": 3}]}",
+		"{'custom':{\"a\": [1, 2]}}",
+	})
+	public void testLazyMatchesEager(String text) throws IOException {
+		JsonLoaderValue.ObjectImpl lazy = readLazy(text);
+		JsonLoaderValue.ObjectImpl eager = readEager(text);
+
+		Assertions.assertEquals(eager.keySet(), lazy.keySet());
+		for (Map.Entry<String, LoaderValue> entry : eager.entrySet()) {
+			assertSameTree(entry.getValue(), lazy.get(entry.getKey()));
+		}
+	}
+
+	@Test
+	public void testCustomValuesAreLazy() throws IOException {
+		JsonLoaderValue.ObjectImpl root = readLazy("{\"quilt_loader\": {\"a\": [1]}, \"custom\": {\"a\": [1]}}");
+		Assertions.assertFalse(root.get("quilt_loader") instanceof JsonLoaderValue.LazyImpl);
+		Assertions.assertTrue(root.get("custom") instanceof JsonLoaderValue.LazyImpl);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {
+		"{\"custom\": {\"a\": [1, 2}}",
+		"{\"custom\": [1, 2]",
+		"{\"custom\": {\"a\" 1}}",
+	})
+	public void testMalformed(String text) {
+		// Both ways of reading must reject the document in the same way
+		Exception eager = Assertions.assertThrows(Exception.class, () -> readEager(text));
+		Exception lazy = Assertions.assertThrows(Exception.class, () -> readLazy(text));
+		Assertions.assertEquals(eager.getClass(), lazy.getClass());
+	}
+
+	@Test
+	public void testRejectsOtherDocuments() {
+		Assertions.assertThrows(ParseException.class, () -> readLazy("{\"custom\": {}} {}"));
+		Assertions.assertThrows(ParseException.class, () -> readLazy("[\"not an object\"]"));
+	}
+
+	@Test
+	public void testScanner() {
+		String text = "{ \"a\" : [1, \"]\"], \"b\": {\"c\": \"}\"} ,\"d\":3}";
+		int[] ranges = JsonValueScanner.findRootValues(text, 3);
+		Assertions.assertNotNull(ranges);
+		Assertions.assertEquals("\"a\"", text.substring(ranges[0], ranges[1]));
+		Assertions.assertEquals("[1, \"]\"]", text.substring(ranges[2], ranges[3]));
+		Assertions.assertEquals("\"b\"", text.substring(ranges[4], ranges[5]));
+		Assertions.assertEquals("{\"c\": \"}\"}", text.substring(ranges[6], ranges[7]));
+		Assertions.assertEquals("\"d\"", text.substring(ranges[8], ranges[9]));
+		Assertions.assertEquals("3", text.substring(ranges[10], ranges[11]));
+
+		// The wrong number of entries isn't accepted
+		Assertions.assertNull(JsonValueScanner.findRootValues(text, 2));
+		Assertions.assertNull(JsonValueScanner.findRootValues(text, 4));
+	}
+
+	private static JsonLoaderValue.ObjectImpl readLazy(String text) throws IOException {
+		return ModMetadataReader.readRoot(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private static JsonLoaderValue.ObjectImpl readEager(String text) throws IOException {
+		try (JsonReader reader = JsonReader.json(new StringReader(text))) {
+			return JsonLoaderValue.read(reader).asObject();
+		}
+	}
+
+	private static void assertSameTree(LoaderValue expected, LoaderValue actual) {
+		Assertions.assertEquals(expected.type(), actual.type(), expected.location());
+		Assertions.assertEquals(expected.location(), actual.location());
+		switch (expected.type()) {
+			case OBJECT: {
+				LoaderValue.LObject expectedObj = expected.asObject();
+				LoaderValue.LObject actualObj = actual.asObject();
+				Assertions.assertEquals(expectedObj.keySet(), actualObj.keySet(), expected.location());
+				for (Map.Entry<String, LoaderValue> entry : expectedObj.entrySet()) {
+					assertSameTree(entry.getValue(), actualObj.get(entry.getKey()));
+				}
+				break;
+			}
+			case ARRAY: {
+				LoaderValue.LArray expectedArray = expected.asArray();
+				LoaderValue.LArray actualArray = actual.asArray();
+				Assertions.assertEquals(expectedArray.size(), actualArray.size(), expected.location());
+				for (int i = 0; i < expectedArray.size(); i++) {
+					assertSameTree(expectedArray.get(i), actualArray.get(i));
+				}
+				break;
+			}
+			default:
+				Assertions.assertEquals(expected, actual);
+		}
+	}
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.loader.impl.metadata.qmj;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.quiltmc.json5.exception.ParseException;
+import org.quiltmc.loader.api.ModContributor;
+import org.quiltmc.loader.api.ModDependency;
+import org.quiltmc.loader.api.ModLicense;
+import org.quiltmc.loader.api.Version;
+import org.quiltmc.loader.impl.util.FileFingerprint;
+
+public class ModMetadataCacheTester {
+
+	private static final String QMJ = "{\n"
+		+ "  \"schema_version\": 1,\n"
+		+ "  \"quilt_loader\": {\n"
+		+ "    \"group\": \"org.quiltmc.test\",\n"
+		+ "    \"id\": \"cached\",\n"
+		+ "    \"version\": \"1.2.3-beta.4\",\n"
+		+ "    \"metadata\": {\n"
+		+ "      \"name\": \"Cached Mod\",\n"
+		+ "      \"license\": { \"name\": \"Custom\", \"id\": \"custom\", \"url\": \"https://example.com\" },\n"
+		+ "      \"contributors\": { \"Someone\": [\"Owner\", \"Artist\"] },\n"
+		+ "      \"contact\": { \"homepage\": \"https://example.com\" },\n"
+		+ "      \"icon\": { \"16\": \"icon_16.png\", \"32\": \"icon_32.png\" }\n"
+		+ "    },\n"
+		+ "    \"entrypoints\": { \"init\": [\"a.Main\", { \"adapter\": \"kotlin\", \"value\": \"a.Other\" }] },\n"
+		+ "    \"jars\": [\"nested/lib.jar\"],\n"
+		+ "    \"load_type\": \"always\",\n"
+		+ "    \"intermediate_mappings\": \"net.fabricmc:intermediary\",\n"
+		+ "    \"provides\": [\"old_id\", { \"id\": \"other:thing\", \"version\": \"2.0\" }],\n"
+		+ "    \"depends\": [\n"
+		+ "      { \"id\": \"minecraft\", \"versions\": \"~1.20\", \"reason\": \"needs it\" },\n"
+		+ "      { \"id\": \"lib\", \"optional\": true, \"unless\": \"other_lib\" },\n"
+		+ "      [\"either\", { \"id\": \"or\", \"versions\": \">=2\" }]\n"
+		+ "    ],\n"
+		+ "    \"breaks\": [\"bad\"]\n"
+		+ "  },\n"
+		+ "  \"mixin\": \"cached.mixins.json\",\n"
+		+ "  \"custom\": { \"key\": [1, 2] }\n"
+		+ "}\n";
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	public void testHitSkipsReading() throws IOException {
+		Path cacheFile = tempDir.resolve("cache.bin");
+		Path qmj = tempDir.resolve("quilt.mod.json");
+		Files.write(qmj, QMJ.getBytes(StandardCharsets.UTF_8));
+		FileFingerprint fingerprint = FileFingerprint.of(qmj);
+
+		ModMetadataCache cache = ModMetadataCache.load(cacheFile);
+		InternalModMetadata original = cache.read(qmj, "cached.jar", fingerprint, null, null);
+		cache.save();
+
+		// The fingerprint is unchanged, so the file must not be read again
+		Files.write(qmj, "not json".getBytes(StandardCharsets.UTF_8));
+		cache = ModMetadataCache.load(cacheFile);
+		InternalModMetadata cached = cache.read(qmj, "cached.jar", fingerprint, null, null);
+
+		// Custom values are kept as text, rather than being parsed just to be cached
+		Assertions.assertTrue(cached.value("custom") instanceof JsonLoaderValue.LazyImpl);
+		assertSameMetadata(original, cached);
+		cache.save();
+
+		// Entries that were used are kept when the cache is saved again
+		cache = ModMetadataCache.load(cacheFile);
+		assertSameMetadata(original, cache.read(qmj, "cached.jar", fingerprint, null, null));
+	}
+
+	@Test
+	public void testInvalidation() throws IOException {
+		Path cacheFile = tempDir.resolve("cache.bin");
+		Path qmj = tempDir.resolve("quilt.mod.json");
+		Files.write(qmj, QMJ.getBytes(StandardCharsets.UTF_8));
+		FileFingerprint fingerprint = FileFingerprint.of(qmj);
+
+		ModMetadataCache cache = ModMetadataCache.load(cacheFile);
+		cache.read(qmj, "cached.jar", fingerprint, null, null);
+		cache.save();
+
+		Files.write(qmj, QMJ.replace("1.2.3-beta.4", "1.2.4").getBytes(StandardCharsets.UTF_8));
+		FileFingerprint changed = new FileFingerprint(fingerprint.path, fingerprint.size + 1, fingerprint.lastModified);
+		cache = ModMetadataCache.load(cacheFile);
+		Assertions.assertEquals(Version.of("1.2.4"), cache.read(qmj, "cached.jar", changed, null, null).version());
+		cache.save();
+
+		Files.write(qmj, "not json".getBytes(StandardCharsets.UTF_8));
+		FileFingerprint broken = new FileFingerprint(fingerprint.path, fingerprint.size + 2, fingerprint.lastModified);
+		ModMetadataCache reloaded = ModMetadataCache.load(cacheFile);
+		Assertions.assertThrows(ParseException.class, () -> reloaded.read(qmj, "cached.jar", broken, null, null));
+
+		// A different loader version (or a corrupt file) is ignored rather than failing
+		Files.write(cacheFile, new byte[] { 1, 2, 3 });
+		Files.write(qmj, QMJ.getBytes(StandardCharsets.UTF_8));
+		cache = ModMetadataCache.load(cacheFile);
+		Assertions.assertEquals("cached", cache.read(qmj, "cached.jar", fingerprint, null, null).id());
+	}
+
+	@Test
+	public void testWarningsAreReadAgain() throws IOException {
+		Path cacheFile = tempDir.resolve("cache.bin");
+		Path qmj = tempDir.resolve("quilt.mod.json");
+		// Array version ranges are deprecated, so this logs a warning
+		String json = QMJ.replace("\"~1.20\"", "[\"~1.20\", \"=1.21\"]");
+		Files.write(qmj, json.getBytes(StandardCharsets.UTF_8));
+		FileFingerprint fingerprint = FileFingerprint.of(qmj);
+
+		ModMetadataCache cache = ModMetadataCache.load(cacheFile);
+		InternalModMetadata original = cache.read(qmj, "cached.jar", fingerprint, null, null);
+		cache.save();
+
+		// The json tree is still cached, so this is re-interpreted without reading the file
+		Files.write(qmj, "not json".getBytes(StandardCharsets.UTF_8));
+		cache = ModMetadataCache.load(cacheFile);
+		assertSameMetadata(original, cache.read(qmj, "cached.jar", fingerprint, null, null));
+	}
+
+	private static void assertSameMetadata(InternalModMetadata expected, InternalModMetadata actual) {
+		Assertions.assertNotSame(expected, actual);
+		Assertions.assertEquals(expected.id(), actual.id());
+		Assertions.assertEquals(expected.group(), actual.group());
+		Assertions.assertEquals(expected.version(), actual.version());
+		Assertions.assertEquals(expected.name(), actual.name());
+		Assertions.assertEquals(expected.description(), actual.description());
+		Assertions.assertEquals(licenses(expected), licenses(actual));
+		Assertions.assertEquals(contributors(expected), contributors(actual));
+		Assertions.assertEquals(expected.contactInfo(), actual.contactInfo());
+		Assertions.assertEquals(new ArrayList<>(expected.depends()), new ArrayList<>(actual.depends()));
+		Assertions.assertEquals(new ArrayList<>(expected.breaks()), new ArrayList<>(actual.breaks()));
+		Assertions.assertEquals(dependencyLocations(expected.depends()), dependencyLocations(actual.depends()));
+		for (int size : new int[] { 8, 16, 24, 32, 64 }) {
+			Assertions.assertEquals(expected.icon(size), actual.icon(size));
+		}
+		Assertions.assertEquals(expected.loadType(), actual.loadType());
+		Assertions.assertEquals(expected.provides().toString(), actual.provides().toString());
+		Assertions.assertEquals(entrypoints(expected), entrypoints(actual));
+		Assertions.assertEquals(new ArrayList<>(expected.jars()), new ArrayList<>(actual.jars()));
+		Assertions.assertEquals(Collections.singletonList("nested/lib.jar"), new ArrayList<>(actual.jars()));
+		Assertions.assertEquals(expected.languageAdapters(), actual.languageAdapters());
+		Assertions.assertEquals(new ArrayList<>(expected.mixins(null)), new ArrayList<>(actual.mixins(null)));
+		Assertions.assertEquals(expected.environment(), actual.environment());
+		Assertions.assertEquals(expected.value("custom").asObject().get("key").asArray().size(), 2);
+		Assertions.assertEquals(expected.value("custom").location(), actual.value("custom").location());
+		Assertions.assertEquals(2, actual.value("custom").asObject().get("key").asArray().get(1).asNumber().intValue());
+	}
+
+	private static List<String> licenses(InternalModMetadata metadata) {
+		List<String> list = new ArrayList<>();
+		for (ModLicense license : metadata.licenses()) {
+			list.add(license.name() + "|" + license.id() + "|" + license.url() + "|" + license.description());
+		}
+		return list;
+	}
+
+	private static List<String> contributors(InternalModMetadata metadata) {
+		List<String> list = new ArrayList<>();
+		for (ModContributor contributor : metadata.contributors()) {
+			list.add(contributor.name() + "=" + contributor.roles());
+		}
+		return list;
+	}
+
+	private static List<String> dependencyLocations(Iterable<ModDependency> dependencies) {
+		List<String> list = new ArrayList<>();
+		for (ModDependency dependency : dependencies) {
+			list.add(dependency.toString());
+			if (dependency instanceof ModDependency.Only) {
+				ModDependency.Only only = (ModDependency.Only) dependency;
+				list.add(only.reason() + "|" + only.optional() + "|" + only.versionRange());
+			}
+		}
+		return list;
+	}
+
+	private static List<String> entrypoints(InternalModMetadata metadata) {
+		List<String> list = new ArrayList<>();
+		metadata.getEntrypoints().forEach((key, entries) -> {
+			for (AdapterLoadableClassEntry entry : entries) {
+				list.add(key + "=" + entry.getAdapter() + ":" + entry.getValue());
+			}
+		});
+		return list;
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.loader.impl.metadata.qmj;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.quiltmc.json5.exception.ParseException;
+import org.quiltmc.loader.impl.metadata.qmj.QuiltOverrides.ModOverrides;
+
+public class QuiltOverridesTester {
+
+	@TempDir
+	Path dir;
+
+	private QuiltOverrides read(String... overrides) throws IOException, ParseException {
+		StringBuilder sb = new StringBuilder("{\"schema_version\": 1, \"overrides\": [");
+		for (int i = 0; i < overrides.length; i++) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			sb.append('{').append(overrides[i]).append(", \"version\": \"").append(i).append("\"}");
+		}
+		sb.append("]}");
+		Path file = dir.resolve("quilt-loader-overrides.json");
+		Files.write(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+		return new QuiltOverrides(file);
+	}
+
+	/** @return The index of every override which matched, in the order they were returned. */
+	private static List<String> match(QuiltOverrides overrides, String modId) {
+		List<String> matched = new ArrayList<>();
+		for (ModOverrides mod : overrides.getPatternOverrides(modId)) {
+			matched.add(mod.newVersion);
+		}
+		return matched;
+	}
+
+	@Test
+	void testDeclarationOrder() throws Exception {
+		QuiltOverrides overrides = read(
+			"\"pattern\": \"buildcraft.*\"",
+			"\"id\": \"buildcraft_core\"",
+			"\"pattern\": \".*_core\"",
+			"\"id\": \"buildcraft_core\"",
+			"\"pattern\": \"other\""
+		);
+
+		Assertions.assertEquals(Arrays.asList("0", "1", "2", "3"), match(overrides, "buildcraft_core"));
+		Assertions.assertEquals(Arrays.asList("0"), match(overrides, "buildcraft_lib"));
+		Assertions.assertEquals(Arrays.asList("2"), match(overrides, "quilt_core"));
+		Assertions.assertEquals(Arrays.asList("4"), match(overrides, "other"));
+		Assertions.assertEquals(Arrays.asList(), match(overrides, "unrelated"));
+	}
+
+	@Test
+	void testLiteralAfterPatterns() throws Exception {
+		// Backreferences stop the patterns from being combined, so each one is checked on its own
+		QuiltOverrides overrides = read(
+			"\"pattern\": \"(a)\\\\1b\"",
+			"\"pattern\": \"a+b\"",
+			"\"id\": \"aab\""
+		);
+
+		Assertions.assertEquals(Arrays.asList("0", "1", "2"), match(overrides, "aab"));
+		Assertions.assertEquals(Arrays.asList("1"), match(overrides, "ab"));
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.loader.impl.metadata.qmj;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.quiltmc.loader.api.Version;
+
+public class VersionInternerTester {
+	@Test
+	void testSameInstance() {
+		Assertions.assertSame(Version.of("1.2.3-beta.4"), Version.of("1.2.3-beta.4"));
+		Assertions.assertSame(Version.of("not semantic"), Version.of("not semantic"));
+	}
+
+	@Test
+	void testClassesDontReplaceEachOther() throws Exception {
+		String raw = "4.5.6";
+		SemanticVersionImpl semantic = VersionInterner.intern(SemanticVersionImpl.parse(raw));
+		GenericVersionImpl generic = VersionInterner.intern(new GenericVersionImpl(raw));
+
+		Assertions.assertSame(semantic, Version.of(raw));
+		Assertions.assertSame(semantic, VersionInterner.get(SemanticVersionImpl.class, raw));
+		Assertions.assertSame(generic, VersionInterner.get(GenericVersionImpl.class, raw));
+		Assertions.assertSame(generic, VersionInterner.intern(new GenericVersionImpl(raw)));
+	}
+
+	@Test
+	void testConcurrentInterning() throws Exception {
+		int threads = 8;
+		int count = 2000;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<Version[]>> results = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				results.add(executor.submit(() -> {
+					start.await();
+					Version[] versions = new Version[count];
+					for (int i = 0; i < count; i++) {
+						versions[i] = Version.of("7." + i + ".0");
+					}
+					return versions;
+				}));
+			}
+			start.countDown();
+
+			Version[] expected = results.get(0).get();
+			for (Future<Version[]> result : results) {
+				Version[] versions = result.get();
+				for (int i = 0; i < count; i++) {
+					Assertions.assertSame(expected[i], versions[i]);
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.plugin;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.quiltmc.loader.impl.filesystem.QuiltMemoryFileSystem;
+import org.quiltmc.loader.impl.util.FileFingerprint;
+
+public class NestedJarCacheTester {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	public void testReuseAndEvict() throws IOException {
+		Path folder = tempDir.resolve("nested-jars");
+		Path outer = tempDir.resolve("outer.jar");
+		Files.write(outer, new byte[] { 1, 2, 3 });
+		FileFingerprint fingerprint = FileFingerprint.of(outer);
+
+		try (QuiltMemoryFileSystem fs = new QuiltMemoryFileSystem.ReadWrite("nested_jars", true)) {
+			Path a = fs.getRoot().resolve("a.jar");
+			Path b = fs.getRoot().resolve("b.jar");
+			Files.write(a, new byte[] { 4, 5, 6 });
+			Files.write(b, new byte[] { 7, 8, 9 });
+
+			NestedJarCache cache = NestedJarCache.load(folder);
+			Path extractedA = cache.get(a, "outer.jar!/a.jar", fingerprint);
+			Path extractedB = cache.get(b, "outer.jar!/b.jar", fingerprint);
+			Assertions.assertArrayEquals(Files.readAllBytes(a), Files.readAllBytes(extractedA));
+			Assertions.assertArrayEquals(Files.readAllBytes(b), Files.readAllBytes(extractedB));
+			cache.save();
+
+			// The fingerprint hasn't changed, so the previously extracted file is reused as-is
+			Files.write(a, new byte[] { 10 });
+			cache = NestedJarCache.load(folder);
+			Assertions.assertEquals(extractedA, cache.get(a, "outer.jar!/a.jar", fingerprint));
+			Assertions.assertArrayEquals(new byte[] { 4, 5, 6 }, Files.readAllBytes(extractedA));
+			cache.save();
+
+			Assertions.assertTrue(Files.exists(extractedA));
+			Assertions.assertFalse(Files.exists(extractedB), "Unused nested jars should be removed");
+
+			// Changing the outer file extracts the nested jar again
+			FileFingerprint changed = new FileFingerprint(fingerprint.path, fingerprint.size + 1, fingerprint.lastModified);
+			cache = NestedJarCache.load(folder);
+			Path extractedA2 = cache.get(a, "outer.jar!/a.jar", changed);
+			Assertions.assertArrayEquals(new byte[] { 10 }, Files.readAllBytes(extractedA2));
+		}
+	}
+
+	@Test
+	public void testEvictionSkipsTemporaryFilesAndContinuesAfterFailures() throws IOException {
+		Path folder = tempDir.resolve("nested-jars");
+		Path outer = tempDir.resolve("outer.jar");
+		Files.write(outer, new byte[] { 1, 2, 3 });
+		FileFingerprint fingerprint = FileFingerprint.of(outer);
+
+		Files.createDirectories(folder);
+		Path extracting = Files.write(folder.resolve("extracting-123.tmp"), new byte[] { 1 });
+		Path otherTmp = Files.write(folder.resolve("saving.tmp"), new byte[] { 2 });
+		// A non-empty directory can't be deleted, which stands in for a jar that is still open
+		Path undeletable = Files.createDirectories(folder.resolve("undeletable.jar"));
+		Files.write(undeletable.resolve("inner"), new byte[] { 3 });
+		Path unused = Files.write(folder.resolve("unused.jar"), new byte[] { 4 });
+
+		try (QuiltMemoryFileSystem fs = new QuiltMemoryFileSystem.ReadWrite("nested_jars_evict", true)) {
+			Path a = fs.getRoot().resolve("a.jar");
+			Files.write(a, new byte[] { 4, 5, 6 });
+
+			NestedJarCache cache = NestedJarCache.load(folder);
+			Path extractedA = cache.get(a, "outer.jar!/a.jar", fingerprint);
+			cache.save();
+
+			Assertions.assertTrue(Files.exists(extractedA));
+			Assertions.assertTrue(Files.exists(extracting));
+			Assertions.assertTrue(Files.exists(otherTmp));
+			Assertions.assertTrue(Files.exists(undeletable));
+			Assertions.assertFalse(Files.exists(unused));
+		}
+	}
+}
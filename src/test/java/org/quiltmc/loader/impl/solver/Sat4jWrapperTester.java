@@ -0,0 +1,383 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.quiltmc.loader.api.gui.QuiltLoaderText;
+import org.quiltmc.loader.api.plugin.solver.LoadOption;
+import org.quiltmc.loader.api.plugin.solver.Rule;
+import org.quiltmc.loader.api.plugin.solver.RuleDefiner;
+import org.quiltmc.loader.impl.discovery.ModSolvingError;
+import org.quiltmc.loader.util.sat4j.specs.TimeoutException;
+
+public class Sat4jWrapperTester {
+
+	@Test
+	public void testRemoveRuleAfterFailure() throws TimeoutException, ModSolvingError {
+		Sat4jWrapper solver = new Sat4jWrapper();
+		TestOption a = new TestOption("a");
+		TestOption b = new TestOption("b");
+		solver.addOption(a);
+		solver.addOption(b);
+
+		TestRule mandatoryA = new TestRule("mandatory a", d -> d.atLeastOneOf(a));
+		TestRule mandatoryB = new TestRule("mandatory b", d -> d.atLeastOneOf(b));
+		TestRule breaks = new TestRule("a breaks b", d -> d.atMost(1, a, b));
+		solver.addRule(mandatoryA);
+		solver.addRule(mandatoryB);
+		solver.addRule(breaks);
+
+		Assertions.assertFalse(solver.hasSolution());
+		Assertions.assertEquals(set(mandatoryA, mandatoryB, breaks), new HashSet<>(solver.getError()));
+
+		solver.removeRule(breaks);
+		Assertions.assertTrue(solver.hasSolution());
+		Assertions.assertEquals(set(a, b), new HashSet<>(solver.getSolution()));
+	}
+
+	@Test
+	public void testDisjointErrors() throws TimeoutException {
+		Sat4jWrapper solver = new Sat4jWrapper();
+		TestOption a = new TestOption("a");
+		TestOption b = new TestOption("b");
+		TestOption x = new TestOption("x");
+		TestOption y = new TestOption("y");
+		solver.addOption(a);
+		solver.addOption(b);
+		solver.addOption(x);
+		solver.addOption(y);
+
+		TestRule mandatoryA = new TestRule("mandatory a", d -> d.atLeastOneOf(a));
+		TestRule mandatoryB = new TestRule("mandatory b", d -> d.atLeastOneOf(b));
+		TestRule breaks = new TestRule("a breaks b", d -> d.atMost(1, a, b));
+		solver.addRule(mandatoryA);
+		solver.addRule(mandatoryB);
+		solver.addRule(breaks);
+
+		// Both errors share options through "x and y", but not any rules. That rule can never be violated, so it
+		// can't be part of an error (unlike "x or y", which would make "never x, never y, x or y" a valid error too)
+		TestRule mandatoryX = new TestRule("mandatory x", d -> d.atLeastOneOf(x));
+		TestRule neverX = new TestRule("never x", d -> d.atLeastOneOf(d.negate(x)));
+		TestRule mandatoryY = new TestRule("mandatory y", d -> d.atLeastOneOf(y));
+		TestRule neverY = new TestRule("never y", d -> d.atLeastOneOf(d.negate(y)));
+		solver.addRule(mandatoryX);
+		solver.addRule(neverX);
+		solver.addRule(mandatoryY);
+		solver.addRule(neverY);
+		solver.addRule(new TestRule("x and y", d -> d.atMost(2, x, y)));
+
+		Assertions.assertFalse(solver.hasSolution());
+		Assertions.assertEquals(
+			set(set(mandatoryA, mandatoryB, breaks), set(mandatoryX, neverX), set(mandatoryY, neverY)),
+			new HashSet<>(toSets(solver.getErrors()))
+		);
+
+		// Errors which weren't touched are still reported after solving again
+		solver.removeRule(breaks);
+		solver.removeRule(neverX);
+		Assertions.assertFalse(solver.hasSolution());
+		Assertions.assertEquals(
+			Collections.singletonList(set(mandatoryY, neverY)), toSets(solver.getErrors())
+		);
+
+		solver.removeRule(neverY);
+		Assertions.assertTrue(solver.hasSolution());
+	}
+
+	@Test
+	public void testRedefineAfterFailure() throws TimeoutException, ModSolvingError {
+		Sat4jWrapper solver = new Sat4jWrapper();
+		TestOption a = new TestOption("a");
+		TestOption b = new TestOption("b");
+		solver.addOption(a);
+		solver.addOption(b);
+
+		LoadOption[] required = { a };
+		TestRule mandatory = new TestRule("mandatory", d -> d.atLeastOneOf(required));
+		solver.addRule(mandatory);
+		solver.addRule(new TestRule("never a", d -> d.atLeastOneOf(d.negate(a))));
+
+		Assertions.assertFalse(solver.hasSolution());
+
+		required[0] = b;
+		solver.redefine(mandatory);
+		Assertions.assertTrue(solver.hasSolution());
+		List<LoadOption> solution = solver.getSolution();
+		Assertions.assertTrue(solution.contains(b));
+		Assertions.assertFalse(solution.contains(a));
+	}
+
+	@Test
+	public void testOptimisesWeights() throws TimeoutException, ModSolvingError {
+		Sat4jWrapper solver = new Sat4jWrapper();
+		TestOption cheap = new TestOption("cheap");
+		TestOption expensive = new TestOption("expensive");
+		solver.addOption(cheap);
+		solver.addOption(expensive);
+
+		TestRule rule = new TestRule("one of", d -> d.exactly(1, cheap, expensive));
+		solver.addRule(rule);
+		solver.setWeight(cheap, rule, 1);
+		solver.setWeight(expensive, rule, 100);
+
+		Assertions.assertTrue(solver.hasSolution());
+		Assertions.assertEquals(Collections.singletonList(cheap), solver.getSolution());
+	}
+
+	@Test
+	public void testIndependentComponents() throws TimeoutException, ModSolvingError {
+		Sat4jWrapper solver = new Sat4jWrapper();
+		Set<LoadOption> expected = new HashSet<>();
+
+		for (int i = 0; i < 20; i++) {
+			TestOption cheap = new TestOption("cheap" + i);
+			TestOption expensive = new TestOption("expensive" + i);
+			TestOption dependency = new TestOption("dependency" + i);
+			solver.addOption(cheap);
+			solver.addOption(expensive);
+			solver.addOption(dependency);
+
+			TestRule rule = new TestRule("one of " + i, d -> d.exactly(1, cheap, expensive));
+			solver.addRule(rule);
+			solver.addRule(new TestRule("cheap " + i + " depends", d -> d.atLeastOneOf(d.negate(cheap), dependency)));
+			solver.setWeight(cheap, rule, 1);
+			solver.setWeight(expensive, rule, 100);
+			solver.setWeight(dependency, rule, 2);
+			expected.add(cheap);
+			expected.add(dependency);
+		}
+
+		// Options without any rules are picked purely by their weight
+		TestOption unused = new TestOption("unused");
+		TestOption wanted = new TestOption("wanted");
+		solver.addOption(unused);
+		solver.addOption(wanted);
+		TestRule weightKey = new TestRule("weight", d -> {});
+		solver.setWeight(unused, weightKey, 5);
+		solver.setWeight(wanted, weightKey, -5);
+		expected.add(wanted);
+
+		Assertions.assertTrue(solver.hasSolution());
+		Assertions.assertEquals(expected, new HashSet<>(solver.getSolution()));
+	}
+
+	@Test
+	public void testZeroWeightOptions() throws TimeoutException, ModSolvingError {
+		Sat4jWrapper solver = new Sat4jWrapper();
+		TestOption unweighted = new TestOption("unweighted");
+		TestOption zero = new TestOption("zero");
+		TestOption either = new TestOption("either");
+		TestOption or = new TestOption("or");
+		solver.addOption(unweighted);
+		solver.addOption(zero);
+		solver.addOption(either);
+		solver.addOption(or);
+
+		TestRule weightKey = new TestRule("weight", d -> {});
+		solver.setWeight(zero, weightKey, 0);
+		solver.addRule(new TestRule("either or", d -> d.exactly(1, either, or)));
+		solver.setWeight(or, weightKey, 1);
+
+		// Options that nothing requires, and that aren't preferred, are left out
+		Assertions.assertTrue(solver.hasSolution());
+		Assertions.assertEquals(Collections.singletonList(either), solver.getSolution());
+	}
+
+	@Test
+	public void testPortfolio() throws TimeoutException, ModSolvingError {
+		Sat4jWrapper solver = new Sat4jWrapper(1000, true);
+		TestOption[] options = new TestOption[10];
+		for (int i = 0; i < options.length; i++) {
+			options[i] = new TestOption("option" + i);
+			solver.addOption(options[i]);
+		}
+
+		TestRule rule = new TestRule("pick three", d -> d.exactly(3, options));
+		solver.addRule(rule);
+		for (int i = 0; i < options.length; i++) {
+			solver.setWeight(options[i], rule, 10 - i);
+		}
+
+		Assertions.assertTrue(solver.hasSolution());
+		Assertions.assertEquals(set(options[7], options[8], options[9]), new HashSet<>(solver.getSolution()));
+	}
+
+	@Test
+	public void testDeadlineUsesFirstModel() throws TimeoutException, ModSolvingError {
+		// No time at all to optimise, so the first valid model is used as-is
+		Sat4jWrapper solver = new Sat4jWrapper(0, false);
+		TestOption[] options = new TestOption[10];
+		for (int i = 0; i < options.length; i++) {
+			options[i] = new TestOption("option" + i);
+			solver.addOption(options[i]);
+		}
+
+		TestRule rule = new TestRule("pick three", d -> d.exactly(3, options));
+		solver.addRule(rule);
+		for (int i = 0; i < options.length; i++) {
+			solver.setWeight(options[i], rule, 10 - i);
+		}
+
+		Assertions.assertTrue(solver.hasSolution());
+		Assertions.assertEquals(3, new HashSet<>(solver.getSolution()).size());
+	}
+
+	@Test
+	public void testCancelBeforeOptimising() throws TimeoutException {
+		Sat4jWrapper solver = new Sat4jWrapper();
+		TestOption a = new TestOption("a");
+		TestOption b = new TestOption("b");
+		solver.addOption(a);
+		solver.addOption(b);
+		TestRule rule = new TestRule("a or b", d -> d.exactly(1, a, b));
+		solver.addRule(rule);
+		solver.setWeight(a, rule, 1);
+
+		Assertions.assertTrue(solver.hasSolution());
+		Assertions.assertTrue(solver.cancelIf(Sat4jWrapper.Sat4jSolveStep.RE_SOLVING));
+		Assertions.assertThrows(TimeoutException.class, solver::getSolution);
+	}
+
+	@Test
+	public void testInterestKeys() {
+		Sat4jWrapper solver = new Sat4jWrapper();
+		TestOption a = new TestOption("a");
+		TestOption b = new TestOption("b");
+		TestOption c = new TestOption("c");
+		solver.addOption(a);
+
+		List<LoadOption> keyedSeen = new ArrayList<>();
+		List<LoadOption> broadcastSeen = new ArrayList<>();
+		TestRule keyed = new TestRule("keyed", d -> {}) {
+			@Override
+			public Collection<?> getInterestKeys() {
+				return Arrays.asList(a, c);
+			}
+
+			@Override
+			public boolean onLoadOptionAdded(LoadOption option) {
+				keyedSeen.add(option);
+				return false;
+			}
+		};
+		TestRule broadcast = new TestRule("broadcast", d -> {}) {
+			@Override
+			public boolean onLoadOptionAdded(LoadOption option) {
+				broadcastSeen.add(option);
+				return false;
+			}
+		};
+		solver.addRule(keyed);
+		solver.addRule(broadcast);
+		solver.addOption(b);
+		solver.addOption(c);
+
+		Assertions.assertEquals(Arrays.asList(a, c), keyedSeen);
+		Assertions.assertEquals(Arrays.asList(a, b, c), broadcastSeen);
+	}
+
+	private static List<Set<Rule>> toSets(List<Collection<Rule>> errors) {
+		List<Set<Rule>> list = new ArrayList<>();
+		for (Collection<Rule> error : errors) {
+			list.add(new HashSet<>(error));
+		}
+		return list;
+	}
+
+	@SafeVarargs
+	private static <T> Set<T> set(T... values) {
+		return new HashSet<>(Arrays.asList(values));
+	}
+
+	static final class TestOption extends LoadOption {
+		final String name;
+
+		TestOption(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public QuiltLoaderText describe() {
+			return QuiltLoaderText.of(name);
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+	static class TestRule extends Rule {
+		final String name;
+		final Consumer<RuleDefiner> definer;
+
+		TestRule(String name, Consumer<RuleDefiner> definer) {
+			this.name = name;
+			this.definer = definer;
+		}
+
+		@Override
+		public boolean onLoadOptionAdded(LoadOption option) {
+			return false;
+		}
+
+		@Override
+		public boolean onLoadOptionRemoved(LoadOption option) {
+			return false;
+		}
+
+		@Override
+		public void define(RuleDefiner definer) {
+			this.definer.accept(definer);
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+
+		@Override
+		public Collection<? extends LoadOption> getNodesFrom() {
+			return Collections.emptyList();
+		}
+
+		@Override
+		public Collection<? extends LoadOption> getNodesTo() {
+			return Collections.emptyList();
+		}
+
+		@Override
+		public void fallbackErrorDescription(StringBuilder errors) {
+			errors.append(name);
+		}
+
+		@Override
+		public void appendRuleDescription(Consumer<QuiltLoaderText> to) {
+			to.accept(QuiltLoaderText.of(name));
+		}
+	}
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.loader.impl.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandleProxies;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+public class DefaultLanguageAdapterTester {
+
+	// Public, since the separately loaded Target is in a different runtime package
+	public static final AtomicInteger CALLS = new AtomicInteger();
+
+	public static class Target {
+		public static void run() {
+			CALLS.incrementAndGet();
+		}
+
+		void tick() {
+			CALLS.addAndGet(10);
+		}
+	}
+
+	/** Loads {@link Target} itself, like a mod's class loader would, and leaves everything else to its parent. */
+	static class SeparateLoader extends ClassLoader {
+		SeparateLoader() {
+			super(DefaultLanguageAdapterTester.class.getClassLoader());
+		}
+
+		@Override
+		protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+			if (!name.equals(Target.class.getName())) {
+				return super.loadClass(name, resolve);
+			}
+			synchronized (getClassLoadingLock(name)) {
+				Class<?> c = findLoadedClass(name);
+				if (c == null) {
+					try (InputStream stream = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+						byte[] bytes = stream.readAllBytes();
+						c = defineClass(name, bytes, 0, bytes.length);
+					} catch (IOException e) {
+						throw new ClassNotFoundException(name, e);
+					}
+				}
+				return c;
+			}
+		}
+
+		Class<?> define(String name, byte[] bytes) {
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+	}
+
+	@Test
+	public void testCompiledInSeparateLoader() throws Throwable {
+		ClassLoader loader = new SeparateLoader();
+		Class<?> target = Class.forName(Target.class.getName(), true, loader);
+		Assertions.assertNotSame(Target.class, target);
+
+		CALLS.set(0);
+
+		MethodHandle compiledStatic = DefaultLanguageAdapter.compile(target, target.getMethod("run"), Runnable.class);
+		Assertions.assertNotNull(compiledStatic, "static method wasn't compiled");
+		Runnable staticRun = (Runnable) (Object) compiledStatic.invokeExact();
+		assertCompiled(staticRun, loader);
+		staticRun.run();
+		Assertions.assertEquals(1, CALLS.get());
+
+		Method tick = target.getDeclaredMethod("tick");
+		MethodHandle compiledInstance = DefaultLanguageAdapter.compile(target, tick, Runnable.class);
+		Assertions.assertNotNull(compiledInstance, "instance method wasn't compiled");
+		Object receiver = target.getDeclaredConstructor().newInstance();
+		Runnable instanceRun = (Runnable) (Object) compiledInstance.invokeExact(receiver);
+		assertCompiled(instanceRun, loader);
+		instanceRun.run();
+		Assertions.assertEquals(11, CALLS.get());
+
+		Class<?> helper = Class.forName(target.getName() + "$QuiltEntrypointLookup", false, loader);
+		Assertions.assertTrue(helper.isSynthetic());
+		Assertions.assertFalse(Modifier.isPublic(helper.getModifiers()));
+	}
+
+	@Test
+	public void testIgnoresOtherClassWithHelperName() throws Throwable {
+		SeparateLoader loader = new SeparateLoader();
+		Class<?> target = Class.forName(Target.class.getName(), true, loader);
+
+		// Same name and method as the helper, but not one that loader defined
+		String name = target.getName() + "$QuiltEntrypointLookup";
+		String lookupDesc = "()Ljava/lang/invoke/MethodHandles$Lookup;";
+		ClassWriter writer = new ClassWriter(0);
+		writer.visit(
+			Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name.replace('.', '/'), null, "java/lang/Object", null
+		);
+		MethodVisitor mv = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "lookup", lookupDesc, null, null);
+		mv.visitCode();
+		mv.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/invoke/MethodHandles", "lookup", lookupDesc, false);
+		mv.visitInsn(Opcodes.ARETURN);
+		mv.visitMaxs(1, 0);
+		mv.visitEnd();
+		writer.visitEnd();
+		loader.define(name, writer.toByteArray());
+
+		// So it falls back to reflection instead of using that class's lookup
+		Assertions.assertNull(DefaultLanguageAdapter.compile(target, target.getMethod("run"), Runnable.class));
+	}
+
+	private static void assertCompiled(Runnable runnable, ClassLoader loader) {
+		Assertions.assertFalse(MethodHandleProxies.isWrapperInstance(runnable));
+		Assertions.assertTrue(runnable.getClass().isHidden());
+		Assertions.assertSame(loader, runnable.getClass().getClassLoader());
+	}
+}
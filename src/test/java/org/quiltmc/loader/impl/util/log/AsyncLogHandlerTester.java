@@ -0,0 +1,176 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.loader.impl.util.log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class AsyncLogHandlerTester {
+
+	/** Collects every message it's given. */
+	static class CollectingHandler implements LogHandler {
+		final List<String> messages = new ArrayList<>();
+		volatile boolean closed;
+
+		@Override
+		public synchronized void log(long time, LogLevel level, LogCategory category, String msg, Throwable exc, boolean fromReplay, boolean wasSuppressed) {
+			messages.add(msg);
+		}
+
+		@Override
+		public boolean shouldLog(LogLevel level, LogCategory category) {
+			return true;
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+
+		synchronized List<String> messages() {
+			return new ArrayList<>(messages);
+		}
+	}
+
+	private static void log(LogHandler handler, String msg) {
+		handler.log(System.currentTimeMillis(), LogLevel.INFO, LogCategory.GENERAL, msg, null, false, false);
+	}
+
+	@Test
+	public void testManyProducers() throws InterruptedException {
+		int producers = 8;
+		int perProducer = 2000;
+		CollectingHandler delegate = new CollectingHandler();
+		AsyncLogHandler handler = new AsyncLogHandler(delegate, producers * perProducer, 0);
+
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>();
+		for (int p = 0; p < producers; p++) {
+			int producer = p;
+			Thread thread = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				for (int i = 0; i < perProducer; i++) {
+					log(handler, producer + ":" + i);
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		handler.close();
+
+		Assertions.assertEquals(0, handler.getDroppedCount());
+		Assertions.assertTrue(delegate.closed);
+
+		List<String> messages = delegate.messages();
+		Assertions.assertEquals(producers * perProducer, messages.size());
+
+		// Each producer's messages are written in the order it logged them
+		int[] next = new int[producers];
+		for (String msg : messages) {
+			int split = msg.indexOf(':');
+			int producer = Integer.parseInt(msg.substring(0, split));
+			Assertions.assertEquals(next[producer]++, Integer.parseInt(msg.substring(split + 1)), msg);
+		}
+	}
+
+	@Test
+	public void testOverflowDropsAndReports() throws InterruptedException {
+		CountDownLatch writing = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CollectingHandler delegate = new CollectingHandler() {
+			@Override
+			public void log(long time, LogLevel level, LogCategory category, String msg, Throwable exc, boolean fromReplay, boolean wasSuppressed) {
+				if (msg.equals("blocking")) {
+					writing.countDown();
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				super.log(time, level, category, msg, exc, fromReplay, wasSuppressed);
+			}
+		};
+		AsyncLogHandler handler = new AsyncLogHandler(delegate, 4, 0);
+
+		// Keep the writer busy, so the buffer can only fill up
+		log(handler, "blocking");
+		Assertions.assertTrue(writing.await(10, TimeUnit.SECONDS));
+
+		for (int i = 0; i < 20; i++) {
+			log(handler, "m" + i);
+		}
+
+		Assertions.assertEquals(16, handler.getDroppedCount());
+
+		release.countDown();
+		handler.close();
+
+		Assertions.assertEquals(
+			Arrays.asList(
+				"blocking", "16 log messages were dropped since the log buffer was full", "m0", "m1", "m2", "m3"
+			),
+			delegate.messages()
+		);
+	}
+
+	@Test
+	public void testCloseDrainsQueue() {
+		CollectingHandler delegate = new CollectingHandler() {
+			@Override
+			public void log(long time, LogLevel level, LogCategory category, String msg, Throwable exc, boolean fromReplay, boolean wasSuppressed) {
+				try {
+					Thread.sleep(1);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				super.log(time, level, category, msg, exc, fromReplay, wasSuppressed);
+			}
+		};
+		AsyncLogHandler handler = new AsyncLogHandler(delegate, 256, 16);
+
+		for (int i = 0; i < 100; i++) {
+			log(handler, "m" + i);
+		}
+		handler.close();
+
+		List<String> messages = delegate.messages();
+		Assertions.assertEquals(100, messages.size());
+		Assertions.assertEquals("m99", messages.get(99));
+		Assertions.assertTrue(delegate.closed);
+
+		// Once closed, messages are written straight away
+		log(handler, "after");
+		Assertions.assertEquals("after", delegate.messages().get(100));
+	}
+}
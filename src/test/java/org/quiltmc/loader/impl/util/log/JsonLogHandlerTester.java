@@ -0,0 +1,121 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.loader.impl.util.log;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class JsonLogHandlerTester {
+
+	@TempDir
+	Path folder;
+
+	@FunctionalInterface
+	private interface LogHandlerAction {
+		void run(JsonLogHandler handler);
+	}
+
+	private List<String> write(LogHandlerAction action) throws IOException {
+		Path file = folder.resolve("log.jsonl");
+		JsonLogHandler handler = new JsonLogHandler(file);
+		try {
+			action.run(handler);
+		} finally {
+			handler.close();
+		}
+		return Files.readAllLines(file, StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void testStringEscaping() throws IOException {
+		List<String> lines = write(handler -> handler.log(
+			0, LogLevel.INFO, LogCategory.GENERAL, "say \"hi\" \\ a\u0001b\tc\nd\re", null, false, false
+		));
+
+		Assertions.assertEquals(1, lines.size());
+		Assertions.assertTrue(
+			lines.get(0).contains("\"message\":\"say \\\"hi\\\" \\\\ a\\u0001b\\tc\\nd\\re\""), lines.get(0)
+		);
+	}
+
+	@Test
+	public void testStackTraceStaysOnOneLine() throws IOException {
+		Exception exc = new IllegalStateException("first line\nsecond \"line\"");
+		List<String> lines = write(handler -> handler.log(
+			0, LogLevel.ERROR, LogCategory.GENERAL, "failed", exc, false, false
+		));
+
+		Assertions.assertEquals(1, lines.size());
+		String line = lines.get(0);
+		Assertions.assertTrue(line.contains(
+			"\"exception\":\"java.lang.IllegalStateException: first line\\nsecond \\\"line\\\"\\n\\tat "
+		), line);
+		Assertions.assertTrue(line.endsWith("\"}"), line);
+	}
+
+	@Test
+	public void testFields() throws IOException {
+		Map<String, Object> fields = new LinkedHashMap<>();
+		fields.put("count", 5);
+		fields.put("big", 1L << 40);
+		fields.put("ratio", 1.5);
+		fields.put("nan", Double.NaN);
+		fields.put("inf", Float.NEGATIVE_INFINITY);
+		fields.put("flag", true);
+		fields.put("name", "a \"b\"");
+		fields.put("missing", null);
+
+		List<String> lines = write(handler -> handler.logStructured(
+			0, "main", LogLevel.INFO, LogCategory.GENERAL, "took %d ms", new Object[] { 7 }, null, fields
+		));
+
+		Assertions.assertEquals(1, lines.size());
+		String line = lines.get(0);
+		Assertions.assertTrue(line.contains(
+			"\"message\":\"took 7 ms\",\"template\":\"took %d ms\",\"args\":[7]"
+		), line);
+		// Numbers json can't represent are written as strings instead
+		Assertions.assertTrue(line.contains(
+			"\"fields\":{\"count\":5,\"big\":1099511627776,\"ratio\":1.5,\"nan\":\"NaN\",\"inf\":\"-Infinity\","
+				+ "\"flag\":true,\"name\":\"a \\\"b\\\"\",\"missing\":null}"
+		), line);
+	}
+
+	@Test
+	public void testNoFieldsOrTemplate() throws IOException {
+		List<String> lines = write(handler -> handler.logStructured(
+			0, "worker", LogLevel.WARN, LogCategory.GENERAL, "plain", new Object[0], null, null
+		));
+
+		Assertions.assertEquals(1, lines.size());
+		String line = lines.get(0);
+		Assertions.assertTrue(line.startsWith("{\"time\":\"1970-01-01T00:00:00Z\",\"level\":\"WARN\""), line);
+		Assertions.assertTrue(line.contains("\"thread\":\"worker\",\"message\":\"plain\"}"), line);
+		Assertions.assertFalse(line.contains("\"template\""), line);
+		Assertions.assertFalse(line.contains("\"fields\""), line);
+	}
+}
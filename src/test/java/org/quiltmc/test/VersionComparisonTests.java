@@ -24,6 +24,7 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.quiltmc.json5.JsonReader;
 import org.quiltmc.json5.JsonToken;
+import org.quiltmc.loader.api.Version;
 import org.quiltmc.loader.api.VersionFormatException;
 import org.quiltmc.loader.impl.metadata.qmj.SemanticVersionImpl;
 
@@ -84,4 +85,14 @@ public class VersionComparisonTests extends JsonTestBase {
 			}
 		}
 	}
+
+	@Test
+	public void testInterning() throws VersionFormatException {
+		Assertions.assertSame(Version.of("1.2.3-beta.1"), Version.of("1.2.3-beta.1"));
+		Assertions.assertSame(Version.Semantic.of("1.2.3-beta.1"), Version.of("1.2.3-beta.1"));
+		Assertions.assertSame(Version.of("not semantic"), Version.of("not semantic"));
+		Assertions.assertFalse(Version.of("not semantic").isSemantic());
+		Assertions.assertThrows(VersionFormatException.class, () -> Version.Semantic.of("not semantic"));
+		Assertions.assertEquals(0, Version.of("1.0.0").compareTo(Version.of("1.0.0")));
+	}
 }